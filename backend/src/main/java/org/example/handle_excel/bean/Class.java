@@ -24,4 +24,9 @@ public class Class {
      * 年级
      */
     private String grade;
+
+    /**
+     * 主键 ID，按主键分页读取时作为游标
+     */
+    private Long id;
 }
@@ -3,8 +3,8 @@ package org.example.handle_excel.bean;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.example.handle_excel.model.Remark;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -36,7 +36,12 @@ public class Course {
     private String utime;
 
     /**
-     * 课程备注，每个备注可能包含课程的额外信息，如学期、类型等。
+     * 课程备注，对应课程名称中的每一对括号，可能包含课程的额外信息，如年级、学期、类型等。
      */
-    private List<ArrayList<String>> remark;
+    private List<Remark> remark;
+
+    /**
+     * 主键 ID，按主键分页读取时作为游标
+     */
+    private Long id;
 }
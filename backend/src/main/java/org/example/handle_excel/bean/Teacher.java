@@ -26,4 +26,9 @@ public class Teacher {
      * 教师的名
      */
     private String trName;
+
+    /**
+     * 主键 ID，按主键分页读取时作为游标
+     */
+    private Long id;
 }
@@ -0,0 +1,64 @@
+package org.example.handle_excel.bean;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 代表一条排课记录的实体类，对应 teaching_assignment 表，内容与输出课表中的一行相同。
+ * 使用 Lombok 注解简化代码，如生成 getters、setters、构造函数等。
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TeachingAssignment {
+    /**
+     * 教师编号
+     */
+    private String trNum;
+
+    /**
+     * 教师姓名（姓 + 名）
+     */
+    private String trName;
+
+    /**
+     * 课程编号
+     */
+    private String courNum;
+
+    /**
+     * 课程名称，输入课表中的原始名称
+     */
+    private String courName;
+
+    /**
+     * 班级编号
+     */
+    private String classNum;
+
+    /**
+     * 班级名称
+     */
+    private String className;
+
+    /**
+     * 人数上限
+     */
+    private int uppeo;
+
+    /**
+     * 人数下限
+     */
+    private int lwpeo;
+
+    /**
+     * 开始日期
+     */
+    private String startDate;
+
+    /**
+     * 结束日期
+     */
+    private String endDate;
+}
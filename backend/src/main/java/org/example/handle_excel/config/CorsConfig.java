@@ -31,6 +31,7 @@ public class CorsConfig {
                         .allowedOrigins("http://localhost:5174") // 允许的来源
                         .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS") // 允许的 HTTP 方法
                         .allowedHeaders("*") // 允许的请求头
+                        .exposedHeaders("Server-Timing") // 允许前端读取的响应头
                         .allowCredentials(true); // 是否允许发送凭证（如 Cookies）
             }
         };
@@ -0,0 +1,112 @@
+package org.example.handle_excel.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 线程池配置类，提供 Spring MVC 异步请求、并行处理 Sheet、执行异步转换任务和批量转换使用的有界线程池。
+ */
+@Slf4j
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Spring MVC 异步请求（如 StreamingResponseBody 写出响应）使用的线程池。
+     * 容器中存在其他 Executor 时 Spring Boot 不再自动创建该线程池，异步请求会退回到每个任务新建线程，
+     * 因此按 spring.task.execution 配置显式创建。
+     *
+     * @param builder Spring Boot 按 spring.task.execution 配置好的构建器
+     * @return 线程池
+     */
+    @Bean(name = "applicationTaskExecutor")
+    public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    /**
+     * 并行处理 Sheet 的线程池，所有请求共享，线程数固定为配置的大小。
+     * 配置使用虚拟线程且运行环境为 Java 21 及以上时，池中的线程为虚拟线程，否则使用平台线程。
+     *
+     * @param handleProperties 转换相关配置
+     * @return 线程池
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService sheetExecutor(HandleProperties handleProperties) {
+        HandleProperties.Parallel parallel = handleProperties.getParallel();
+        int poolSize = parallel.getPoolSize() > 0 ? parallel.getPoolSize() : Runtime.getRuntime().availableProcessors();
+        ThreadFactory threadFactory = parallel.isVirtualThreads() ? virtualThreadFactory() : null;
+        boolean virtual = threadFactory != null;
+        if (!virtual) {
+            AtomicInteger count = new AtomicInteger();
+            threadFactory = runnable -> {
+                Thread thread = new Thread(runnable, "sheet-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+        log.info("Sheet 线程池大小: {}，虚拟线程: {}", poolSize, virtual);
+        return new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), threadFactory);
+    }
+
+    /**
+     * 执行异步转换任务的线程池，线程数和等待队列长度都有上限。
+     * 队列已满时提交任务会抛出 RejectedExecutionException，由调用方拒绝新的任务。
+     *
+     * @param handleProperties 转换相关配置
+     * @return 线程池
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService jobExecutor(HandleProperties handleProperties) {
+        HandleProperties.Job job = handleProperties.getJob();
+        AtomicInteger count = new AtomicInteger();
+        return new ThreadPoolExecutor(job.getWorkerCount(), job.getWorkerCount(), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(job.getQueueCapacity()),
+                runnable -> new Thread(runnable, "job-" + count.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 批量转换时并行转换各个文件的线程池，所有批量请求共享，线程数固定为配置的大小。
+     * 与 Sheet 线程池分开，文件任务等待其中的 Sheet 任务时不会占满同一个线程池。
+     *
+     * @param handleProperties 转换相关配置
+     * @return 线程池
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService batchExecutor(HandleProperties handleProperties) {
+        int parallelism = handleProperties.getBatch().getParallelism();
+        int poolSize = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        AtomicInteger count = new AtomicInteger();
+        log.info("批量转换线程池大小: {}", poolSize);
+        return new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "batch-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 通过反射创建虚拟线程工厂，项目按 Java 17 编译，不能直接调用 Thread.ofVirtual()。
+     *
+     * @return 虚拟线程工厂，运行环境不支持虚拟线程时返回 null
+     */
+    private ThreadFactory virtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, "sheet-", 1L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            log.warn("当前运行环境不支持虚拟线程，使用平台线程");
+            return null;
+        }
+    }
+}
@@ -0,0 +1,430 @@
+package org.example.handle_excel.config;
+
+import lombok.Data;
+import org.example.handle_excel.model.Term;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 课表转换相关的配置项，对应 application.properties 中以 handle 开头的属性。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "handle")
+public class HandleProperties {
+
+    /**
+     * 上传文件的读取配置
+     */
+    private Input input = new Input();
+
+    /**
+     * 输出工作簿的写入配置
+     */
+    private Output output = new Output();
+
+    /**
+     * 模板配置
+     */
+    private Template template = new Template();
+
+    /**
+     * 课程、班级、教师基础数据的缓存配置
+     */
+    private Reference reference = new Reference();
+
+    /**
+     * 多 Sheet 并行处理配置
+     */
+    private Parallel parallel = new Parallel();
+
+    /**
+     * 异步转换任务配置
+     */
+    private Job job = new Job();
+
+    /**
+     * 转换问题汇总配置
+     */
+    private Diagnostics diagnostics = new Diagnostics();
+
+    /**
+     * 转换结果缓存配置
+     */
+    private Cache cache = new Cache();
+
+    /**
+     * 批量转换配置
+     */
+    private Batch batch = new Batch();
+
+    /**
+     * 排课结果写回数据库配置
+     */
+    private WriteBack writeBack = new WriteBack();
+
+    /**
+     * 按内存预算限制同时进行的转换
+     */
+    private Admission admission = new Admission();
+
+    /**
+     * 增量转换配置
+     */
+    private Incremental incremental = new Incremental();
+
+    /**
+     * 默认学期，请求中未指定学期时按该学期匹配课程
+     */
+    private Term term = Term.UPPER;
+
+    /**
+     * 输入读取方式，csv 总是逐行读取；两种方式得到的单元格值相同。
+     */
+    public enum InputMode {
+        /**
+         * 将整个工作簿加载到内存，xlsx 使用 XSSFWorkbook，xls 使用 HSSFWorkbook
+         */
+        DOM,
+        /**
+         * 逐行读取，xlsx 使用 XSSFReader + SAX，内存占用仅与共享字符串表相关；xls 使用 HSSF 事件模型
+         */
+        STREAMING
+    }
+
+    /**
+     * 输出工作簿类型。
+     */
+    public enum OutputMode {
+        /**
+         * 使用 XSSFWorkbook，所有行在写出前都保留在内存中
+         */
+        XSSF,
+        /**
+         * 使用 SXSSFWorkbook，超出行窗口的行会刷写到临时文件，内存占用与行数无关
+         */
+        SXSSF
+    }
+
+    /**
+     * 基础数据读取方式。
+     */
+    public enum ReferenceLoadMode {
+        /**
+         * 每张表执行一次查询，以流式结果集逐行读取并直接构建映射
+         */
+        STREAM,
+        /**
+         * 按主键分页查询（键集分页），每次只持有一页数据，适用于不允许长时间占用连接的环境
+         */
+        PAGED
+    }
+
+    @Data
+    public static class Input {
+        /**
+         * 读取方式，默认使用流式读取
+         */
+        private InputMode mode = InputMode.STREAMING;
+
+        /**
+         * CSV 文件不带 BOM、且不是有效的 UTF-8 时使用的编码
+         */
+        private String csvCharset = "GBK";
+
+        /**
+         * CSV 文件对应的模板 Sheet 名称，为空时使用模板的第一个 Sheet
+         */
+        private String csvSheetName;
+
+        /**
+         * 超过该大小的上传文件先写入临时文件，xlsx 以文件方式打开，按需随机读取其中的各个文件，不在内存中解压整个压缩包
+         */
+        private DataSize spillThreshold = DataSize.ofMegabytes(1);
+
+        /**
+         * 上传文件临时文件的存放目录，转换完成后删除
+         */
+        private String spillDir = System.getProperty("java.io.tmpdir") + "/handle_excel/uploads";
+
+        /**
+         * xlsx 中各文件解压后与压缩后大小之比的下限，低于该值视为 zip 炸弹（POI 默认 0.01）
+         */
+        private double zipMinInflateRatio = 0.01;
+
+        /**
+         * xlsx 中单个文件解压后的大小上限（POI 默认 4GB）
+         */
+        private DataSize zipMaxEntrySize = DataSize.ofBytes(0xFFFFFFFFL);
+
+        /**
+         * xlsx 中的文件数上限（POI 默认 1000）
+         */
+        private long zipMaxFileCount = 1000;
+
+        /**
+         * 从 xlsx 中提取文本时的字符数上限（POI 默认 10M）
+         */
+        private long zipMaxTextSize = 10 * 1024 * 1024;
+    }
+
+    @Data
+    public static class Output {
+        /**
+         * 输出工作簿类型，默认使用流式写入
+         */
+        private OutputMode mode = OutputMode.SXSSF;
+
+        /**
+         * SXSSF 模式下保留在内存中的行数，超出的行会刷写到临时文件
+         */
+        private int rowWindowSize = 100;
+
+        /**
+         * SXSSF 模式下是否压缩临时文件
+         */
+        private boolean compressTempFiles = true;
+    }
+
+    @Data
+    public static class Template {
+        /**
+         * 模板文件位置，支持 classpath: 和 file: 前缀
+         */
+        private String location = "classpath:templates/template.xlsx";
+
+        /**
+         * 检查模板文件是否修改的最小间隔，文件修改后自动重新加载
+         */
+        private Duration reloadCheckInterval = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class Reference {
+        /**
+         * 基础数据缓存的有效期，过期后重新检查或加载
+         */
+        private Duration ttl = Duration.ofMinutes(10);
+
+        /**
+         * 缓存过期时是否先检查各表的记录数和最大更新时间，数据未变化时直接延长有效期而不重新加载
+         */
+        private boolean changeCheck = true;
+
+        /**
+         * 读取方式，默认以流式结果集逐行读取
+         */
+        private ReferenceLoadMode loadMode = ReferenceLoadMode.STREAM;
+
+        /**
+         * 分页读取时每页的条数
+         */
+        private int pageSize = 1000;
+
+        /**
+         * 只加载该校区的班级，为空时加载所有校区
+         */
+        private String campus;
+
+        /**
+         * 只加载这些状态的班级（0 注册 / 1 运行 / 2 关闭），为空时不过滤
+         */
+        private List<Integer> classStatuses = new ArrayList<>();
+
+        /**
+         * 只加载这些状态的课程（0 启用 / 1 停用），为空时不过滤
+         */
+        private List<Integer> courseStates = new ArrayList<>();
+    }
+
+    @Data
+    public static class Parallel {
+        /**
+         * 是否并行处理输入工作簿中的各个 Sheet，只用于流式读取；DOM 方式加载的 Workbook 不是线程安全的，总是依次处理
+         */
+        private boolean enabled = false;
+
+        /**
+         * 线程池大小，所有请求共享，小于等于 0 时使用 CPU 核数
+         */
+        private int poolSize = 0;
+
+        /**
+         * 是否使用虚拟线程，需要 Java 21 及以上的运行环境，否则退回平台线程
+         */
+        private boolean virtualThreads = false;
+    }
+
+    @Data
+    public static class Job {
+        /**
+         * 任务文件的存放目录，保存上传的输入文件和生成的结果文件
+         */
+        private String spoolDir = System.getProperty("java.io.tmpdir") + "/handle_excel/jobs";
+
+        /**
+         * 同时执行的任务数
+         */
+        private int workerCount = 2;
+
+        /**
+         * 等待执行的任务数上限，队列已满时拒绝新任务
+         */
+        private int queueCapacity = 20;
+
+        /**
+         * 已结束的任务及其文件的保留时间，超过后在提交新任务时清理
+         */
+        private Duration retention = Duration.ofHours(1);
+    }
+
+    @Data
+    public static class Diagnostics {
+        /**
+         * 是否在输出工作簿末尾附加“问题” Sheet，列出未匹配的教师、课程、班级和年级
+         */
+        private boolean issueSheet = false;
+
+        /**
+         * 每次转换最多记录的问题项数（相同的问题合并为一项），超出后只计数
+         */
+        private int maxIssues = 1000;
+    }
+
+    @Data
+    public static class Cache {
+        /**
+         * 是否缓存转换结果，相同的文件在基础数据和模板未变化时直接返回上一次的结果
+         */
+        private boolean enabled = true;
+
+        /**
+         * 结果文件的存放目录，启动时清空
+         */
+        private String dir = System.getProperty("java.io.tmpdir") + "/handle_excel/cache";
+
+        /**
+         * 所有结果文件的总大小上限，超出后淘汰最久未使用的结果
+         */
+        private DataSize maxSize = DataSize.ofMegabytes(512);
+
+        /**
+         * 缓存的结果数上限，超出后淘汰最久未使用的结果
+         */
+        private int maxEntries = 200;
+    }
+
+    @Data
+    public static class Batch {
+        /**
+         * 同时转换的文件数，所有批量请求共享，小于等于 0 时使用 CPU 核数
+         */
+        private int parallelism = 0;
+
+        /**
+         * 每次批量转换最多包含的文件数，包括压缩包中的文件
+         */
+        private int maxFiles = 100;
+
+        /**
+         * 上传文件的总大小上限，压缩包按解压后的大小计算
+         */
+        private DataSize maxUncompressedSize = DataSize.ofMegabytes(200);
+
+        /**
+         * 压缩包中未标记为 UTF-8 的文件名使用的编码，Windows 自带的压缩工具使用 GBK
+         */
+        private String zipCharset = "GBK";
+    }
+
+    @Data
+    public static class WriteBack {
+        /**
+         * 是否允许请求把排课结果写回数据库的 teaching_assignment 表，需要先执行 teaching_assignment.sql 建表
+         */
+        private boolean enabled = false;
+
+        /**
+         * 每批发送到数据库的记录数
+         */
+        private int batchSize = 500;
+    }
+
+    @Data
+    public static class Admission {
+        /**
+         * 是否按内存预算限制同时进行的转换，/handle 请求、异步任务和批量转换共享同一个预算
+         */
+        private boolean enabled = true;
+
+        /**
+         * 所有转换共享的内存预算，为空时使用最大堆内存的一半；启用增量转换时其中的快照额度（最多一半）不用于转换
+         */
+        private DataSize budget;
+
+        /**
+         * 每次转换的固定开销，包括输出工作簿的行窗口、样式和匹配过程中的临时对象
+         */
+        private DataSize baseCost = DataSize.ofMegabytes(16);
+
+        /**
+         * DOM 读取方式下每字节解压后的输入占用的堆内存（字节），XSSFWorkbook 和 HSSFWorkbook 的对象模型比文件内容大得多
+         */
+        private double domFactor = 8;
+
+        /**
+         * 流式读取方式下每字节解压后的输入占用的堆内存（字节），主要是共享字符串表和输出行
+         */
+        private double streamingFactor = 1;
+
+        /**
+         * 无法读取 xlsx 中各文件解压后的大小时，按该压缩比估算
+         */
+        private double compressionRatio = 10;
+
+        /**
+         * /handle 请求在预算不足时的最长等待时间，超时返回 429；为 0 时不等待
+         */
+        private Duration maxWait = Duration.ofSeconds(10);
+
+        /**
+         * 返回 429 时 Retry-After 响应头建议的重试间隔
+         */
+        private Duration retryAfter = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class Incremental {
+        /**
+         * 是否允许请求通过 documentId 参数启用增量转换，只重新匹配与上一次上传相比有变化的行
+         */
+        private boolean enabled = true;
+
+        /**
+         * 最多保存快照的文档数，超出时淘汰最久未使用的文档
+         */
+        private int maxDocuments = 100;
+
+        /**
+         * 所有文档快照的总行数上限（按不同内容的行计），超出时淘汰最久未使用的文档；单个文档超过该上限时不保存快照
+         */
+        private long maxRows = 200_000;
+
+        /**
+         * 所有文档快照估算的内存上限，从内存预算中划出（最多为预算的一半），不占用转换的预算；
+         * 超出时淘汰最久未使用的文档，单个文档超过该上限时不保存快照
+         */
+        private DataSize maxMemory = DataSize.ofMegabytes(64);
+
+        /**
+         * 快照的有效期，超过后该文档的下一次转换全部重新匹配
+         */
+        private Duration ttl = Duration.ofHours(2);
+    }
+}
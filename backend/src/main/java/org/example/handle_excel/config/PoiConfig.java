@@ -0,0 +1,34 @@
+package org.example.handle_excel.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.openxml4j.util.ZipSecureFile;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * POI 配置类，按配置设置读取 xlsx 时的 zip 炸弹检查阈值。
+ * 这些阈值是 POI 的全局设置，对上传的文件和模板都生效，无论以流还是文件方式打开。
+ */
+@Slf4j
+@Configuration
+public class PoiConfig {
+
+    @Autowired
+    private HandleProperties handleProperties; // 转换相关配置
+
+    /**
+     * 启动时设置 ZipSecureFile 的各项阈值。
+     */
+    @PostConstruct
+    public void init() {
+        HandleProperties.Input input = handleProperties.getInput();
+        ZipSecureFile.setMinInflateRatio(input.getZipMinInflateRatio());
+        ZipSecureFile.setMaxEntrySize(input.getZipMaxEntrySize().toBytes());
+        ZipSecureFile.setMaxFileCount(input.getZipMaxFileCount());
+        ZipSecureFile.setMaxTextSize(input.getZipMaxTextSize());
+        log.info("zip 检查阈值: 最小压缩比 {}，单个文件上限 {}，文件数上限 {}，文本上限 {}",
+                input.getZipMinInflateRatio(), input.getZipMaxEntrySize(), input.getZipMaxFileCount(),
+                input.getZipMaxTextSize());
+    }
+}
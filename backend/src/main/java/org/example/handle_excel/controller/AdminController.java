@@ -0,0 +1,42 @@
+package org.example.handle_excel.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.handle_excel.common.Result;
+import org.example.handle_excel.model.ReferenceData;
+import org.example.handle_excel.service.ReferenceDataService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 管理接口控制器，提供缓存刷新等运维操作。
+ */
+@Slf4j
+@RestController
+@RequestMapping("/admin")
+public class AdminController {
+
+    @Autowired
+    private ReferenceDataService referenceDataService; // 基础数据缓存服务
+
+    /**
+     * 立即重新加载课程、班级、教师基础数据。
+     *
+     * @return 刷新后的快照版本及各类数据数量
+     */
+    @PostMapping("/reference/refresh")
+    public Result<Map<String, Object>> refreshReferenceData() {
+        ReferenceData data = referenceDataService.refresh();
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("version", data.version());
+        summary.put("courses", data.courseMap().size());
+        summary.put("classes", data.classMap().size());
+        summary.put("teachers", data.teacherMap().size());
+        return Result.success(summary);
+    }
+}
@@ -0,0 +1,97 @@
+package org.example.handle_excel.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.example.handle_excel.model.BatchFile;
+import org.example.handle_excel.model.Term;
+import org.example.handle_excel.service.BatchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * 批量转换控制器。
+ * 一次上传多个课表或一个包含多个课表的 zip 压缩包，返回包含所有结果文件和汇总文件的 zip 压缩包。
+ */
+@Slf4j
+@RestController
+public class BatchController {
+
+    @Autowired
+    private BatchService batchService; // 批量转换服务
+
+    /**
+     * 批量转换上传的文件。
+     * 压缩包在转换的同时写入响应，由于长度未知，响应使用分块传输；
+     * 单个文件转换失败不影响其他文件，失败原因记录在压缩包中的汇总文件里。
+     * 上传的文件先写入临时文件，转换时逐个删除；响应体未执行（线程池拒绝或请求超时）时在异步请求结束后删除。
+     *
+     * @param files   上传的 Excel 文件或 zip 压缩包，可以有多个
+     * @param term    学期（UPPER 上册 / LOWER 下册），未指定时使用配置的默认学期
+     * @param request 当前请求，用于注册异步请求结束的回调
+     * @return zip 压缩包；没有可转换的文件或超过上限时返回 400
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<StreamingResponseBody> batch(@RequestParam("files") MultipartFile[] files,
+                                                       @RequestParam(value = "term", required = false) Term term,
+                                                       HttpServletRequest request) {
+        List<BatchFile> batchFiles;
+        try {
+            // 先读取所有文件，文件数和大小超过上限时在开始转换前拒绝
+            batchFiles = batchService.readFiles(files);
+        } catch (IllegalArgumentException e) {
+            log.warn("批量转换参数错误: {}", e.getMessage());
+            return textResponse(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IOException e) {
+            log.error("读取上传文件失败", e);
+            return textResponse(HttpStatus.INTERNAL_SERVER_ERROR, "文件处理失败");
+        }
+        log.info("开始批量转换，文件 {} 个", batchFiles.size());
+
+        StreamingResponseBody body = outputStream -> batchService.convert(batchFiles, term, outputStream);
+        // 已删除的文件会被跳过，响应体正常执行后这里不再有需要删除的文件
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(BatchController.class.getName(),
+                new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void afterCompletion(NativeWebRequest webRequest, Callable<T> task) {
+                        batchService.deleteFiles(batchFiles);
+                    }
+                });
+        String encodedFileName = URLEncoder.encode("课表.zip", StandardCharsets.UTF_8);
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + encodedFileName + "\"") // 设置下载文件名
+                .contentType(MediaType.parseMediaType("application/zip")) // 设置内容类型为 zip 压缩包
+                .body(body); // 返回压缩包，长度未知时使用分块传输
+    }
+
+    /**
+     * 构造纯文本响应，用于返回错误信息。
+     *
+     * @param status  HTTP 状态码
+     * @param message 错误信息
+     * @return 纯文本响应
+     */
+    private ResponseEntity<StreamingResponseBody> textResponse(HttpStatus status, String message) {
+        byte[] bytes = String.valueOf(message).getBytes(StandardCharsets.UTF_8);
+        return ResponseEntity.status(status)
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                .body(outputStream -> outputStream.write(bytes));
+    }
+}
@@ -1,26 +1,43 @@
 package org.example.handle_excel.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-import org.example.handle_excel.bean.Class;
-import org.example.handle_excel.bean.Course;
-import org.example.handle_excel.bean.Teacher;
-import org.example.handle_excel.service.DataService;
-import org.example.handle_excel.service.SheetService;
+import org.example.handle_excel.config.HandleProperties;
+import org.example.handle_excel.model.AssignmentTable;
+import org.example.handle_excel.model.ConversionProgress;
+import org.example.handle_excel.model.ConversionStage;
+import org.example.handle_excel.model.OutputFormat;
+import org.example.handle_excel.model.Term;
+import org.example.handle_excel.service.ConversionMetrics;
+import org.example.handle_excel.service.ConversionService;
+import org.example.handle_excel.service.IncrementalService;
+import org.example.handle_excel.service.MemoryAdmission;
+import org.example.handle_excel.service.ResultCache;
+import org.example.handle_excel.service.WriteBackService;
+import org.example.handle_excel.utils.SpooledUpload;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.InputStreamResource;
-import org.springframework.core.io.ClassPathResource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.*;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 @SuppressWarnings("all")
 
 /**
@@ -31,75 +48,316 @@ import java.util.*;
 @RestController
 public class HandleController {
 
-    /**
-     * 模板文件在资源目录中的路径。
-     * 该模板用于复制 Sheet 的结构和样式。
-     */
-    private static final String TEMPLATE_PATH = "templates/template.xlsx"; // 模板文件路径
+    @Autowired
+    private ConversionService conversionService; // 转换服务，生成输出工作簿
+
+    @Autowired
+    private ConversionMetrics conversionMetrics; // 转换指标服务，记录各阶段的耗时和计数
+
+    @Autowired
+    private ResultCache resultCache; // 转换结果缓存
 
     @Autowired
-    private DataService dataService; // 数据服务，用于获取课程、班级、教师数据
+    private WriteBackService writeBackService; // 排课结果写回服务
 
     @Autowired
-    private SheetService sheetService; // Sheet 处理服务，用于处理 Excel 的 Sheet
+    private MemoryAdmission memoryAdmission; // 内存准入控制
+
+    @Autowired
+    private HandleProperties handleProperties; // 转换相关配置
 
     /**
      * 处理上传的 Excel 文件，支持多张 Sheet，并生成对应的输出文件。
+     * 生成的 Workbook 不会先缓存到字节数组中，而是在响应阶段直接写入 Servlet 输出流，
+     * 由于长度未知，响应使用分块传输。大文件建议使用 /jobs 异步任务接口。
+     * 响应头 Server-Timing 列出写出之前各阶段的耗时，写出完成后记录本次转换的指标。
+     * 上传文件先复制一份，超过配置大小的写入临时文件，xlsx 以文件方式打开，转换完成后删除。
+     * 启用结果缓存时，复制上传文件的同时计算内容哈希，命中缓存则直接返回上一次的结果文件，
+     * 未命中时转换结果在写入响应的同时写入缓存。
+     * 请求写回时，排课结果在同一个事务中写入数据库的 teaching_assignment 表，此时不使用结果缓存。
+     * 上传文件可以是 xlsx、xls 或 csv，按文件内容判断；结果可以是按模板填充的 xlsx，也可以是供下游系统导入的 CSV。
+     * 未命中缓存时按估算的内存占用从共享的内存预算中预留，预算不足时排队等待，超时返回 429，结果写出后归还；
+     * 响应体因线程池拒绝或请求超时没有执行时，在异步请求结束时归还并释放输出工作簿。
+     * 提供文档 ID 时使用增量转换：内容与同一文档上一次上传相同的行直接复用上一次的结果，只重新匹配有变化的行。
      *
-     * @param file 上传的 Excel 文件（MultipartFile 类型）
-     * @return 生成的 Excel 文件下载链接或错误信息
+     * @param file       上传的 Excel 或 CSV 文件（MultipartFile 类型）
+     * @param term       学期（UPPER 上册 / LOWER 下册），未指定时使用配置的默认学期
+     * @param writeBack  是否把排课结果写回数据库，需要在配置中启用；只支持 xlsx 结果
+     * @param format     结果格式（XLSX / CSV），默认 XLSX
+     * @param documentId 文档 ID，同一份课表的各次上传使用相同的 ID 时只重新匹配有变化的行
+     * @param request    当前请求，用于在异步请求结束时释放响应体没有使用的资源
+     * @return 生成的 Excel 文件下载链接或错误信息；内存预算不足返回 429，Retry-After 响应头给出建议的重试间隔（秒）
      */
     @PostMapping("/handle")
-    public ResponseEntity<?> handleExcel(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<StreamingResponseBody> handleExcel(@RequestParam("file") MultipartFile file,
+                                                             @RequestParam(value = "term", required = false) Term term,
+                                                             @RequestParam(value = "writeBack", defaultValue = "false") boolean writeBack,
+                                                             @RequestParam(value = "format", defaultValue = "XLSX") OutputFormat format,
+                                                             @RequestParam(value = "documentId", required = false) String documentId,
+                                                             HttpServletRequest request) {
 
         // 检查文件是否为空
         if (file.isEmpty()) {
-            return ResponseEntity.badRequest().body("上传的文件为空");
+            return textResponse(HttpStatus.BAD_REQUEST, "上传的文件为空");
+        }
+        if (writeBack && !writeBackService.isEnabled()) {
+            return textResponse(HttpStatus.BAD_REQUEST, "未启用写回数据库");
+        }
+        if (writeBack && format != OutputFormat.XLSX) {
+            return textResponse(HttpStatus.BAD_REQUEST, "写回数据库只支持 xlsx 结果");
+        }
+        if (documentId != null && documentId.length() > IncrementalService.MAX_DOCUMENT_ID_LENGTH) {
+            return textResponse(HttpStatus.BAD_REQUEST, "文档ID过长");
+        }
+
+        long startTime = System.nanoTime();
+        ConversionProgress progress = new ConversionProgress(handleProperties.getDiagnostics().getMaxIssues());
+        MemoryAdmission.Reservation reservation = null; // 未命中缓存时才预留
+        Workbook outputWorkbook = null;
+        List<AssignmentTable> tables = null; // CSV 结果的排课结果表
+        String cacheKey = null;
+        // 转换结果交给响应体写出后由响应体释放预留和输出工作簿，其他情况（出错、预算不足）在返回前释放
+        boolean streaming = false;
+        try {
+            try {
+                // 复制上传文件（大文件写入临时文件）的同时计算内容哈希，转换时直接使用副本，不再读取第二遍
+                MessageDigest digest = resultCache.isEnabled() && !writeBack ? ResultCache.newDigest() : null;
+                HandleProperties.Input input = handleProperties.getInput();
+                try (SpooledUpload upload = SpooledUpload.spool(file, input.getSpillThreshold().toBytes(),
+                        Paths.get(input.getSpillDir()), digest)) {
+                    if (digest != null) {
+                        cacheKey = resultCache.key(digest.digest(), term, format);
+                        InputStream cached = resultCache.open(cacheKey);
+                        conversionMetrics.recordCache(ConversionMetrics.SOURCE_HANDLE, cached != null);
+                        if (cached != null) {
+                            // 命中缓存时只复制结果文件，不占用内存预算
+                            log.info("命中结果缓存: {}", file.getOriginalFilename());
+                            return cachedResponse(request, format,
+                                    conversionMetrics.cachedServerTiming(System.nanoTime() - startTime), cached);
+                        }
+                    }
+
+                    // 按估算的内存占用从预算中预留，预算不足时排队等待，超时返回 429；从副本估算，不再读取上传文件
+                    try {
+                        reservation = memoryAdmission.tryReserve(
+                                memoryAdmission.estimate(upload.getResource(), file.getSize()));
+                    } catch (RejectedExecutionException e) {
+                        return textResponse(HttpStatus.TOO_MANY_REQUESTS, retryAfterHeaders(), "服务器繁忙，请稍后重试");
+                    }
+
+                    if (format == OutputFormat.CSV) {
+                        // 只生成排课结果表，在响应阶段写为 CSV
+                        tables = conversionService.convertToTables(upload.getResource(), term, documentId, progress);
+                    } else {
+                        // 转换用户上传的文件，生成输出 Workbook，写入响应后再关闭
+                        outputWorkbook = writeBack
+                                ? conversionService.convertAndWriteBack(upload.getResource(), term, documentId, progress)
+                                : conversionService.convert(upload.getResource(), term, documentId, progress);
+                    }
+                }
+            } catch (IOException | InvalidFormatException e) {
+                // 记录文件处理失败的错误日志
+                log.error("文件处理失败", e);
+                recordMetrics(false, progress, startTime, file);
+                return textResponse(HttpStatus.INTERNAL_SERVER_ERROR, "文件处理失败");
+            } catch (IllegalArgumentException e) {
+                // 记录输入参数错误的日志
+                log.error("输入参数错误", e);
+                recordMetrics(false, progress, startTime, file);
+                return textResponse(HttpStatus.BAD_REQUEST, e.getMessage());
+            }
+            String serverTiming = conversionMetrics.serverTiming(progress, System.nanoTime() - startTime);
+
+            // 响应体直接把输出 Workbook 或 CSV 写入 Servlet 输出流，写完后释放 Workbook 和预留
+            String resultKey = cacheKey;
+            Workbook resultWorkbook = outputWorkbook;
+            List<AssignmentTable> resultTables = tables;
+            MemoryAdmission.Reservation resultReservation = reservation;
+            ResultCache.ResultWriter resultWriter = resultWorkbook != null
+                    ? resultWorkbook::write
+                    : outputStream -> conversionService.writeCsv(resultTables, outputStream);
+            Runnable release = () -> {
+                if (resultWorkbook != null) {
+                    conversionService.closeOutputWorkbook(resultWorkbook);
+                }
+                resultReservation.close();
+            };
+            ResponseGuard guard = new ResponseGuard(() -> {
+                log.warn("响应体未执行（线程池拒绝或请求超时），释放转换结果");
+                release.run();
+                recordMetrics(false, progress, startTime, file);
+            });
+            StreamingResponseBody body = outputStream -> {
+                if (!guard.claim()) {
+                    return; // 异步请求已经结束，转换结果已释放
+                }
+                long writeStart = System.nanoTime();
+                boolean written = false;
+                try {
+                    if (resultKey != null) {
+                        resultCache.write(resultKey, outputStream, resultWriter);
+                    } else {
+                        resultWriter.write(outputStream);
+                    }
+                    written = true;
+                } finally {
+                    progress.addStageTime(ConversionStage.WRITE, System.nanoTime() - writeStart);
+                    release.run();
+                    recordMetrics(written, progress, startTime, file);
+                }
+            };
+            guard.register(request);
+            streaming = true;
+            return fileResponse(format, serverTiming, body);
+        } finally {
+            if (!streaming) {
+                if (outputWorkbook != null) {
+                    conversionService.closeOutputWorkbook(outputWorkbook);
+                }
+                if (reservation != null) {
+                    reservation.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * 构造返回缓存结果文件的下载响应，响应体没有执行时在异步请求结束时关闭缓存文件。
+     *
+     * @param request      当前请求
+     * @param format       结果格式
+     * @param serverTiming Server-Timing 响应头的值
+     * @param cached       缓存的结果文件
+     * @return 下载响应
+     */
+    private ResponseEntity<StreamingResponseBody> cachedResponse(HttpServletRequest request, OutputFormat format,
+                                                                 String serverTiming, InputStream cached) {
+        ResponseGuard guard = new ResponseGuard(() -> {
+            try {
+                cached.close();
+            } catch (IOException e) {
+                log.warn("关闭缓存文件失败", e);
+            }
+        });
+        guard.register(request);
+        return fileResponse(format, serverTiming, outputStream -> {
+            if (!guard.claim()) {
+                return;
+            }
+            try (InputStream cachedStream = cached) {
+                cachedStream.transferTo(outputStream);
+            }
+        });
+    }
+
+    /**
+     * 构造结果文件的下载响应。
+     *
+     * @param format       结果格式
+     * @param serverTiming Server-Timing 响应头的值
+     * @param body         写出结果文件的响应体
+     * @return 下载响应
+     */
+    private ResponseEntity<StreamingResponseBody> fileResponse(OutputFormat format, String serverTiming,
+                                                               StreamingResponseBody body) {
+        String encodedFileName = URLEncoder.encode("课表." + format.getExtension(), StandardCharsets.UTF_8);
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + encodedFileName + "\"") // 设置下载文件名
+                .header("Server-Timing", serverTiming) // 各阶段耗时
+                .contentType(MediaType.parseMediaType(format.getContentType())) // 设置内容类型
+                .body(body); // 返回文件内容，长度未知时使用分块传输
+    }
+
+    /**
+     * 记录本次转换的指标。
+     *
+     * @param success   转换和写出是否成功
+     * @param progress  转换进度
+     * @param startTime 开始处理请求的时间（System.nanoTime）
+     * @param file      上传的文件
+     */
+    private void recordMetrics(boolean success, ConversionProgress progress, long startTime, MultipartFile file) {
+        conversionMetrics.record(ConversionMetrics.SOURCE_HANDLE, success, progress, System.nanoTime() - startTime,
+                file.getSize());
+    }
+
+    /**
+     * 构造 429 响应的 Retry-After 响应头，值为建议的重试间隔（秒）。
+     *
+     * @return 响应头
+     */
+    private HttpHeaders retryAfterHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER,
+                String.valueOf(Math.max(1, handleProperties.getAdmission().getRetryAfter().toSeconds())));
+        return headers;
+    }
+
+    /**
+     * 构造纯文本响应，用于返回错误信息。
+     *
+     * @param status  HTTP 状态码
+     * @param message 错误信息
+     * @return 纯文本响应
+     */
+    private ResponseEntity<StreamingResponseBody> textResponse(HttpStatus status, String message) {
+        return textResponse(status, HttpHeaders.EMPTY, message);
+    }
+
+    /**
+     * 构造带额外响应头的纯文本响应，用于返回错误信息。
+     *
+     * @param status  HTTP 状态码
+     * @param headers 额外的响应头
+     * @param message 错误信息
+     * @return 纯文本响应
+     */
+    private ResponseEntity<StreamingResponseBody> textResponse(HttpStatus status, HttpHeaders headers, String message) {
+        byte[] bytes = String.valueOf(message).getBytes(StandardCharsets.UTF_8);
+        return ResponseEntity.status(status)
+                .headers(headers)
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                .body(outputStream -> outputStream.write(bytes));
+    }
+
+    /**
+     * 交给响应体的资源的归属：响应体开始执行时认领资源，由响应体在写出后释放；
+     * 响应体没有执行（异步线程池拒绝、请求超时或出错）时，在异步请求结束时释放。两者只有一方生效。
+     */
+    private static final class ResponseGuard implements CallableProcessingInterceptor {
+
+        private final AtomicBoolean claimed = new AtomicBoolean(); // 资源是否已被响应体或异步请求结束回调认领
+
+        private final Runnable onAbandoned; // 响应体没有执行时释放资源
+
+        ResponseGuard(Runnable onAbandoned) {
+            this.onAbandoned = onAbandoned;
+        }
+
+        /**
+         * 注册到当前请求的异步处理，在异步请求结束时回调。
+         *
+         * @param request 当前请求
+         */
+        void register(HttpServletRequest request) {
+            WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(ResponseGuard.class.getName(), this);
+        }
+
+        /**
+         * 响应体开始执行时认领资源。
+         *
+         * @return 是否认领成功，异步请求已经结束时返回 false
+         */
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
         }
 
-        try (
-                // 加载模板 Workbook
-                InputStream templateInputStream = new ClassPathResource(TEMPLATE_PATH).getInputStream();
-                Workbook templateWorkbook = new XSSFWorkbook(templateInputStream);
-                // 加载用户上传的 Workbook
-                Workbook inputWorkbook = new XSSFWorkbook(file.getInputStream());
-                // 创建输出流，用于存储生成的 Excel 文件
-                ByteArrayOutputStream outputStream = new ByteArrayOutputStream()
-        ) {
-
-            // 创建一个新的 Workbook 作为输出
-            Workbook outputWorkbook = new XSSFWorkbook();
-
-            // 初始化数据映射，获取课程、班级、教师的数据映射
-            Map<String, List<Course>> courseMap = dataService.getCourseMap();
-            Map<String, Class> classMap = dataService.getClassMap();
-            Map<String, List<Teacher>> teacherMap = dataService.getTeacherMap();
-
-            // 处理输入 Workbook 中的每个 Sheet，并生成对应的输出 Sheet
-            sheetService.ProcessSheet(inputWorkbook, outputWorkbook, templateWorkbook, courseMap, classMap, teacherMap);
-
-            // 将输出 Workbook 写入输出流
-            outputWorkbook.write(outputStream);
-            byte[] fileBytes = outputStream.toByteArray();
-
-            // 准备响应，包含生成的 Excel 文件
-            InputStreamResource resource = new InputStreamResource(new ByteArrayInputStream(fileBytes));
-            String encodedFileName = URLEncoder.encode("课表.xlsx", StandardCharsets.UTF_8);
-
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + encodedFileName + "\"") // 设置下载文件名
-                    .contentType(MediaType.APPLICATION_OCTET_STREAM) // 设置内容类型为二进制流
-                    .contentLength(fileBytes.length) // 设置内容长度
-                    .body(resource); // 返回文件资源
-
-        } catch (IOException e) {
-            // 记录文件处理失败的错误日志
-            log.error("文件处理失败", e);
-            return ResponseEntity.status(500).body("文件处理失败");
-        } catch (IllegalArgumentException e) {
-            // 记录输入参数错误的日志
-            log.error("输入参数错误", e);
-            return ResponseEntity.badRequest().body(e.getMessage());
+        @Override
+        public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+            if (claim()) {
+                onAbandoned.run();
+            }
         }
     }
 }
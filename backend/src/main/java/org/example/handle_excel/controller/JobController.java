@@ -0,0 +1,152 @@
+package org.example.handle_excel.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.handle_excel.common.Result;
+import org.example.handle_excel.model.ConversionJob;
+import org.example.handle_excel.model.ConversionProgress;
+import org.example.handle_excel.model.Diagnostics;
+import org.example.handle_excel.model.Term;
+import org.example.handle_excel.service.IncrementalService;
+import org.example.handle_excel.service.JobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 异步转换任务控制器。
+ * 提交任务后立即返回任务 ID，客户端轮询任务状态，任务完成后再下载结果文件，
+ * 请求耗时不再随工作簿的大小增长。
+ */
+@Slf4j
+@RestController
+@RequestMapping("/jobs")
+public class JobController {
+
+    @Autowired
+    private JobService jobService; // 异步转换任务服务
+
+    /**
+     * 提交转换任务。
+     *
+     * @param file       上传的 Excel 文件
+     * @param term       学期（UPPER 上册 / LOWER 下册），未指定时使用配置的默认学期
+     * @param documentId 文档 ID，同一份课表的各次上传使用相同的 ID 时只重新匹配有变化的行
+     * @return 任务 ID 及状态；文件为空或文档 ID 过长返回 400，任务队列已满返回 429
+     */
+    @PostMapping
+    public ResponseEntity<Result<Map<String, Object>>> submit(@RequestParam("file") MultipartFile file,
+                                                              @RequestParam(value = "term", required = false) Term term,
+                                                              @RequestParam(value = "documentId", required = false) String documentId) {
+        if (file.isEmpty()) {
+            return error(HttpStatus.BAD_REQUEST, "上传的文件为空");
+        }
+        if (documentId != null && documentId.length() > IncrementalService.MAX_DOCUMENT_ID_LENGTH) {
+            return error(HttpStatus.BAD_REQUEST, "文档ID过长");
+        }
+        try {
+            ConversionJob job = jobService.submit(file, term, documentId);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(Result.success(toSummary(job)));
+        } catch (RejectedExecutionException e) {
+            log.warn("任务队列已满，拒绝文件: {}", file.getOriginalFilename());
+            return error(HttpStatus.TOO_MANY_REQUESTS, "任务队列已满，请稍后重试");
+        } catch (IOException e) {
+            log.error("保存上传文件失败", e);
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, "文件处理失败");
+        }
+    }
+
+    /**
+     * 查询任务状态和进度。
+     *
+     * @param id 任务 ID
+     * @return 任务状态、已处理的 Sheet 数、行数和警告数；任务不存在返回 404
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<Result<Map<String, Object>>> status(@PathVariable("id") String id) {
+        ConversionJob job = jobService.getJob(id);
+        if (job == null) {
+            return error(HttpStatus.NOT_FOUND, "任务不存在");
+        }
+        return ResponseEntity.ok(Result.success(toSummary(job)));
+    }
+
+    /**
+     * 查询任务发现的问题，即未匹配的教师、课程、班级和年级，相同的问题合并为一项。
+     * 任务执行期间也可以查询，返回到目前为止发现的问题。
+     *
+     * @param id 任务 ID
+     * @return 问题列表及超出上限未列出的问题数；任务不存在返回 404
+     */
+    @GetMapping("/{id}/issues")
+    public ResponseEntity<Result<Map<String, Object>>> issues(@PathVariable("id") String id) {
+        ConversionJob job = jobService.getJob(id);
+        if (job == null) {
+            return error(HttpStatus.NOT_FOUND, "任务不存在");
+        }
+        Diagnostics diagnostics = job.getProgress().getDiagnostics();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("status", job.getStatus());
+        result.put("warnings", job.getProgress().getWarnings());
+        result.put("dropped", diagnostics.getDropped());
+        result.put("issues", diagnostics.getIssues());
+        return ResponseEntity.ok(Result.success(result));
+    }
+
+    /**
+     * 下载任务的结果文件。
+     *
+     * @param id 任务 ID
+     * @return 结果文件；任务不存在返回 404，任务未成功完成返回 409
+     */
+    @GetMapping("/{id}/result")
+    public ResponseEntity<?> download(@PathVariable("id") String id) {
+        ConversionJob job = jobService.getJob(id);
+        if (job == null) {
+            return error(HttpStatus.NOT_FOUND, "任务不存在");
+        }
+        if (job.getStatus() != ConversionJob.Status.SUCCEEDED) {
+            return error(HttpStatus.CONFLICT, "任务尚未成功完成，当前状态: " + job.getStatus());
+        }
+
+        Resource resource = new FileSystemResource(job.getResultFile());
+        String encodedFileName = URLEncoder.encode("课表.xlsx", StandardCharsets.UTF_8);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + encodedFileName + "\"") // 设置下载文件名
+                .contentType(MediaType.APPLICATION_OCTET_STREAM) // 设置内容类型为二进制流
+                .body(resource); // 结果文件长度已知，直接从任务目录读取
+    }
+
+    /**
+     * 生成任务的状态摘要。
+     */
+    private Map<String, Object> toSummary(ConversionJob job) {
+        ConversionProgress progress = job.getProgress();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("id", job.getId());
+        summary.put("fileName", job.getFileName());
+        summary.put("status", job.getStatus());
+        summary.put("sheetCount", progress.getSheetCount());
+        summary.put("sheetsDone", progress.getSheetsDone());
+        summary.put("rowsProcessed", progress.getRowsProcessed());
+        summary.put("warnings", progress.getWarnings());
+        summary.put("error", job.getError());
+        return summary;
+    }
+
+    private <T> ResponseEntity<Result<T>> error(HttpStatus status, String message) {
+        return ResponseEntity.status(status).body(new Result<>(status.value(), message, null));
+    }
+}
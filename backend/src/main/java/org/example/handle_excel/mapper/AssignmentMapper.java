@@ -0,0 +1,20 @@
+package org.example.handle_excel.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.example.handle_excel.bean.TeachingAssignment;
+
+/**
+ * MyBatis Mapper 接口，用于把生成的排课记录写回数据库。
+ * 通过 MyBatis 自动实现与数据库的交互。
+ */
+@Mapper
+public interface AssignmentMapper {
+    /**
+     * 插入一条排课记录；(教师编号, 课程编号, 班级编号) 已存在时更新其余字段，重复写回同一份课表不会产生重复记录。
+     * 使用批量执行器调用时，MySQL 驱动在 rewriteBatchedStatements=true 下把一批语句合并为一条多行插入。
+     *
+     * @param assignment 排课记录
+     * @return 影响的行数，批量执行时无意义
+     */
+    int upsertAssignment(TeachingAssignment assignment);
+}
@@ -1,7 +1,10 @@
 package org.example.handle_excel.mapper;
 
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
 import org.example.handle_excel.bean.Class;
+import org.example.handle_excel.model.ReferenceFilter;
 
 import java.util.List;
 
@@ -12,9 +15,29 @@ import java.util.List;
 @Mapper
 public interface ClassMapper {
     /**
-     * 获取所有班级信息。
+     * 按主键顺序逐行读取班级，每读到一行调用一次 handler，不在内存中保留整张表。
+     * MySQL 驱动以流式结果集返回数据，读取完成前该连接不能执行其他语句。
      *
-     * @return 班级列表
+     * @param filter  过滤条件
+     * @param handler 逐行处理班级的回调
      */
-    List<Class> getAllClasses();
+    void streamClasses(@Param("filter") ReferenceFilter filter, ResultHandler<Class> handler);
+
+    /**
+     * 按主键顺序读取一页班级（键集分页），每页从上一页最后一条记录的主键之后开始，不使用 OFFSET。
+     *
+     * @param filter  过滤条件
+     * @param afterId 上一页最后一条记录的主键，为 null 时读取第一页
+     * @param limit   每页条数
+     * @return 班级列表，少于 limit 条时表示已读完
+     */
+    List<Class> getClassPage(@Param("filter") ReferenceFilter filter, @Param("afterId") Long afterId,
+                             @Param("limit") int limit);
+
+    /**
+     * 获取班级表的变更签名，由记录数和最大更新时间组成，用于低成本地判断数据是否变化。
+     *
+     * @return 变更签名
+     */
+    String getVersion();
 }
@@ -1,6 +1,8 @@
 package org.example.handle_excel.mapper;
 
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
 import org.example.handle_excel.bean.Teacher;
 
 import java.util.List;
@@ -12,9 +14,26 @@ import java.util.List;
 @Mapper
 public interface TeacherMapper {
     /**
-     * 获取所有教师信息。
+     * 按主键顺序逐行读取教师，每读到一行调用一次 handler，不在内存中保留整张表。
+     * MySQL 驱动以流式结果集返回数据，读取完成前该连接不能执行其他语句。
      *
-     * @return 教师列表
+     * @param handler 逐行处理教师的回调
      */
-    List<Teacher> getAllTeachers();
+    void streamTeachers(ResultHandler<Teacher> handler);
+
+    /**
+     * 按主键顺序读取一页教师（键集分页），每页从上一页最后一条记录的主键之后开始，不使用 OFFSET。
+     *
+     * @param afterId 上一页最后一条记录的主键，为 null 时读取第一页
+     * @param limit   每页条数
+     * @return 教师列表，少于 limit 条时表示已读完
+     */
+    List<Teacher> getTeacherPage(@Param("afterId") Long afterId, @Param("limit") int limit);
+
+    /**
+     * 获取教师表的变更签名，由记录数和最大更新时间组成，用于低成本地判断数据是否变化。
+     *
+     * @return 变更签名
+     */
+    String getVersion();
 }
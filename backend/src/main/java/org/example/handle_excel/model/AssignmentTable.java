@@ -0,0 +1,180 @@
+package org.example.handle_excel.model;
+
+import org.example.handle_excel.bean.Class;
+import org.example.handle_excel.bean.Course;
+import org.example.handle_excel.bean.Teacher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一个输入 Sheet 的排课结果表，位于匹配和写出之间。
+ * 按列存储：每条结果只占用几个 int，教师、课程、班级记录的是 {@link ReferenceDictionary} 中的编号，
+ * 原始课程名称在表内去重后保存一份，列中只记录编号。
+ * 匹配阶段逐条追加，写出阶段由 {@link org.example.handle_excel.writer.AssignmentWriter} 整表读取，
+ * 写出方式（模板 xlsx、CSV 等）与匹配过程互不影响。
+ * 每个 Sheet 一个实例，只在一个线程中填充，填充完成后可交给其他线程读取。
+ */
+public final class AssignmentTable {
+
+    private static final int INITIAL_CAPACITY = 64; // 初始容量
+
+    private final String sheetName; // 来源 Sheet 名称
+
+    private final ReferenceDictionary dictionary; // 基础数据字典，用于把编号解析为对象和字符串
+
+    private final Map<String, Integer> courseNameIds = new HashMap<>(); // 原始课程名称到表内编号的映射
+
+    private final List<String> courseNames = new ArrayList<>(); // 表内编号到原始课程名称的映射
+
+    private int[] teacherColumn = new int[INITIAL_CAPACITY]; // 教师编号列
+
+    private int[] courseColumn = new int[INITIAL_CAPACITY]; // 课程编号列
+
+    private int[] classColumn = new int[INITIAL_CAPACITY]; // 班级编号列
+
+    private int[] courseNameColumn = new int[INITIAL_CAPACITY]; // 原始课程名称编号列
+
+    private int[] rowColumn = new int[INITIAL_CAPACITY]; // 来源行索引列（0-based）
+
+    private int size; // 结果条数
+
+    public AssignmentTable(String sheetName, ReferenceDictionary dictionary) {
+        this.sheetName = sheetName;
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * 追加一条排课结果：某位教师在某个班级教授某门课程。
+     *
+     * @param teacherId          教师编号
+     * @param courseId           匹配到的课程编号
+     * @param originalCourseName 输入文件中的原始课程名称
+     * @param classId            班级编号
+     * @param rowIndex           来源行索引（0-based）
+     */
+    public void add(int teacherId, int courseId, String originalCourseName, int classId, int rowIndex) {
+        if (size == rowColumn.length) {
+            int capacity = size * 2;
+            teacherColumn = Arrays.copyOf(teacherColumn, capacity);
+            courseColumn = Arrays.copyOf(courseColumn, capacity);
+            classColumn = Arrays.copyOf(classColumn, capacity);
+            courseNameColumn = Arrays.copyOf(courseNameColumn, capacity);
+            rowColumn = Arrays.copyOf(rowColumn, capacity);
+        }
+        Integer courseNameId = courseNameIds.get(originalCourseName);
+        if (courseNameId == null) {
+            courseNameId = courseNames.size();
+            courseNameIds.put(originalCourseName, courseNameId);
+            courseNames.add(originalCourseName);
+        }
+        teacherColumn[size] = teacherId;
+        courseColumn[size] = courseId;
+        classColumn[size] = classId;
+        courseNameColumn[size] = courseNameId;
+        rowColumn[size] = rowIndex;
+        size++;
+    }
+
+    /**
+     * 估算结果表占用的内存：各列数组的容量和去重后的原始课程名称，用于限制增量转换快照占用的内存。
+     *
+     * @return 估算的内存占用（字节）
+     */
+    public long estimatedBytes() {
+        long bytes = 5L * Integer.BYTES * rowColumn.length;
+        for (String courseName : courseNames) {
+            bytes += 96 + 2L * courseName.length(); // 字符串、映射项和列表项
+        }
+        return bytes;
+    }
+
+    /**
+     * 复制另一个结果表中连续的若干条结果，来源行索引改为指定的行，用于增量转换时复用上一次的结果。
+     * 两个结果表必须使用同一个基础数据字典。
+     *
+     * @param source   来源结果表
+     * @param from     起始下标
+     * @param to       结束下标（不含）
+     * @param rowIndex 新的来源行索引（0-based）
+     */
+    public void addAll(AssignmentTable source, int from, int to, int rowIndex) {
+        for (int i = from; i < to; i++) {
+            add(source.getTeacherId(i), source.getCourseId(i), source.getOriginalCourseName(i),
+                    source.getClassId(i), rowIndex);
+        }
+    }
+
+    public String getSheetName() {
+        return sheetName;
+    }
+
+    /**
+     * 获取结果条数。
+     *
+     * @return 结果条数
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getTeacherId(int index) {
+        return teacherColumn[checkIndex(index)];
+    }
+
+    public int getCourseId(int index) {
+        return courseColumn[checkIndex(index)];
+    }
+
+    public int getClassId(int index) {
+        return classColumn[checkIndex(index)];
+    }
+
+    public Teacher getTeacher(int index) {
+        return dictionary.getTeacher(getTeacherId(index));
+    }
+
+    /**
+     * 获取教师姓名（姓 + 名），使用字典中预先生成的字符串。
+     *
+     * @param index 结果下标
+     * @return 教师姓名
+     */
+    public String getTeacherName(int index) {
+        return dictionary.getTeacherName(getTeacherId(index));
+    }
+
+    public Course getCourse(int index) {
+        return dictionary.getCourse(getCourseId(index));
+    }
+
+    public String getCourseStartDate(int index) {
+        return dictionary.getCourseStartDate(getCourseId(index));
+    }
+
+    public String getCourseEndDate(int index) {
+        return dictionary.getCourseEndDate(getCourseId(index));
+    }
+
+    public Class getClassEntity(int index) {
+        return dictionary.getClassEntity(getClassId(index));
+    }
+
+    public String getOriginalCourseName(int index) {
+        return courseNames.get(courseNameColumn[checkIndex(index)]);
+    }
+
+    public int getRowIndex(int index) {
+        return rowColumn[checkIndex(index)];
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("索引 " + index + " 超出范围，结果条数: " + size);
+        }
+        return index;
+    }
+}
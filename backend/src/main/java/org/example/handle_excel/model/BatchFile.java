@@ -0,0 +1,13 @@
+package org.example.handle_excel.model;
+
+import java.nio.file.Path;
+
+/**
+ * 批量转换中的一个输入文件，内容保存在临时文件中。
+ *
+ * @param fileName 文件名，不含目录
+ * @param file     保存文件内容的临时文件，转换结束后删除
+ * @param size     文件大小（字节）
+ */
+public record BatchFile(String fileName, Path file, long size) {
+}
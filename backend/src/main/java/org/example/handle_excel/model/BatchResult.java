@@ -0,0 +1,21 @@
+package org.example.handle_excel.model;
+
+/**
+ * 批量转换中一个文件的转换结果，用于生成汇总。
+ *
+ * @param fileName   输入文件名
+ * @param outputName 压缩包中的结果文件名，转换失败时为 null
+ * @param progress   转换进度，包含行数、匹配数和问题
+ * @param error      失败原因，成功时为 null
+ */
+public record BatchResult(String fileName, String outputName, ConversionProgress progress, String error) {
+
+    /**
+     * 是否转换成功。
+     *
+     * @return 是否成功
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
@@ -0,0 +1,37 @@
+package org.example.handle_excel.model;
+
+/**
+ * 输入 Sheet 中一个班级列的描述，每个 Sheet 解析表头时构建一次。
+ * 处理每个单元格时直接按列索引取出，不再重复读取表头、提取年级和查找班级。
+ *
+ * @param className   表头中的班级名称，如 "一年1班"
+ * @param grade       年级，取班级名称的第一个字符，表头为空时为 null
+ * @param classId     匹配到的班级编号，未找到时为 {@link ReferenceDictionary#NONE}
+ * @param status      校验状态
+ */
+public record ColumnDescriptor(String className, String grade, int classId, Status status) {
+
+    /**
+     * 表头为空或超出表头范围的列
+     */
+    public static final ColumnDescriptor MISSING = new ColumnDescriptor(null, null, ReferenceDictionary.NONE,
+            Status.MISSING_HEADER);
+
+    /**
+     * 列的校验状态。
+     */
+    public enum Status {
+        /**
+         * 年级和班级都已匹配
+         */
+        OK,
+        /**
+         * 表头为空，无法获取年级和班级
+         */
+        MISSING_HEADER,
+        /**
+         * 班级表中不存在表头中的班级
+         */
+        CLASS_NOT_FOUND
+    }
+}
@@ -0,0 +1,58 @@
+package org.example.handle_excel.model;
+
+import org.example.handle_excel.writer.AssignmentWriter;
+
+/**
+ * 一次转换的上下文，在 SheetService、ProcessService、MatchService 之间传递，代替逐个传递的基础数据、模板、学期等参数。
+ * 上下文的字段创建后不再改变，模板和基础数据快照也是不可变的；转换进度和增量转换状态是一次转换中所有 Sheet 共享、
+ * 会被修改的对象，二者都是线程安全的，因此并行处理各 Sheet 时可以在多个线程中共享同一个上下文。
+ * 额外的写出方式只在调用线程中调用，不要求线程安全。只在一个线程中使用的可变状态（如增量转换时记录每一行结果的监听器）
+ * 不放入上下文，由使用方单独传递。
+ * 这几个服务都是单例，不保存任何与单次转换有关的状态，一次转换中各 Sheet 共用的状态都放在上下文中。
+ *
+ * @param template      模板模型，提供 Sheet 的结构和样式
+ * @param referenceData 课程、班级、教师基础数据快照
+ * @param term          学期，用于选择上册或下册的课程，已替换为配置的默认学期，不为 null
+ * @param extraWriter   额外的写出方式，如收集写回数据库或输出 CSV 的结果表，在调用线程中按 Sheet 顺序调用；为 null 时不使用
+ * @param session       增量转换状态，为 null 时所有行都重新匹配
+ * @param progress      转换进度，记录各阶段的耗时、匹配成功的单元格数和问题
+ */
+public record ConversionContext(TemplateModel template,
+                                ReferenceData referenceData,
+                                Term term,
+                                AssignmentWriter extraWriter,
+                                IncrementalSession session,
+                                ConversionProgress progress) {
+
+    /**
+     * 创建只生成输出工作簿的上下文，不使用额外的写出方式和增量转换。
+     *
+     * @param template      模板模型
+     * @param referenceData 基础数据快照
+     * @param term          学期
+     * @param progress      转换进度
+     * @return 上下文
+     */
+    public static ConversionContext of(TemplateModel template, ReferenceData referenceData, Term term,
+                                       ConversionProgress progress) {
+        return new ConversionContext(template, referenceData, term, null, null, progress);
+    }
+
+    /**
+     * 获取基础数据字典。
+     *
+     * @return 基础数据字典
+     */
+    public ReferenceDictionary dictionary() {
+        return referenceData.dictionary();
+    }
+
+    /**
+     * 获取课程索引。
+     *
+     * @return 课程索引
+     */
+    public CourseIndex courseIndex() {
+        return referenceData.courseIndex();
+    }
+}
@@ -0,0 +1,104 @@
+package org.example.handle_excel.model;
+
+import lombok.Getter;
+
+import java.nio.file.Path;
+
+/**
+ * 异步转换任务，记录任务状态、进度以及输入和结果文件的位置。
+ * 状态由执行任务的线程更新，查询接口在其他线程读取。
+ */
+@Getter
+public class ConversionJob {
+
+    /**
+     * 任务状态。
+     */
+    public enum Status {
+        /**
+         * 等待执行
+         */
+        QUEUED,
+        /**
+         * 正在执行
+         */
+        RUNNING,
+        /**
+         * 执行成功，可以下载结果
+         */
+        SUCCEEDED,
+        /**
+         * 执行失败
+         */
+        FAILED
+    }
+
+    private final String id; // 任务 ID
+
+    private final String fileName; // 上传的文件名
+
+    private final Term term; // 学期，为 null 时使用配置的默认学期
+
+    private final String documentId; // 客户端提供的文档 ID，用于增量转换，为 null 时所有行都重新匹配
+
+    private final Path inputFile; // 上传的输入文件
+
+    private final Path resultFile; // 生成的结果文件
+
+    private final long submitTime; // 提交时间
+
+    private final ConversionProgress progress; // 转换进度
+
+    private volatile Status status = Status.QUEUED; // 当前状态
+
+    private volatile long finishTime; // 结束时间，未结束时为 0
+
+    private volatile String error; // 失败原因
+
+    public ConversionJob(String id, String fileName, Term term, String documentId, Path inputFile, Path resultFile,
+                         ConversionProgress progress) {
+        this.id = id;
+        this.fileName = fileName;
+        this.term = term;
+        this.documentId = documentId;
+        this.inputFile = inputFile;
+        this.resultFile = resultFile;
+        this.progress = progress;
+        this.submitTime = System.currentTimeMillis();
+    }
+
+    /**
+     * 开始执行。
+     */
+    public void start() {
+        status = Status.RUNNING;
+    }
+
+    /**
+     * 执行成功。
+     */
+    public void succeed() {
+        finishTime = System.currentTimeMillis();
+        status = Status.SUCCEEDED;
+    }
+
+    /**
+     * 执行失败。
+     *
+     * @param error 失败原因
+     */
+    public void fail(String error) {
+        this.error = error;
+        finishTime = System.currentTimeMillis();
+        status = Status.FAILED;
+    }
+
+    /**
+     * 任务是否已经结束（成功或失败）。
+     *
+     * @return 是否已经结束
+     */
+    public boolean isFinished() {
+        return status == Status.SUCCEEDED || status == Status.FAILED;
+    }
+}
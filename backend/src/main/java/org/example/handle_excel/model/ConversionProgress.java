@@ -0,0 +1,133 @@
+package org.example.handle_excel.model;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 一次转换的进度计数，处理线程更新，查询接口读取，可以被多个线程同时访问。
+ * 同时记录各阶段的耗时和未匹配单元格的原因，转换结束后汇总为指标和响应头；
+ * 每个问题的具体内容记录在 {@link Diagnostics} 中。
+ */
+public class ConversionProgress implements RowListener {
+
+    private volatile int sheetCount; // 输入工作簿中的 Sheet 总数
+
+    private final AtomicInteger sheetsDone = new AtomicInteger(); // 已处理完（或跳过）的 Sheet 数
+
+    private final AtomicLong rowsProcessed = new AtomicLong(); // 已处理的数据行数，不含表头
+
+    private final AtomicLong cellsMatched = new AtomicLong(); // 课程、班级、教师都匹配成功的单元格数
+
+    private final AtomicLong warnings = new AtomicLong(); // 警告数，如未找到课程、教师、班级
+
+    private final AtomicLongArray unmatched = new AtomicLongArray(UnmatchedReason.values().length); // 按原因统计的警告数
+
+    private final AtomicLongArray stageNanos = new AtomicLongArray(ConversionStage.values().length); // 各阶段的累计耗时（纳秒）
+
+    private final Diagnostics diagnostics; // 问题收集器
+
+    public ConversionProgress() {
+        this(Diagnostics.DEFAULT_MAX_ISSUES);
+    }
+
+    /**
+     * @param maxIssues 最多记录的问题项数
+     */
+    public ConversionProgress(int maxIssues) {
+        this.diagnostics = new Diagnostics(maxIssues);
+    }
+
+    public void setSheetCount(int sheetCount) {
+        this.sheetCount = sheetCount;
+    }
+
+    /**
+     * 一个 Sheet 处理完成或被跳过。
+     */
+    public void sheetDone() {
+        sheetsDone.incrementAndGet();
+    }
+
+    /**
+     * 处理完一行数据。
+     */
+    public void rowProcessed() {
+        rowsProcessed.incrementAndGet();
+    }
+
+    /**
+     * 一个单元格匹配成功，生成了排课结果。
+     */
+    @Override
+    public void cellMatched() {
+        cellsMatched.incrementAndGet();
+    }
+
+    /**
+     * 多个单元格匹配成功，用于增量转换时计入复用的行中匹配成功的单元格。
+     *
+     * @param count 单元格数
+     */
+    public void addCellsMatched(long count) {
+        cellsMatched.addAndGet(count);
+    }
+
+    /**
+     * 产生了一条警告，计数并记录到问题收集器中。
+     *
+     * @param reason    未匹配的原因
+     * @param sheetName Sheet 名称
+     * @param key       未匹配的内容，如教师姓名、课程名称、班级名称
+     * @param row       行号（1-based）
+     * @param column    列号（1-based）
+     */
+    @Override
+    public void warning(UnmatchedReason reason, String sheetName, String key, int row, int column) {
+        warnings.incrementAndGet();
+        unmatched.incrementAndGet(reason.ordinal());
+        diagnostics.add(sheetName, reason, key, row, column);
+    }
+
+    /**
+     * 累加一个阶段的耗时。并行处理 Sheet 时各线程的耗时会累加在一起，可能超过实际经过的时间。
+     *
+     * @param stage 阶段
+     * @param nanos 耗时（纳秒）
+     */
+    public void addStageTime(ConversionStage stage, long nanos) {
+        stageNanos.addAndGet(stage.ordinal(), nanos);
+    }
+
+    public int getSheetCount() {
+        return sheetCount;
+    }
+
+    public int getSheetsDone() {
+        return sheetsDone.get();
+    }
+
+    public long getRowsProcessed() {
+        return rowsProcessed.get();
+    }
+
+    public long getCellsMatched() {
+        return cellsMatched.get();
+    }
+
+    public long getWarnings() {
+        return warnings.get();
+    }
+
+    public long getUnmatched(UnmatchedReason reason) {
+        return unmatched.get(reason.ordinal());
+    }
+
+    public long getStageNanos(ConversionStage stage) {
+        return stageNanos.get(stage.ordinal());
+    }
+
+    public Diagnostics getDiagnostics() {
+        return diagnostics;
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.handle_excel.model;
+
+/**
+ * 转换流程的阶段，用于统计每个阶段的耗时。
+ */
+public enum ConversionStage {
+    /**
+     * 打开并读取输入文件，不含处理每一行的时间
+     */
+    PARSE("parse"),
+    /**
+     * 获取课程、班级、教师基础数据，缓存过期时包括数据库查询
+     */
+    REFERENCE("reference"),
+    /**
+     * 获取模板并把模板 Sheet 复制到输出工作簿
+     */
+    TEMPLATE("template"),
+    /**
+     * 解析表头、匹配课程、班级、教师并生成输出行
+     */
+    PROCESS("process"),
+    /**
+     * 把排课结果写回数据库，只在请求写回时出现，包括提交事务
+     */
+    WRITE_BACK("writeback"),
+    /**
+     * 把输出工作簿写入响应或结果文件
+     */
+    WRITE("write");
+
+    private final String tag; // 指标标签和 Server-Timing 响应头中使用的名称
+
+    ConversionStage(String tag) {
+        this.tag = tag;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+}
@@ -0,0 +1,89 @@
+package org.example.handle_excel.model;
+
+import org.example.handle_excel.bean.Course;
+
+import java.util.*;
+
+/**
+ * 课程索引，在基础数据加载时构建，按 (基础课程名称, 年级, 学期) 直接定位课程。
+ * 每行先按基础课程名称取出 {@link Variants}，之后每个单元格只需一次 HashMap 查找和一次数组下标访问，
+ * 不再遍历同名课程及其备注，也不再拼接字符串。索引中保存的是 {@link ReferenceDictionary} 中的课程编号。
+ * 构建完成后不可修改，可被多个请求并发读取。
+ */
+public final class CourseIndex {
+
+    private final Map<String, Variants> courses; // 基础课程名称到该名称下各年级、学期课程的映射
+
+    private CourseIndex(Map<String, Variants> courses) {
+        this.courses = courses;
+    }
+
+    /**
+     * 根据课程映射构建索引。
+     * 备注中解析出年级和学期（如 "七上" 为年级 "七"、学期上册）时登记该课程；同一位置有多门课程时保留列表中靠前的课程，
+     * 与原先按顺序查找第一门匹配课程的结果一致。
+     *
+     * @param courseMap  课程映射，键为基础课程名称，值为课程列表
+     * @param dictionary 基础数据字典，提供课程编号
+     * @return 课程索引
+     */
+    public static CourseIndex build(Map<String, List<Course>> courseMap, ReferenceDictionary dictionary) {
+        Map<String, Variants> courses = new HashMap<>();
+        courseMap.forEach((baseName, courseList) -> {
+            Map<String, int[]> byGrade = new HashMap<>();
+            for (Course course : courseList) {
+                if (course.getRemark() == null) continue;
+                for (Remark remark : course.getRemark()) {
+                    Term term = remark.term();
+                    if (term == null) continue;
+                    int[] byTerm = byGrade.computeIfAbsent(remark.grade(), key -> newByTerm());
+                    if (byTerm[term.ordinal()] == ReferenceDictionary.NONE) {
+                        byTerm[term.ordinal()] = dictionary.getCourseId(course);
+                    }
+                }
+            }
+            courses.put(baseName, new Variants(byGrade));
+        });
+        return new CourseIndex(courses);
+    }
+
+    private static int[] newByTerm() {
+        int[] byTerm = new int[Term.values().length];
+        Arrays.fill(byTerm, ReferenceDictionary.NONE);
+        return byTerm;
+    }
+
+    /**
+     * 获取基础课程名称下的所有年级、学期课程。
+     *
+     * @param baseName 去除括号内容后的课程名称
+     * @return 该名称下的课程，名称不存在时返回 null
+     */
+    public Variants get(String baseName) {
+        return courses.get(baseName);
+    }
+
+    /**
+     * 同一基础课程名称下按年级和学期区分的课程。
+     */
+    public static final class Variants {
+
+        private final Map<String, int[]> byGrade; // 年级到课程编号数组的映射，数组下标为学期序号
+
+        private Variants(Map<String, int[]> byGrade) {
+            this.byGrade = byGrade;
+        }
+
+        /**
+         * 获取指定年级和学期的课程编号。
+         *
+         * @param grade 年级，如 "七"
+         * @param term  学期
+         * @return 对应的课程编号，不存在时返回 {@link ReferenceDictionary#NONE}
+         */
+        public int get(String grade, Term term) {
+            int[] byTerm = byGrade.get(grade);
+            return byTerm == null ? ReferenceDictionary.NONE : byTerm[term.ordinal()];
+        }
+    }
+}
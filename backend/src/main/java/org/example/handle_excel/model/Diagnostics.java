@@ -0,0 +1,101 @@
+package org.example.handle_excel.model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 一次转换的问题收集器，按 (Sheet, 原因, 内容) 合并重复的问题并计数，代替逐个单元格输出警告日志。
+ * 转换结束后汇总为一条日志，也可以作为“问题” Sheet 或 JSON 返回给用户。可以被多个线程同时访问。
+ */
+public class Diagnostics {
+
+    /**
+     * 默认最多记录的问题项数
+     */
+    public static final int DEFAULT_MAX_ISSUES = 1000;
+
+    private final int maxIssues; // 最多记录的问题项数，超出后只计数，防止异常输入占用过多内存
+
+    private final Map<IssueKey, Entry> issues = new ConcurrentHashMap<>(); // 已记录的问题
+
+    private final AtomicLong dropped = new AtomicLong(); // 超出上限未记录的问题数
+
+    public Diagnostics() {
+        this(DEFAULT_MAX_ISSUES);
+    }
+
+    public Diagnostics(int maxIssues) {
+        this.maxIssues = maxIssues;
+    }
+
+    /**
+     * 记录一个问题，与已有问题的 Sheet、原因、内容都相同时只增加次数。
+     *
+     * @param sheetName Sheet 名称
+     * @param reason    未匹配的原因
+     * @param key       未匹配的内容
+     * @param row       行号（1-based）
+     * @param column    列号（1-based）
+     */
+    public void add(String sheetName, UnmatchedReason reason, String key, int row, int column) {
+        IssueKey issueKey = new IssueKey(sheetName, reason, key);
+        Entry entry = issues.get(issueKey);
+        if (entry == null) {
+            if (issues.size() >= maxIssues) {
+                dropped.incrementAndGet();
+                return;
+            }
+            // 同一个 Sheet 只由一个线程按行顺序处理，第一次创建时的位置就是第一次出现的位置
+            entry = issues.computeIfAbsent(issueKey, k -> new Entry(row, column));
+        }
+        entry.count.incrementAndGet();
+    }
+
+    /**
+     * 获取已记录的问题，按出现次数从多到少排序，次数相同时按 Sheet 名称和第一次出现的位置排序。
+     *
+     * @return 问题列表
+     */
+    public List<Issue> getIssues() {
+        List<Issue> result = new ArrayList<>(issues.size());
+        issues.forEach((key, entry) -> result.add(new Issue(key.sheetName(), key.reason(), key.key(),
+                entry.count.get(), entry.firstRow, entry.firstColumn)));
+        result.sort(Comparator.comparingLong(Issue::count).reversed()
+                .thenComparing(Issue::sheetName)
+                .thenComparingInt(Issue::firstRow)
+                .thenComparingInt(Issue::firstColumn)
+                .thenComparing(Issue::reason)
+                .thenComparing(Issue::key));
+        return result;
+    }
+
+    /**
+     * 获取超出上限未记录的问题数。
+     *
+     * @return 未记录的问题数
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    private record IssueKey(String sheetName, UnmatchedReason reason, String key) {
+    }
+
+    private static final class Entry {
+
+        private final int firstRow; // 第一次出现的行号
+
+        private final int firstColumn; // 第一次出现的列号
+
+        private final AtomicLong count = new AtomicLong(); // 出现次数
+
+        private Entry(int firstRow, int firstColumn) {
+            this.firstRow = firstRow;
+            this.firstColumn = firstColumn;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package org.example.handle_excel.model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 一次增量转换的状态：同一文档上一次转换的各 Sheet 快照，以及本次转换中逐个 Sheet 生成的新快照。
+ * 并行处理时各 Sheet 在不同的线程中读取上一次的快照、写入新快照，可以被多个线程同时访问。
+ */
+public class IncrementalSession {
+
+    private final String documentId; // 客户端提供的文档 ID
+
+    private final long referenceVersion; // 本次转换使用的基础数据快照版本
+
+    private final Term term; // 本次转换的学期
+
+    private final Map<String, SheetSnapshot> previousSheets; // 上一次转换的 Sheet 名称到快照的映射，不可复用时为空
+
+    private final Map<String, SheetSnapshot> currentSheets = new ConcurrentHashMap<>(); // 本次转换生成的快照
+
+    private final AtomicLong reusedRows = new AtomicLong(); // 复用上一次结果的行数
+
+    private final AtomicLong processedRows = new AtomicLong(); // 重新匹配的行数
+
+    /**
+     * @param documentId       客户端提供的文档 ID
+     * @param referenceVersion 本次转换使用的基础数据快照版本
+     * @param term             本次转换的学期
+     * @param previousSheets   上一次转换的各 Sheet 快照，不可复用时为空映射
+     */
+    public IncrementalSession(String documentId, long referenceVersion, Term term,
+                              Map<String, SheetSnapshot> previousSheets) {
+        this.documentId = documentId;
+        this.referenceVersion = referenceVersion;
+        this.term = term;
+        this.previousSheets = previousSheets;
+    }
+
+    /**
+     * 获取上一次转换中同名 Sheet 的快照。
+     *
+     * @param sheetName Sheet 名称
+     * @return 快照，不存在时返回 null
+     */
+    public SheetSnapshot getPreviousSheet(String sheetName) {
+        return previousSheets.get(sheetName);
+    }
+
+    /**
+     * 保存本次转换中一个 Sheet 的快照。
+     *
+     * @param sheetName Sheet 名称
+     * @param snapshot  快照
+     */
+    public void putSheet(String sheetName, SheetSnapshot snapshot) {
+        currentSheets.put(sheetName, snapshot);
+    }
+
+    /**
+     * 一行复用了上一次的结果。
+     */
+    public void rowReused() {
+        reusedRows.incrementAndGet();
+    }
+
+    /**
+     * 一行重新匹配。
+     */
+    public void rowProcessed() {
+        processedRows.incrementAndGet();
+    }
+
+    public String getDocumentId() {
+        return documentId;
+    }
+
+    public long getReferenceVersion() {
+        return referenceVersion;
+    }
+
+    public Term getTerm() {
+        return term;
+    }
+
+    public Map<String, SheetSnapshot> getCurrentSheets() {
+        return currentSheets;
+    }
+
+    public long getReusedRows() {
+        return reusedRows.get();
+    }
+
+    public long getProcessedRows() {
+        return processedRows.get();
+    }
+}
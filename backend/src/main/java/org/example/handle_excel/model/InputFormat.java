@@ -0,0 +1,58 @@
+package org.example.handle_excel.model;
+
+import org.apache.poi.poifs.filesystem.FileMagic;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 上传文件的格式，根据文件开头的内容判断，不依赖文件名。
+ */
+public enum InputFormat {
+    /**
+     * Excel 2007 及以后的工作簿（OOXML）
+     */
+    XLSX,
+    /**
+     * Excel 97-2003 工作簿（OLE2 / BIFF8）
+     */
+    XLS,
+    /**
+     * 逗号分隔的文本文件，只有一个 Sheet
+     */
+    CSV;
+
+    private static final int TEXT_CHECK_SIZE = 4096; // 判断是否为文本文件时检查的字节数
+
+    /**
+     * 根据文件开头的内容判断格式，读取的内容会被放回输入流。
+     * 不是 OOXML 或 OLE2 文件、且开头不含 NUL 字节时视为 CSV。
+     *
+     * @param input 上传文件的内容，必须支持 mark/reset
+     * @return 文件格式
+     * @throws IOException              文件读取失败
+     * @throws IllegalArgumentException 不支持的文件格式，如 PDF、图片、旧版本的 Excel 文件
+     */
+    public static InputFormat detect(InputStream input) throws IOException {
+        FileMagic magic = FileMagic.valueOf(input);
+        if (magic == FileMagic.OOXML) {
+            return XLSX;
+        }
+        if (magic == FileMagic.OLE2) {
+            return XLS;
+        }
+        if (magic == FileMagic.UNKNOWN) {
+            input.mark(TEXT_CHECK_SIZE);
+            byte[] head = input.readNBytes(TEXT_CHECK_SIZE);
+            input.reset();
+            boolean text = true;
+            for (int i = 0; i < head.length && text; i++) {
+                text = head[i] != 0;
+            }
+            if (text) {
+                return CSV;
+            }
+        }
+        throw new IllegalArgumentException("不支持的文件格式，请上传 xlsx、xls 或 csv 文件");
+    }
+}
@@ -0,0 +1,14 @@
+package org.example.handle_excel.model;
+
+/**
+ * 转换中发现的一项问题，同一 Sheet 中原因和内容相同的问题合并为一项。
+ *
+ * @param sheetName   Sheet 名称
+ * @param reason      未匹配的原因
+ * @param key         未匹配的内容，如教师姓名、课程名称、班级名称或列号
+ * @param count       出现次数
+ * @param firstRow    第一次出现的行号（1-based）
+ * @param firstColumn 第一次出现的列号（1-based）
+ */
+public record Issue(String sheetName, UnmatchedReason reason, String key, long count, int firstRow, int firstColumn) {
+}
@@ -0,0 +1,32 @@
+package org.example.handle_excel.model;
+
+/**
+ * 转换结果的格式。
+ */
+public enum OutputFormat {
+    /**
+     * 按模板填充的 xlsx 工作簿
+     */
+    XLSX("xlsx", "application/octet-stream"),
+    /**
+     * UTF-8 编码的 CSV，所有 Sheet 的排课结果依次写入同一个文件，供下游系统导入
+     */
+    CSV("csv", "text/csv;charset=UTF-8");
+
+    private final String extension; // 结果文件的扩展名
+
+    private final String contentType; // 响应的内容类型
+
+    OutputFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+}
@@ -0,0 +1,57 @@
+package org.example.handle_excel.model;
+
+import org.example.handle_excel.bean.Class;
+import org.example.handle_excel.bean.Course;
+import org.example.handle_excel.bean.Teacher;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 课程、班级、教师基础数据的不可变快照。
+ * 由 ReferenceDataService 统一加载并缓存，多个请求并发共享同一个快照，使用方不应修改其中的对象。
+ *
+ * @param courseMap   课程映射，键为基础课程名称，值为课程列表
+ * @param classMap    班级映射，键为班级名称，值为班级对象
+ * @param teacherMap  教师映射，键为教师姓名，值为教师对象列表
+ * @param dictionary  为教师、班级、课程分配编号的基础数据字典
+ * @param courseIndex 按基础课程名称、年级、学期构建的课程索引
+ * @param signature   加载时各表的变更签名，用于判断数据是否变化，未启用变更检查时为 null
+ * @param version     快照版本号，每次重新加载递增
+ */
+public record ReferenceData(Map<String, List<Course>> courseMap,
+                            Map<String, Class> classMap,
+                            Map<String, List<Teacher>> teacherMap,
+                            ReferenceDictionary dictionary,
+                            CourseIndex courseIndex,
+                            String signature,
+                            long version) {
+
+    /**
+     * 创建快照，映射及其中的列表都转换为不可变集合，并构建基础数据字典和课程索引。
+     *
+     * @param courseMap  课程映射
+     * @param classMap   班级映射
+     * @param teacherMap 教师映射
+     * @param signature  变更签名
+     * @param version    快照版本号
+     * @return 基础数据快照
+     */
+    public static ReferenceData of(Map<String, List<Course>> courseMap,
+                                   Map<String, Class> classMap,
+                                   Map<String, List<Teacher>> teacherMap,
+                                   String signature,
+                                   long version) {
+        ReferenceDictionary dictionary = ReferenceDictionary.build(courseMap, classMap, teacherMap);
+        return new ReferenceData(copyOf(courseMap), Collections.unmodifiableMap(new HashMap<>(classMap)),
+                copyOf(teacherMap), dictionary, CourseIndex.build(courseMap, dictionary), signature, version);
+    }
+
+    private static <T> Map<String, List<T>> copyOf(Map<String, List<T>> map) {
+        Map<String, List<T>> copy = new HashMap<>();
+        map.forEach((key, values) -> copy.put(key, List.copyOf(values)));
+        return Collections.unmodifiableMap(copy);
+    }
+}
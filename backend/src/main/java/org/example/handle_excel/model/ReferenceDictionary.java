@@ -0,0 +1,162 @@
+package org.example.handle_excel.model;
+
+import org.example.handle_excel.bean.Class;
+import org.example.handle_excel.bean.Course;
+import org.example.handle_excel.bean.Teacher;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基础数据字典，在基础数据加载时为每位教师、每个班级、每门课程分配从 0 开始的连续编号，
+ * 并预先生成输出时使用的字符串（如教师姓名）。
+ * 匹配和写出过程只传递编号，按名称查找只在解析单元格时进行一次，输出每一行时不再拼接字符串。
+ * 构建完成后不可修改，可被多个请求并发读取。
+ */
+public final class ReferenceDictionary {
+
+    /**
+     * 表示不存在的编号
+     */
+    public static final int NONE = -1;
+
+    private final Teacher[] teachers; // 编号到教师的映射
+
+    private final String[] teacherNames; // 编号到教师姓名（姓 + 名）的映射
+
+    private final Map<String, int[]> teacherIds; // 教师姓名到同名教师编号的映射，编号按教师列表中的顺序排列
+
+    private final Course[] courses; // 编号到课程的映射
+
+    private final String[] courseStartDates; // 编号到开始日期的映射，为空时为空字符串
+
+    private final String[] courseEndDates; // 编号到结束日期的映射，为空时为空字符串
+
+    private final Map<Course, Integer> courseIds; // 课程到编号的映射，按对象身份比较
+
+    private final Class[] classes; // 编号到班级的映射
+
+    private final Map<String, Integer> classIds; // 班级名称到编号的映射
+
+    private ReferenceDictionary(List<Teacher> teachers, Map<String, int[]> teacherIds, List<Course> courses,
+                                Map<Course, Integer> courseIds, List<Class> classes, Map<String, Integer> classIds) {
+        this.teachers = teachers.toArray(new Teacher[0]);
+        this.teacherNames = new String[this.teachers.length];
+        for (int i = 0; i < this.teachers.length; i++) {
+            this.teacherNames[i] = this.teachers[i].getTrFirstName() + this.teachers[i].getTrName();
+        }
+        this.teacherIds = teacherIds;
+
+        this.courses = courses.toArray(new Course[0]);
+        this.courseStartDates = new String[this.courses.length];
+        this.courseEndDates = new String[this.courses.length];
+        for (int i = 0; i < this.courses.length; i++) {
+            this.courseStartDates[i] = this.courses[i].getTtime() != null ? this.courses[i].getTtime() : "";
+            this.courseEndDates[i] = this.courses[i].getUtime() != null ? this.courses[i].getUtime() : "";
+        }
+        this.courseIds = courseIds;
+
+        this.classes = classes.toArray(new Class[0]);
+        this.classIds = classIds;
+    }
+
+    /**
+     * 根据基础数据映射构建字典。
+     *
+     * @param courseMap  课程映射，键为基础课程名称，值为课程列表
+     * @param classMap   班级映射，键为班级名称，值为班级对象
+     * @param teacherMap 教师映射，键为教师姓名，值为教师对象列表
+     * @return 基础数据字典
+     */
+    public static ReferenceDictionary build(Map<String, List<Course>> courseMap,
+                                            Map<String, Class> classMap,
+                                            Map<String, List<Teacher>> teacherMap) {
+        List<Teacher> teachers = new ArrayList<>();
+        Map<String, int[]> teacherIds = new HashMap<>();
+        teacherMap.forEach((name, teacherList) -> {
+            int[] ids = new int[teacherList.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = teachers.size();
+                teachers.add(teacherList.get(i));
+            }
+            teacherIds.put(name, ids);
+        });
+
+        List<Course> courses = new ArrayList<>();
+        Map<Course, Integer> courseIds = new IdentityHashMap<>();
+        courseMap.values().forEach(courseList -> courseList.forEach(course -> {
+            if (!courseIds.containsKey(course)) {
+                courseIds.put(course, courses.size());
+                courses.add(course);
+            }
+        }));
+
+        List<Class> classes = new ArrayList<>();
+        Map<String, Integer> classIds = new HashMap<>();
+        classMap.forEach((name, classEntity) -> {
+            classIds.put(name, classes.size());
+            classes.add(classEntity);
+        });
+
+        return new ReferenceDictionary(teachers, teacherIds, courses, courseIds, classes, classIds);
+    }
+
+    /**
+     * 根据姓名获取同名教师的编号。
+     *
+     * @param teacherName 教师姓名（姓 + 名）
+     * @return 编号数组，按教师列表中的顺序排列，不存在时返回 null；调用方不应修改数组
+     */
+    public int[] getTeacherIds(String teacherName) {
+        return teacherIds.get(teacherName);
+    }
+
+    /**
+     * 根据名称获取班级编号。
+     *
+     * @param className 班级名称
+     * @return 班级编号，不存在时返回 {@link #NONE}
+     */
+    public int getClassId(String className) {
+        Integer id = classIds.get(className);
+        return id != null ? id : NONE;
+    }
+
+    /**
+     * 获取课程的编号。
+     *
+     * @param course 课程，必须是构建字典时使用的课程对象
+     * @return 课程编号，不存在时返回 {@link #NONE}
+     */
+    public int getCourseId(Course course) {
+        Integer id = courseIds.get(course);
+        return id != null ? id : NONE;
+    }
+
+    public Teacher getTeacher(int id) {
+        return teachers[id];
+    }
+
+    public String getTeacherName(int id) {
+        return teacherNames[id];
+    }
+
+    public Course getCourse(int id) {
+        return courses[id];
+    }
+
+    public String getCourseStartDate(int id) {
+        return courseStartDates[id];
+    }
+
+    public String getCourseEndDate(int id) {
+        return courseEndDates[id];
+    }
+
+    public Class getClassEntity(int id) {
+        return classes[id];
+    }
+}
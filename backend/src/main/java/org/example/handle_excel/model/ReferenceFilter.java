@@ -0,0 +1,20 @@
+package org.example.handle_excel.model;
+
+import java.util.List;
+
+/**
+ * 加载基础数据时的过滤条件，在数据库中过滤，不需要的记录不会读入内存。
+ * 各条件为空时不过滤；教师表没有校区和状态字段，不受过滤条件影响。
+ *
+ * @param campus        班级所属校区，对应 class.campus
+ * @param classStatuses 保留的班级状态，对应 class.status（0 注册 / 1 运行 / 2 关闭），状态为空的班级不保留
+ * @param courseStates  保留的课程状态，对应 course.CourState（0 启用 / 1 停用），状态为空的课程不保留
+ */
+public record ReferenceFilter(String campus, List<Integer> classStatuses, List<Integer> courseStates) {
+
+    public ReferenceFilter {
+        campus = campus == null || campus.isBlank() ? null : campus.trim();
+        classStatuses = classStatuses == null ? List.of() : List.copyOf(classStatuses);
+        courseStates = courseStates == null ? List.of() : List.copyOf(courseStates);
+    }
+}
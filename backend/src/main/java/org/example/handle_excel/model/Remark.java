@@ -0,0 +1,40 @@
+package org.example.handle_excel.model;
+
+import java.util.List;
+
+/**
+ * 课程名称中一对括号内的备注，如 "语文（七上）" 中的 "七上"、"体育三（兵乓球）（一上）" 中的 "兵乓球" 和 "一上"。
+ * 括号内的内容按空白拆分为若干个词；第一个词形如 "七上" 时解析出年级和学期，其余的词作为标签。
+ *
+ * @param tokens 括号内按空白拆分后的所有词
+ * @param grade  年级，如 "七"，第一个词不是年级加学期时为 null
+ * @param term   学期，第一个词不是年级加学期时为 null
+ */
+public record Remark(List<String> tokens, String grade, Term term) {
+
+    /**
+     * 根据括号内拆分后的词创建备注，并解析年级和学期。
+     *
+     * @param tokens 括号内按空白拆分后的所有词
+     * @return 备注
+     */
+    public static Remark of(List<String> tokens) {
+        if (!tokens.isEmpty()) {
+            String first = tokens.get(0);
+            Term term = first.length() > 1 ? Term.fromLabel(first.charAt(first.length() - 1)) : null;
+            if (term != null) {
+                return new Remark(tokens, first.substring(0, first.length() - 1), term);
+            }
+        }
+        return new Remark(tokens, null, null);
+    }
+
+    /**
+     * 获取标签，即年级和学期之外的词。
+     *
+     * @return 标签列表
+     */
+    public List<String> tags() {
+        return term != null ? tokens.subList(1, tokens.size()) : tokens;
+    }
+}
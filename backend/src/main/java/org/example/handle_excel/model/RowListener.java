@@ -0,0 +1,25 @@
+package org.example.handle_excel.model;
+
+/**
+ * 接收匹配一行时产生的结果：匹配成功的单元格和未匹配的问题。
+ * {@link ConversionProgress} 实现该接口，直接计入本次转换；增量转换时由 SheetService 在转发给转换进度的同时
+ * 记录每一行的结果，保存到快照中。
+ */
+public interface RowListener {
+
+    /**
+     * 一个单元格匹配成功，生成了排课结果。
+     */
+    void cellMatched();
+
+    /**
+     * 产生了一条警告。
+     *
+     * @param reason    未匹配的原因
+     * @param sheetName Sheet 名称
+     * @param key       未匹配的内容，如教师姓名、课程名称、班级名称
+     * @param row       行号（1-based）
+     * @param column    列号（1-based）
+     */
+    void warning(UnmatchedReason reason, String sheetName, String key, int row, int column);
+}
@@ -0,0 +1,207 @@
+package org.example.handle_excel.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一个输入 Sheet 上一次转换的指纹和结果，用于增量转换。
+ * 记录表头的指纹和每个数据行的指纹，以及该行生成的排课结果在结果表中的范围、匹配成功的单元格数和产生的问题。
+ * 再次上传时内容相同的行（按指纹查找，与行的位置无关）直接复制上一次的结果，只有新增或修改的行重新匹配。
+ * 指纹到记录的映射是以 long 为键的开放寻址散列表，不为每一行创建 Long、Integer 和映射项对象。
+ * 行的结果只取决于行内容、表头、基础数据快照和学期，表头、基础数据版本或学期不同时不能复用。
+ * 填充时只在处理该 Sheet 的线程中使用，填充完成后只读，可以被之后的转换并发读取。
+ */
+public final class SheetSnapshot {
+
+    private static final int INITIAL_CAPACITY = 64; // 初始容量
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L; // FNV-1a 64 位初始值
+
+    private static final long FNV_PRIME = 0x100000001b3L; // FNV-1a 64 位乘数
+
+    private final long headerFingerprint; // 表头的指纹
+
+    private final AssignmentTable table; // 本次转换的排课结果表，各行的结果按行顺序连续存放
+
+    private long[] keys = new long[INITIAL_CAPACITY * 2]; // 散列表中的行指纹，容量为 2 的幂，最多填充一半
+
+    private int[] slots = new int[INITIAL_CAPACITY * 2]; // 散列表中与 keys 对应的记录下标 + 1，0 表示空位
+
+    private int[] starts = new int[INITIAL_CAPACITY]; // 每条记录的结果在结果表中的起始下标
+
+    private int[] ends = new int[INITIAL_CAPACITY]; // 每条记录的结果在结果表中的结束下标（不含）
+
+    private int[] matched = new int[INITIAL_CAPACITY]; // 每条记录匹配成功的单元格数
+
+    private final Map<Integer, List<RowWarning>> warnings = new HashMap<>(); // 有问题的记录下标到问题列表的映射
+
+    private int size; // 记录条数
+
+    /**
+     * @param headerFingerprint 表头的指纹
+     * @param table             本次转换的排课结果表
+     */
+    public SheetSnapshot(long headerFingerprint, AssignmentTable table) {
+        this.headerFingerprint = headerFingerprint;
+        this.table = table;
+    }
+
+    /**
+     * 计算一行的指纹（FNV-1a 64 位），末尾的空单元格不影响指纹，null 与空字符串相同。
+     *
+     * @param values 各单元格的字符串值
+     * @return 指纹
+     */
+    public static long fingerprint(String[] values) {
+        int length = values.length;
+        while (length > 0 && (values[length - 1] == null || values[length - 1].isEmpty())) {
+            length--;
+        }
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < length; i++) {
+            String value = values[i] == null ? "" : values[i];
+            for (int j = 0; j < value.length(); j++) {
+                hash = (hash ^ value.charAt(j)) * FNV_PRIME;
+            }
+            hash = (hash ^ 0x1F) * FNV_PRIME; // 单元格分隔符，区分 "ab|c" 和 "a|bc"
+        }
+        return hash;
+    }
+
+    /**
+     * 记录一行的结果。同一指纹出现多次时保留第一次的记录，各次的结果除行号外都相同。
+     *
+     * @param fingerprint 行指纹
+     * @param start       该行的结果在结果表中的起始下标
+     * @param end         该行的结果在结果表中的结束下标（不含）
+     * @param matchedCells 匹配成功的单元格数
+     * @param rowWarnings 该行产生的问题，没有时为空列表
+     */
+    public void record(long fingerprint, int start, int end, int matchedCells, List<RowWarning> rowWarnings) {
+        int slot = slotOf(fingerprint);
+        if (slots[slot] != 0) {
+            return;
+        }
+        if (size == starts.length) {
+            int capacity = size * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            matched = Arrays.copyOf(matched, capacity);
+        }
+        starts[size] = start;
+        ends[size] = end;
+        matched[size] = matchedCells;
+        if (!rowWarnings.isEmpty()) {
+            warnings.put(size, List.copyOf(rowWarnings));
+        }
+        keys[slot] = fingerprint;
+        slots[slot] = size + 1;
+        size++;
+        if (size * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    /**
+     * 按指纹查找上一次的记录。
+     *
+     * @param fingerprint 行指纹
+     * @return 记录下标，不存在时返回 -1
+     */
+    public int find(long fingerprint) {
+        return slots[slotOf(fingerprint)] - 1;
+    }
+
+    /**
+     * 记录条数，即不同指纹的行数。
+     *
+     * @return 记录条数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 估算快照占用的内存：散列表、各记录的数组、问题列表和排课结果表。
+     *
+     * @return 估算的内存占用（字节）
+     */
+    public long estimatedBytes() {
+        long bytes = (long) keys.length * (Long.BYTES + Integer.BYTES) + 3L * Integer.BYTES * starts.length;
+        for (List<RowWarning> rowWarnings : warnings.values()) {
+            bytes += 64 + 32L * rowWarnings.size(); // 映射项、列表和 RowWarning 对象，内容字符串与问题收集器共用
+        }
+        return bytes + table.estimatedBytes();
+    }
+
+    /**
+     * 线性探测查找指纹所在的位置：找到时返回该位置，否则返回应该插入的空位。
+     */
+    private int slotOf(long fingerprint) {
+        int mask = keys.length - 1;
+        int slot = (int) (fingerprint ^ (fingerprint >>> 32)) & mask;
+        while (slots[slot] != 0 && keys[slot] != fingerprint) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * 扩容散列表，重新插入所有指纹。
+     */
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldSlots = slots;
+        keys = new long[capacity];
+        slots = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldSlots[i] != 0) {
+                int slot = slotOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                slots[slot] = oldSlots[i];
+            }
+        }
+    }
+
+    public long getHeaderFingerprint() {
+        return headerFingerprint;
+    }
+
+    public AssignmentTable getTable() {
+        return table;
+    }
+
+    public int getStart(int index) {
+        return starts[index];
+    }
+
+    public int getEnd(int index) {
+        return ends[index];
+    }
+
+    public int getMatched(int index) {
+        return matched[index];
+    }
+
+    /**
+     * 获取一条记录产生的问题。
+     *
+     * @param index 记录下标
+     * @return 问题列表，没有时为空列表
+     */
+    public List<RowWarning> getWarnings(int index) {
+        return warnings.getOrDefault(index, List.of());
+    }
+
+    /**
+     * 一行中的一个问题，复用时按新的行号重新记录。
+     *
+     * @param reason 未匹配的原因
+     * @param key    未匹配的内容
+     * @param column 列号（1-based）
+     */
+    public record RowWarning(UnmatchedReason reason, String key, int column) {
+    }
+}
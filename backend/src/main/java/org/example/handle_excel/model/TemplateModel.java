@@ -0,0 +1,72 @@
+package org.example.handle_excel.model;
+
+import org.apache.poi.ss.usermodel.CellType;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 模板工作簿的不可变内存模型。
+ * 启动时从 template.xlsx 解析一次，之后所有请求都从该模型复制表头，不再重复解析模板文件。
+ *
+ * @param sheets  Sheet 名称到模板 Sheet 的映射，保持模板中的顺序
+ * @param version 模板版本，取模板文件的最后修改时间
+ */
+public record TemplateModel(Map<String, TemplateSheet> sheets, long version) {
+
+    /**
+     * 根据名称获取模板 Sheet。
+     *
+     * @param sheetName Sheet 名称
+     * @return 模板 Sheet，不存在时返回 null
+     */
+    public TemplateSheet getSheet(String sheetName) {
+        return sheets.get(sheetName);
+    }
+
+    /**
+     * 模板中的一个 Sheet。
+     *
+     * @param name          Sheet 名称
+     * @param rows          模板中的非空行，按行号升序
+     * @param columnWidths  各列的列宽，下标为列索引
+     * @param mergedRegions 合并单元格区域，如 "A1:B2"
+     */
+    public record TemplateSheet(String name, List<TemplateRow> rows, List<Integer> columnWidths,
+                                List<String> mergedRegions) {
+    }
+
+    /**
+     * 模板中的一行。
+     *
+     * @param rowNum 行号（0-based）
+     * @param height 行高，-1 表示使用默认行高
+     * @param cells  行内的非空单元格，按列号升序
+     */
+    public record TemplateRow(int rowNum, short height, List<TemplateCell> cells) {
+    }
+
+    /**
+     * 模板中的一个单元格。
+     *
+     * @param column 列号（0-based）
+     * @param type   单元格类型
+     * @param value  单元格的值：字符串、数值、布尔值或公式文本，空单元格为 null
+     * @param style  单元格样式
+     */
+    public record TemplateCell(int column, CellType type, Object value, StyleDescriptor style) {
+    }
+
+    /**
+     * 单元格样式描述，保存样式各组成部分的 XML 快照。
+     * 内容相同的样式描述相等，可以直接作为样式缓存的键。
+     *
+     * @param xf         单元格格式（xf）
+     * @param fill       填充
+     * @param border     边框
+     * @param font       字体
+     * @param dataFormat 数据格式字符串
+     */
+    public record StyleDescriptor(String xf, String fill, String border, String font, String dataFormat) {
+    }
+}
@@ -0,0 +1,40 @@
+package org.example.handle_excel.model;
+
+/**
+ * 学期（上册 / 下册），对应课程名称括号中年级后的 "上" 或 "下"，如 "语文（七上）"。
+ */
+public enum Term {
+    /**
+     * 上册
+     */
+    UPPER('上'),
+    /**
+     * 下册
+     */
+    LOWER('下');
+
+    private final char label; // 课程名称中表示该学期的字符
+
+    Term(char label) {
+        this.label = label;
+    }
+
+    public char getLabel() {
+        return label;
+    }
+
+    /**
+     * 根据课程名称中的学期字符获取学期。
+     *
+     * @param label 学期字符
+     * @return 对应的学期，不是学期字符时返回 null
+     */
+    public static Term fromLabel(char label) {
+        for (Term term : values()) {
+            if (term.label == label) {
+                return term;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,40 @@
+package org.example.handle_excel.model;
+
+/**
+ * 单元格未生成排课结果的原因。
+ */
+public enum UnmatchedReason {
+    /**
+     * 教师表中不存在单元格中的教师
+     */
+    TEACHER("teacher", "未找到教师"),
+    /**
+     * 课程表中不存在该课程，或不存在对应年级和学期的课程
+     */
+    COURSE("course", "未找到课程"),
+    /**
+     * 班级表中不存在表头中的班级
+     */
+    CLASS("class", "未找到班级"),
+    /**
+     * 表头为空或整个 Sheet 缺少表头，无法获取年级
+     */
+    GRADE("grade", "缺少年级");
+
+    private final String tag; // 指标标签中使用的名称
+
+    private final String label; // 问题汇总中显示的说明
+
+    UnmatchedReason(String tag, String label) {
+        this.tag = tag;
+        this.label = label;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
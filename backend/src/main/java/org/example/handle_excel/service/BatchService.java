@@ -0,0 +1,546 @@
+package org.example.handle_excel.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.example.handle_excel.config.HandleProperties;
+import org.example.handle_excel.model.BatchFile;
+import org.example.handle_excel.model.BatchResult;
+import org.example.handle_excel.model.ConversionProgress;
+import org.example.handle_excel.model.ConversionStage;
+import org.example.handle_excel.model.Issue;
+import org.example.handle_excel.model.ReferenceData;
+import org.example.handle_excel.model.TemplateModel;
+import org.example.handle_excel.model.Term;
+import org.example.handle_excel.utils.ExcelUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 批量转换服务。
+ * 一次请求转换多个课表：上传的文件和压缩包中的文件先逐个写入临时目录，不在内存中保留文件内容；
+ * 模板和基础数据快照只获取一次，各文件在批量转换线程池中并行转换，xlsx 以文件方式打开，每个文件转换结束后删除临时文件；
+ * 同时提交的文件数不超过线程池大小，每个文件提交前按估算的内存占用从共享的内存预算中预留，写出后归还；
+ * 结果按输入顺序依次写入 zip 压缩包，
+ * 压缩包直接写入响应输出流，不在内存或磁盘中先生成完整的压缩包。
+ * 压缩包末尾附加汇总文件，列出各文件的转换结果和合并后的问题列表。
+ */
+@Slf4j
+@Service
+public class BatchService {
+
+    private static final String SUMMARY_FILE_NAME = "汇总.xlsx"; // 汇总文件的名称
+
+    private static final String SUMMARY_SHEET_NAME = "汇总"; // 汇总 Sheet 的名称
+
+    private static final String ISSUE_SHEET_NAME = "问题"; // 问题 Sheet 的名称
+
+    @Autowired
+    private ConversionService conversionService; // 转换服务，生成输出工作簿
+
+    @Autowired
+    private ConversionMetrics conversionMetrics; // 转换指标服务，记录各文件的耗时和计数
+
+    @Autowired
+    private ReferenceDataService referenceDataService; // 基础数据缓存服务
+
+    @Autowired
+    private TemplateService templateService; // 模板服务
+
+    @Autowired
+    private MemoryAdmission memoryAdmission; // 内存准入控制，每个文件转换前预留内存
+
+    @Autowired
+    private HandleProperties handleProperties; // 转换相关配置
+
+    @Autowired
+    @Qualifier("batchExecutor")
+    private ExecutorService batchExecutor; // 并行转换各文件的线程池
+
+    /**
+     * 读取上传的文件，zip 压缩包展开为其中的 xlsx、xls 和 csv 文件，其他文件按原样转换。
+     * 压缩包中的目录、隐藏文件、Excel 临时文件（~$ 开头）和其他扩展名的文件会被跳过。
+     * 直接上传的文件和压缩包中解压出的文件一起计入解压后的总大小上限。
+     * 各文件写入 handle.input.spill-dir 下的临时文件，读取失败或超过上限时删除已写入的临时文件。
+     *
+     * @param files 上传的文件
+     * @return 待转换的文件，按上传顺序和压缩包中的顺序排列；临时文件由 {@link #convert} 删除，
+     * 不调用 convert 时由调用方通过 {@link #deleteFiles} 删除
+     * @throws IOException              文件读取或写入临时文件失败
+     * @throws IllegalArgumentException 没有可转换的文件，或文件数、解压后的大小超过上限
+     */
+    public List<BatchFile> readFiles(MultipartFile[] files) throws IOException {
+        HandleProperties.Batch config = handleProperties.getBatch();
+        List<BatchFile> result = new ArrayList<>();
+        long remaining = config.getMaxUncompressedSize().toBytes(); // 还可以读取的字节数
+
+        try {
+            for (MultipartFile file : files) {
+                if (file.isEmpty()) continue; // 跳过空文件
+                String fileName = baseName(file.getOriginalFilename());
+                if (fileName.toLowerCase(Locale.ROOT).endsWith(".zip")) {
+                    remaining = readZip(file, result, remaining);
+                } else {
+                    try (InputStream inputStream = file.getInputStream()) {
+                        remaining -= spool(fileName, inputStream, remaining, result);
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            deleteFiles(result);
+            throw e;
+        }
+
+        if (result.isEmpty()) {
+            throw new IllegalArgumentException("没有可转换的文件");
+        }
+        return result;
+    }
+
+    /**
+     * 删除待转换文件的临时文件，已删除的文件跳过。
+     *
+     * @param files 待转换的文件
+     */
+    public void deleteFiles(List<BatchFile> files) {
+        for (BatchFile file : files) {
+            deleteQuietly(file.file());
+        }
+    }
+
+    /**
+     * 读取 zip 压缩包中的 xlsx、xls 和 csv 文件。
+     *
+     * @param file      上传的压缩包
+     * @param result    读取到的文件追加到该列表
+     * @param remaining 还可以解压的字节数
+     * @return 读取后还可以解压的字节数
+     * @throws IOException 压缩包读取失败
+     */
+    private long readZip(MultipartFile file, List<BatchFile> result, long remaining) throws IOException {
+        HandleProperties.Batch config = handleProperties.getBatch();
+        try (ZipInputStream zipStream = new ZipInputStream(file.getInputStream(),
+                Charset.forName(config.getZipCharset()))) {
+            ZipEntry entry;
+            while ((entry = zipStream.getNextEntry()) != null) {
+                String fileName = baseName(entry.getName());
+                if (entry.isDirectory() || entry.getName().startsWith("__MACOSX/")
+                        || fileName.startsWith(".") || fileName.startsWith("~$")
+                        || !isInputFile(fileName)) {
+                    log.debug("跳过压缩包中的文件: {}", entry.getName());
+                    continue;
+                }
+
+                remaining -= spool(fileName, zipStream, remaining, result);
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * 把一个文件的内容写入临时文件，按实际写入的字节数检查总大小上限，不依赖上传或压缩包中记录的大小。
+     *
+     * @param fileName  文件名
+     * @param input     文件内容，不关闭
+     * @param remaining 还可以写入的字节数
+     * @param result    写入的文件追加到该列表
+     * @return 文件大小（字节）
+     * @throws IOException              读取文件或写入临时文件失败
+     * @throws IllegalArgumentException 超过总大小上限或文件数上限
+     */
+    private long spool(String fileName, InputStream input, long remaining, List<BatchFile> result)
+            throws IOException {
+        Path dir = Paths.get(handleProperties.getInput().getSpillDir());
+        Files.createDirectories(dir);
+        Path tempFile = Files.createTempFile(dir, "batch-", ".tmp");
+        long size = 0;
+        try (OutputStream output = Files.newOutputStream(tempFile)) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) >= 0) {
+                size += read;
+                if (size > remaining) {
+                    throw new IllegalArgumentException("文件解压后的总大小超过上限: "
+                            + handleProperties.getBatch().getMaxUncompressedSize());
+                }
+                output.write(buffer, 0, read);
+            }
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(tempFile);
+            throw e;
+        }
+        result.add(new BatchFile(fileName, tempFile, size));
+        checkFileCount(result);
+        return size;
+    }
+
+    /**
+     * 是否为可以转换的文件，按扩展名判断；实际格式在转换时按文件内容判断。
+     *
+     * @param fileName 文件名
+     * @return 是否为 xlsx、xls 或 csv 文件
+     */
+    private boolean isInputFile(String fileName) {
+        String lowerCaseName = fileName.toLowerCase(Locale.ROOT);
+        return lowerCaseName.endsWith(".xlsx") || lowerCaseName.endsWith(".xls") || lowerCaseName.endsWith(".csv");
+    }
+
+    private void checkFileCount(List<BatchFile> files) {
+        int maxFiles = handleProperties.getBatch().getMaxFiles();
+        if (files.size() > maxFiles) {
+            throw new IllegalArgumentException("文件数超过上限: " + maxFiles);
+        }
+    }
+
+    /**
+     * 并行转换所有文件，并把结果写成 zip 压缩包。
+     * 最多同时提交线程池大小个文件，每写出一个文件再提交下一个，已转换完成、等待写出的输出工作簿不超过这个数量。
+     * 提交前从内存预算中预留：前面还有未写出的文件时只在预算足够时提交，否则先写出前面的文件归还预算再重试；
+     * 前面的文件都已写出时才等待预算，避免等待的预算被本次批量中等待写出的文件占用。
+     * 某个文件转换失败时跳过该文件，失败原因记录在汇总中；写出压缩包失败（如客户端断开）时取消剩余的转换。
+     *
+     * @param files        待转换的文件
+     * @param term         学期，为 null 时使用配置的默认学期
+     * @param outputStream 压缩包的输出流
+     * @throws IOException 写出压缩包失败
+     */
+    public void convert(List<BatchFile> files, Term term, OutputStream outputStream) throws IOException {
+        long startTime = System.nanoTime();
+
+        // 所有文件共用同一份模板和基础数据快照
+        TemplateModel template = templateService.getTemplate();
+        ReferenceData referenceData = referenceDataService.getReferenceData();
+
+        List<FileTask> tasks = new ArrayList<>();
+        for (BatchFile file : files) {
+            tasks.add(new FileTask(file, template, referenceData, term,
+                    new ConversionProgress(handleProperties.getDiagnostics().getMaxIssues())));
+        }
+        int parallelism = handleProperties.getBatch().getParallelism();
+        int window = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(); // 同时提交的文件数
+
+        List<BatchResult> results = new ArrayList<>();
+        Set<String> usedNames = new HashSet<>();
+        usedNames.add(SUMMARY_FILE_NAME);
+        ZipOutputStream zipStream = new ZipOutputStream(outputStream, StandardCharsets.UTF_8);
+        try {
+            // 按输入顺序写出，先完成的文件等待前面的文件写完；每写出一个文件再提交后面的文件
+            int next = 0; // 下一个待提交的文件
+            for (int i = 0; i < tasks.size(); i++) {
+                while (next < tasks.size() && next < i + window && submit(tasks.get(next), next == i)) {
+                    next++;
+                }
+                results.add(writeResult(tasks.get(i), zipStream, usedNames));
+            }
+            writeSummary(zipStream, results);
+            zipStream.finish();
+        } finally {
+            // 写出中断时，取消尚未开始的转换，已完成的转换释放输出工作簿，仍在进行的转换完成后自行释放
+            for (FileTask task : tasks) {
+                discard(task);
+            }
+        }
+
+        long succeeded = results.stream().filter(BatchResult::isSuccess).count();
+        log.info("批量转换完成，文件 {} 个，成功 {} 个，处理 {} 行，发现 {} 条问题，耗时 {} ms", files.size(), succeeded,
+                results.stream().mapToLong(result -> result.progress().getRowsProcessed()).sum(),
+                results.stream().mapToLong(result -> result.progress().getWarnings()).sum(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+    }
+
+    /**
+     * 等待一个文件转换完成，并把结果写入压缩包。
+     *
+     * @param task      转换任务
+     * @param zipStream 压缩包输出流
+     * @param usedNames 压缩包中已使用的文件名
+     * @return 转换结果
+     * @throws IOException 写出压缩包失败
+     */
+    private BatchResult writeResult(FileTask task, ZipOutputStream zipStream, Set<String> usedNames)
+            throws IOException {
+        String fileName = task.file.fileName();
+        ConversionProgress progress = task.progress;
+        Workbook outputWorkbook;
+        try {
+            task.future.get();
+            outputWorkbook = task.take();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            log.error("批量转换文件失败: {}", fileName, cause);
+            conversionMetrics.record(ConversionMetrics.SOURCE_BATCH, false, progress,
+                    System.nanoTime() - task.startTime, task.file.size());
+            return new BatchResult(fileName, null, progress,
+                    cause instanceof IllegalArgumentException ? cause.getMessage() : "文件处理失败");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("批量转换被中断");
+        }
+
+        String outputName = outputName(fileName, usedNames);
+        long writeStart = System.nanoTime();
+        boolean written = false;
+        try {
+            zipStream.putNextEntry(new ZipEntry(outputName));
+            outputWorkbook.write(new NonClosingOutputStream(zipStream));
+            zipStream.closeEntry();
+            written = true;
+        } finally {
+            progress.addStageTime(ConversionStage.WRITE, System.nanoTime() - writeStart);
+            conversionService.closeOutputWorkbook(outputWorkbook);
+            task.reservation.close();
+            conversionMetrics.record(ConversionMetrics.SOURCE_BATCH, written, progress,
+                    System.nanoTime() - task.startTime, task.file.size());
+        }
+        return new BatchResult(fileName, outputName, progress, null);
+    }
+
+    /**
+     * 在压缩包末尾写入汇总文件：“汇总” Sheet 列出各文件的转换结果，
+     * 有问题时“问题” Sheet 列出所有文件合并后的问题，Sheet 列为“文件/Sheet”。
+     *
+     * @param zipStream 压缩包输出流
+     * @param results   各文件的转换结果
+     * @throws IOException 写出失败
+     */
+    private void writeSummary(ZipOutputStream zipStream, List<BatchResult> results) throws IOException {
+        List<Issue> issues = new ArrayList<>();
+        long dropped = 0;
+        for (BatchResult result : results) {
+            for (Issue issue : result.progress().getDiagnostics().getIssues()) {
+                issues.add(new Issue(result.fileName() + "/" + issue.sheetName(), issue.reason(), issue.key(),
+                        issue.count(), issue.firstRow(), issue.firstColumn()));
+            }
+            dropped += result.progress().getDiagnostics().getDropped();
+        }
+
+        try (Workbook summaryWorkbook = new XSSFWorkbook()) {
+            ExcelUtils.createBatchSummarySheet(summaryWorkbook, SUMMARY_SHEET_NAME, results);
+            if (!issues.isEmpty()) {
+                ExcelUtils.createIssueSheet(summaryWorkbook, ISSUE_SHEET_NAME, issues, dropped);
+            }
+            zipStream.putNextEntry(new ZipEntry(SUMMARY_FILE_NAME));
+            summaryWorkbook.write(new NonClosingOutputStream(zipStream));
+            zipStream.closeEntry();
+        }
+    }
+
+    /**
+     * 从内存预算中预留后提交一个转换任务。
+     *
+     * @param task 转换任务
+     * @param wait 预算不足时是否等待，为 false 时预算不足直接返回
+     * @return 是否已提交
+     * @throws IOException 读取文件失败，或等待预算时被中断
+     */
+    private boolean submit(FileTask task, boolean wait) throws IOException {
+        long cost = memoryAdmission.estimate(new FileSystemResource(task.file.file()), task.file.size());
+        MemoryAdmission.Reservation reservation;
+        try {
+            reservation = wait ? memoryAdmission.reserve(cost) : memoryAdmission.reserveIfAvailable(cost);
+        } catch (RejectedExecutionException e) {
+            throw new InterruptedIOException("等待内存预算时被中断");
+        }
+        if (reservation == null) {
+            return false;
+        }
+        task.reservation = reservation;
+        task.future = batchExecutor.submit(task);
+        return true;
+    }
+
+    /**
+     * 放弃一个未写出的转换任务：尚未开始的直接取消，已完成的关闭输出工作簿，仍在进行的完成后由任务自己关闭。
+     * 输出工作簿关闭或任务取消时同时归还预留的内存；尚未提交或被取消的任务在这里删除输入文件，其余的由任务自己删除。
+     * 不等待任务完成，写出线程被中断时也能释放所有输出工作簿。
+     *
+     * @param task 转换任务
+     */
+    private void discard(FileTask task) {
+        if (task.future == null) {
+            deleteQuietly(task.file.file()); // 尚未提交
+            return;
+        }
+        boolean cancelled = task.future.cancel(false);
+        if (cancelled) {
+            deleteQuietly(task.file.file());
+        }
+        Workbook outputWorkbook = task.discard();
+        if (outputWorkbook != null) {
+            conversionService.closeOutputWorkbook(outputWorkbook);
+        }
+        if (cancelled || outputWorkbook != null) {
+            task.reservation.close();
+        }
+    }
+
+    /**
+     * 生成压缩包中的结果文件名：输入文件名去掉扩展名后加上 .xlsx，重名时依次加上 (2)、(3) 等后缀。
+     *
+     * @param fileName  输入文件名
+     * @param usedNames 已使用的文件名，生成的文件名会加入其中
+     * @return 结果文件名
+     */
+    private String outputName(String fileName, Set<String> usedNames) {
+        int dot = fileName.lastIndexOf('.');
+        String base = dot > 0 ? fileName.substring(0, dot) : fileName;
+        String name = base + ".xlsx";
+        for (int i = 2; !usedNames.add(name); i++) {
+            name = base + "(" + i + ").xlsx";
+        }
+        return name;
+    }
+
+    /**
+     * 去掉文件名中的目录部分。
+     *
+     * @param path 文件路径，可能为 null
+     * @return 文件名，为空时返回“未命名.xlsx”
+     */
+    private String baseName(String path) {
+        if (path == null || path.isBlank()) {
+            return "未命名.xlsx";
+        }
+        return path.substring(Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\')) + 1);
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("删除批量转换的临时文件失败: {}", path, e);
+        }
+    }
+
+    /**
+     * 一个文件的转换任务，在批量转换线程池中执行。
+     * 输出工作簿在转换线程和写出线程之间交接：写出线程通过 take 取走，放弃时通过 discard 取走；
+     * 放弃之后才完成的转换由转换线程直接关闭输出工作簿。
+     * 预留的内存随输出工作簿一起归还：写出后由写出线程归还，转换失败或放弃后完成时由转换线程归还。
+     * 输入文件只在转换时读取，转换结束后（无论成功与否）由转换线程删除。
+     */
+    private class FileTask implements Callable<Workbook> {
+
+        private final BatchFile file; // 输入文件
+
+        private final TemplateModel template; // 共用的模板
+
+        private final ReferenceData referenceData; // 共用的基础数据快照
+
+        private final Term term; // 学期
+
+        private final ConversionProgress progress; // 转换进度
+
+        private Future<Workbook> future; // 提交后的结果，提交前为 null
+
+        private MemoryAdmission.Reservation reservation; // 提交前预留的内存，提交前为 null
+
+        private volatile long startTime = System.nanoTime(); // 开始转换的时间，开始前为创建时间
+
+        private Workbook outputWorkbook; // 转换完成、尚未取走的输出工作簿，由 this 保护
+
+        private boolean discarded; // 任务是否已被放弃，由 this 保护
+
+        FileTask(BatchFile file, TemplateModel template, ReferenceData referenceData, Term term,
+                 ConversionProgress progress) {
+            this.file = file;
+            this.template = template;
+            this.referenceData = referenceData;
+            this.term = term;
+            this.progress = progress;
+        }
+
+        @Override
+        public Workbook call() throws Exception {
+            startTime = System.nanoTime();
+            Workbook workbook;
+            try {
+                workbook = conversionService.convert(new FileSystemResource(file.file()), template,
+                        referenceData, term, progress);
+            } catch (Throwable e) {
+                reservation.close();
+                throw e;
+            } finally {
+                deleteQuietly(file.file());
+            }
+            synchronized (this) {
+                if (!discarded) {
+                    outputWorkbook = workbook;
+                    return workbook;
+                }
+            }
+            conversionService.closeOutputWorkbook(workbook);
+            reservation.close();
+            return null;
+        }
+
+        /**
+         * 取走转换完成的输出工作簿，之后由调用方负责关闭。
+         *
+         * @return 输出工作簿，尚未完成或已被取走时返回 null
+         */
+        synchronized Workbook take() {
+            Workbook workbook = outputWorkbook;
+            outputWorkbook = null;
+            return workbook;
+        }
+
+        /**
+         * 放弃任务，之后完成的转换不再保留输出工作簿。
+         *
+         * @return 已完成但尚未取走的输出工作簿，由调用方关闭；没有时返回 null
+         */
+        synchronized Workbook discard() {
+            discarded = true;
+            return take();
+        }
+    }
+
+    /**
+     * 关闭时只刷新、不关闭底层输出流，避免写出工作簿时关闭整个压缩包。
+     */
+    private static class NonClosingOutputStream extends FilterOutputStream {
+
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package org.example.handle_excel.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.handle_excel.model.ConversionProgress;
+import org.example.handle_excel.model.ConversionStage;
+import org.example.handle_excel.model.UnmatchedReason;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 转换指标服务，把每次转换的耗时和计数记录到 Micrometer，通过 /actuator/metrics 查看。
+ * 记录的指标：
+ * - handle.conversion：整个转换的耗时，按来源（handle 同步接口 / job 异步任务 / batch 批量转换）和结果（success / failure）区分
+ * - handle.conversion.stage：各阶段的耗时，按阶段区分
+ * - handle.conversion.rows / handle.conversion.cells.matched：读取的数据行数、匹配成功的单元格数
+ * - handle.conversion.unmatched：未匹配的单元格数，按原因（teacher / course / class / grade）区分
+ * - handle.conversion.request.rows / handle.conversion.request.bytes：每次转换的行数和输入文件大小的分布
+ * - handle.conversion.cache：结果缓存的命中和未命中次数，命中时不再记录上面的转换指标
+ */
+@Service
+public class ConversionMetrics {
+
+    /**
+     * 同步接口 /handle
+     */
+    public static final String SOURCE_HANDLE = "handle";
+
+    /**
+     * 异步任务接口 /jobs
+     */
+    public static final String SOURCE_JOB = "job";
+
+    /**
+     * 批量转换接口 /batch，每个文件记录一次
+     */
+    public static final String SOURCE_BATCH = "batch";
+
+    @Autowired
+    private MeterRegistry meterRegistry; // 指标注册表
+
+    /**
+     * 记录一次转换的指标。
+     *
+     * @param source     来源，{@link #SOURCE_HANDLE}、{@link #SOURCE_JOB} 或 {@link #SOURCE_BATCH}
+     * @param success    转换和写出是否成功
+     * @param progress   转换进度，包含各阶段耗时和计数
+     * @param totalNanos 整个转换的耗时（纳秒），包括写出
+     * @param inputBytes 输入文件大小（字节）
+     */
+    public void record(String source, boolean success, ConversionProgress progress, long totalNanos, long inputBytes) {
+        Timer.builder("handle.conversion")
+                .description("转换耗时")
+                .tag("source", source)
+                .tag("outcome", success ? "success" : "failure")
+                .register(meterRegistry)
+                .record(totalNanos, TimeUnit.NANOSECONDS);
+
+        for (ConversionStage stage : ConversionStage.values()) {
+            Timer.builder("handle.conversion.stage")
+                    .description("转换各阶段的耗时")
+                    .tag("source", source)
+                    .tag("stage", stage.getTag())
+                    .register(meterRegistry)
+                    .record(progress.getStageNanos(stage), TimeUnit.NANOSECONDS);
+        }
+
+        Counter.builder("handle.conversion.rows")
+                .description("读取的数据行数")
+                .tag("source", source)
+                .register(meterRegistry)
+                .increment(progress.getRowsProcessed());
+        Counter.builder("handle.conversion.cells.matched")
+                .description("匹配成功的单元格数")
+                .tag("source", source)
+                .register(meterRegistry)
+                .increment(progress.getCellsMatched());
+        for (UnmatchedReason reason : UnmatchedReason.values()) {
+            Counter.builder("handle.conversion.unmatched")
+                    .description("未匹配的单元格数")
+                    .tag("source", source)
+                    .tag("reason", reason.getTag())
+                    .register(meterRegistry)
+                    .increment(progress.getUnmatched(reason));
+        }
+
+        DistributionSummary.builder("handle.conversion.request.rows")
+                .description("每次转换的数据行数")
+                .baseUnit("rows")
+                .tag("source", source)
+                .register(meterRegistry)
+                .record(progress.getRowsProcessed());
+        DistributionSummary.builder("handle.conversion.request.bytes")
+                .description("每次转换的输入文件大小")
+                .baseUnit("bytes")
+                .tag("source", source)
+                .register(meterRegistry)
+                .record(inputBytes);
+    }
+
+    /**
+     * 记录一次结果缓存的查找。
+     *
+     * @param source 来源，{@link #SOURCE_HANDLE}、{@link #SOURCE_JOB} 或 {@link #SOURCE_BATCH}
+     * @param hit    是否命中
+     */
+    public void recordCache(String source, boolean hit) {
+        Counter.builder("handle.conversion.cache")
+                .description("结果缓存的查找次数")
+                .tag("source", source)
+                .tag("result", hit ? "hit" : "miss")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 生成 Server-Timing 响应头，列出各阶段和到目前为止的总耗时（毫秒），如
+     * "parse;dur=12.3, reference;dur=0.1, template;dur=4.0, process;dur=35.2, total;dur=52.0"。
+     * 响应头在写出响应体之前发送，因此只包含写出之前的阶段。
+     *
+     * @param progress   转换进度
+     * @param totalNanos 到目前为止的总耗时（纳秒）
+     * @return 响应头的值
+     */
+    public String serverTiming(ConversionProgress progress, long totalNanos) {
+        StringJoiner joiner = new StringJoiner(", ");
+        for (ConversionStage stage : ConversionStage.values()) {
+            if (stage != ConversionStage.WRITE) {
+                joiner.add(timing(stage.getTag(), progress.getStageNanos(stage)));
+            }
+        }
+        joiner.add(timing("total", totalNanos));
+        return joiner.toString();
+    }
+
+    /**
+     * 生成命中结果缓存时的 Server-Timing 响应头，如 "cache;desc=hit, total;dur=3.2"。
+     *
+     * @param totalNanos 到目前为止的总耗时（纳秒），主要是读取上传文件和计算哈希的时间
+     * @return 响应头的值
+     */
+    public String cachedServerTiming(long totalNanos) {
+        return "cache;desc=hit, " + timing("total", totalNanos);
+    }
+
+    private String timing(String name, long nanos) {
+        return String.format(Locale.ROOT, "%s;dur=%.1f", name, nanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,390 @@
+package org.example.handle_excel.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.example.handle_excel.config.HandleProperties;
+import org.example.handle_excel.model.AssignmentTable;
+import org.example.handle_excel.model.ConversionContext;
+import org.example.handle_excel.model.ConversionProgress;
+import org.example.handle_excel.model.ConversionStage;
+import org.example.handle_excel.model.Diagnostics;
+import org.example.handle_excel.model.IncrementalSession;
+import org.example.handle_excel.model.InputFormat;
+import org.example.handle_excel.model.Issue;
+import org.example.handle_excel.model.ReferenceData;
+import org.example.handle_excel.model.TemplateModel;
+import org.example.handle_excel.model.Term;
+import org.example.handle_excel.model.UnmatchedReason;
+import org.example.handle_excel.utils.CsvStreamReader;
+import org.example.handle_excel.utils.ExcelUtils;
+import org.example.handle_excel.utils.HssfStreamReader;
+import org.example.handle_excel.utils.SheetStreamReader;
+import org.example.handle_excel.writer.AssignmentWriter;
+import org.example.handle_excel.writer.CsvAssignmentWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * 转换服务类，把上传的课表转换为输出工作簿。
+ * 同步接口和异步任务共用同一套转换流程：获取模板和基础数据，根据文件内容判断输入格式（xlsx、xls、csv），
+ * 按配置的方式读取输入，生成输出工作簿或 CSV。提供文档 ID 时只重新匹配与同一文档上一次上传相比有变化的行。
+ * 各阶段的耗时记录在转换进度中，写出输出工作簿的耗时由调用方记录。
+ * 转换结束后把收集到的问题汇总为一条日志，按配置附加“问题” Sheet。
+ */
+@Slf4j
+@Service
+public class ConversionService {
+
+    private static final String ISSUE_SHEET_NAME = "问题"; // 问题 Sheet 的名称
+
+    private static final int SUMMARY_TOP_ISSUES = 5; // 汇总日志中列出的问题项数
+
+    @Autowired
+    private ReferenceDataService referenceDataService; // 基础数据缓存服务，用于获取课程、班级、教师数据
+
+    @Autowired
+    private SheetService sheetService; // Sheet 处理服务，用于处理 Excel 的 Sheet
+
+    @Autowired
+    private TemplateService templateService; // 模板服务，提供预先解析的模板
+
+    @Autowired
+    private WriteBackService writeBackService; // 排课结果写回服务
+
+    @Autowired
+    private IncrementalService incrementalService; // 增量转换服务，保存各文档上一次转换的快照
+
+    @Autowired
+    private HandleProperties handleProperties; // 转换相关配置
+
+    /**
+     * 转换输入的课表，返回填充好的输出工作簿。
+     * 调用方写出工作簿后需要调用 {@link #closeOutputWorkbook(Workbook)} 释放资源；转换失败时工作簿已经关闭。
+     *
+     * @param input      输入的 xlsx、xls 或 csv 文件，保存在磁盘上的 xlsx 以文件方式打开
+     * @param term       学期，为 null 时使用配置的默认学期
+     * @param documentId 客户端提供的文档 ID，用于增量转换，为 null 时所有行都重新匹配
+     * @param progress   转换进度
+     * @return 输出工作簿
+     * @throws IOException            输入文件读取或解析失败
+     * @throws InvalidFormatException 输入文件不是有效的 xlsx 文件
+     */
+    public Workbook convert(Resource input, Term term, String documentId, ConversionProgress progress)
+            throws IOException, InvalidFormatException {
+        // 获取预先解析的模板
+        long start = System.nanoTime();
+        TemplateModel template = templateService.getTemplate();
+        progress.addStageTime(ConversionStage.TEMPLATE, System.nanoTime() - start);
+
+        // 获取缓存的课程、班级、教师数据快照
+        start = System.nanoTime();
+        ReferenceData referenceData = referenceDataService.getReferenceData();
+        progress.addStageTime(ConversionStage.REFERENCE, System.nanoTime() - start);
+
+        return convert(input, createContext(template, referenceData, term, null, documentId, progress));
+    }
+
+    /**
+     * 使用指定的模板和基础数据快照转换输入的课表，批量转换时多个文件共用同一份模板和快照。
+     * 调用方写出工作簿后需要调用 {@link #closeOutputWorkbook(Workbook)} 释放资源；转换失败时工作簿已经关闭。
+     *
+     * @param input         输入的 xlsx、xls 或 csv 文件，保存在磁盘上的 xlsx 以文件方式打开
+     * @param template      模板
+     * @param referenceData 基础数据快照
+     * @param term          学期，为 null 时使用配置的默认学期
+     * @param progress      转换进度
+     * @return 输出工作簿
+     * @throws IOException            输入文件读取或解析失败
+     * @throws InvalidFormatException 输入文件不是有效的 xlsx 文件
+     */
+    public Workbook convert(Resource input, TemplateModel template, ReferenceData referenceData, Term term,
+                            ConversionProgress progress) throws IOException, InvalidFormatException {
+        return convert(input, createContext(template, referenceData, term, null, null, progress));
+    }
+
+    /**
+     * 转换输入的课表，转换完成后在一个数据库事务中把排课结果写回数据库，写回失败时回滚，转换失败时不写回。
+     * 模板和基础数据在事务开始前加载，事务只包含写回，不包含输入文件的解析和匹配。
+     * 调用方写出工作簿后需要调用 {@link #closeOutputWorkbook(Workbook)} 释放资源；失败时工作簿已经关闭。
+     *
+     * @param input      输入的 xlsx、xls 或 csv 文件，保存在磁盘上的 xlsx 以文件方式打开
+     * @param term       学期，为 null 时使用配置的默认学期
+     * @param documentId 客户端提供的文档 ID，用于增量转换，为 null 时所有行都重新匹配
+     * @param progress   转换进度
+     * @return 输出工作簿
+     * @throws IOException            输入文件读取或解析失败，或写回数据库失败
+     * @throws InvalidFormatException 输入文件不是有效的 xlsx 文件
+     */
+    public Workbook convertAndWriteBack(Resource input, Term term, String documentId, ConversionProgress progress)
+            throws IOException, InvalidFormatException {
+        long start = System.nanoTime();
+        TemplateModel template = templateService.getTemplate();
+        progress.addStageTime(ConversionStage.TEMPLATE, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        ReferenceData referenceData = referenceDataService.getReferenceData();
+        progress.addStageTime(ConversionStage.REFERENCE, System.nanoTime() - start);
+
+        // 各 Sheet 的排课结果先保存在结果表中，转换成功后再一起写回
+        List<AssignmentTable> tables = new ArrayList<>();
+        Workbook outputWorkbook = convert(input,
+                createContext(template, referenceData, term, tables::add, documentId, progress));
+        try {
+            writeBackService.write(tables, progress);
+            return outputWorkbook;
+        } catch (IOException | RuntimeException e) {
+            closeOutputWorkbook(outputWorkbook);
+            throw e;
+        }
+    }
+
+    /**
+     * 转换输入的课表，只生成排课结果表，不生成输出工作簿，用于输出 CSV 等不需要模板格式的结果。
+     * 仍只处理模板中存在的 Sheet；每个处理的 Sheet 对应一个结果表，按 Sheet 顺序排列。
+     *
+     * @param input      输入的 xlsx、xls 或 csv 文件，保存在磁盘上的 xlsx 以文件方式打开
+     * @param term       学期，为 null 时使用配置的默认学期
+     * @param documentId 客户端提供的文档 ID，用于增量转换，为 null 时所有行都重新匹配
+     * @param progress   转换进度
+     * @return 各 Sheet 的排课结果表
+     * @throws IOException            输入文件读取或解析失败
+     * @throws InvalidFormatException 输入文件不是有效的 xlsx 文件
+     */
+    public List<AssignmentTable> convertToTables(Resource input, Term term, String documentId,
+                                                 ConversionProgress progress)
+            throws IOException, InvalidFormatException {
+        long start = System.nanoTime();
+        TemplateModel template = templateService.getTemplate();
+        progress.addStageTime(ConversionStage.TEMPLATE, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        ReferenceData referenceData = referenceDataService.getReferenceData();
+        progress.addStageTime(ConversionStage.REFERENCE, System.nanoTime() - start);
+
+        List<AssignmentTable> tables = new ArrayList<>();
+        process(input, null, createContext(template, referenceData, term, tables::add, documentId, progress));
+        reportIssues(null, progress);
+        return tables;
+    }
+
+    /**
+     * 把排课结果表写为 UTF-8 编码的 CSV，所有 Sheet 的结果依次写入，只有一行表头。
+     *
+     * @param tables       各 Sheet 的排课结果表
+     * @param outputStream 输出流，写完后只刷新不关闭
+     * @throws IOException 写出失败
+     */
+    public void writeCsv(List<AssignmentTable> tables, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        CsvAssignmentWriter csvWriter = new CsvAssignmentWriter(writer);
+        for (AssignmentTable table : tables) {
+            csvWriter.write(table);
+        }
+        writer.flush();
+    }
+
+    /**
+     * 创建本次转换的上下文：未指定学期时使用配置的默认学期，提供文档 ID 时取出同一文档上一次的快照。
+     *
+     * @param template      模板
+     * @param referenceData 基础数据快照
+     * @param term          学期，为 null 时使用配置的默认学期
+     * @param extraWriter   额外的写出方式，为 null 时不使用
+     * @param documentId    客户端提供的文档 ID，用于增量转换，为 null 时所有行都重新匹配
+     * @param progress      转换进度
+     * @return 转换上下文
+     */
+    private ConversionContext createContext(TemplateModel template, ReferenceData referenceData, Term term,
+                                            AssignmentWriter extraWriter, String documentId,
+                                            ConversionProgress progress) {
+        Term effectiveTerm = term != null ? term : handleProperties.getTerm();
+        IncrementalSession session = incrementalService.open(documentId, referenceData, effectiveTerm);
+        return new ConversionContext(template, referenceData, effectiveTerm, extraWriter, session, progress);
+    }
+
+    /**
+     * 转换输入的课表，排课结果除了写入输出工作簿，还交给上下文中额外的写出方式。
+     */
+    private Workbook convert(Resource input, ConversionContext context) throws IOException, InvalidFormatException {
+        // 创建一个新的 Workbook 作为输出
+        Workbook outputWorkbook = createOutputWorkbook();
+
+        try {
+            process(input, outputWorkbook, context);
+            reportIssues(outputWorkbook, context.progress());
+            return outputWorkbook;
+        } catch (IOException | InvalidFormatException | RuntimeException e) {
+            closeOutputWorkbook(outputWorkbook);
+            throw e;
+        }
+    }
+
+    /**
+     * 根据文件内容判断输入格式，按配置的方式读取输入，处理每个 Sheet。
+     * xlsx 和 xls 按配置流式读取或完整加载；csv 总是流式读取，作为一个 Sheet 处理。
+     * 保存在磁盘上的 xlsx 以文件方式打开，流式读取时只解压正在读取的部分，不在内存中保留整个压缩包。
+     *
+     * 增量转换时转换成功后保存本次的快照。
+     *
+     * @param input          输入文件
+     * @param outputWorkbook 输出 Workbook，为 null 时不生成输出 Sheet
+     * @param context        转换上下文
+     * @throws IOException            输入文件读取或解析失败
+     * @throws InvalidFormatException 输入文件不是有效的 xlsx 文件
+     */
+    private void process(Resource input, Workbook outputWorkbook, ConversionContext context)
+            throws IOException, InvalidFormatException {
+        HandleProperties.Input config = handleProperties.getInput();
+        ConversionProgress progress = context.progress();
+        boolean streaming = config.getMode() == HandleProperties.InputMode.STREAMING;
+
+        // 判断格式需要预读文件开头，读取的内容会被放回
+        long start = System.nanoTime();
+        try (InputStream bufferedInput = FileMagic.prepareToCheckMagic(input.getInputStream())) {
+            InputFormat format = InputFormat.detect(bufferedInput);
+            log.debug("输入文件格式: {}", format);
+
+            if (format == InputFormat.CSV) {
+                // CSV 只有一个 Sheet，对应配置的模板 Sheet
+                SheetStreamReader reader = new CsvStreamReader(bufferedInput, csvSheetName(context.template()),
+                        Charset.forName(config.getCsvCharset()));
+                progress.addStageTime(ConversionStage.PARSE, System.nanoTime() - start);
+                sheetService.ProcessSheet(reader, outputWorkbook, context);
+            } else if (format == InputFormat.XLS && streaming) {
+                // 以事件模型逐条读取 xls 文件的记录
+                SheetStreamReader reader = new HssfStreamReader(bufferedInput);
+                progress.addStageTime(ConversionStage.PARSE, System.nanoTime() - start);
+                sheetService.ProcessSheet(reader, outputWorkbook, context);
+            } else if (format == InputFormat.XLS) {
+                // 加载用户上传的 xls 工作簿
+                try (Workbook inputWorkbook = new HSSFWorkbook(bufferedInput)) {
+                    progress.addStageTime(ConversionStage.PARSE, System.nanoTime() - start);
+                    sheetService.ProcessSheet(inputWorkbook, outputWorkbook, context);
+                }
+            } else {
+                // 保存在磁盘上的 xlsx 以只读方式按文件打开，各部分按需解压；否则从流中把整个压缩包读入内存
+                OPCPackage inputPackage = input.isFile()
+                        ? OPCPackage.open(input.getFile(), PackageAccess.READ) : OPCPackage.open(bufferedInput);
+                try {
+                    if (streaming) {
+                        // 流式读取用户上传的文件，逐行处理
+                        progress.addStageTime(ConversionStage.PARSE, System.nanoTime() - start);
+                        sheetService.ProcessSheet(inputPackage, outputWorkbook, context);
+                    } else {
+                        // 加载用户上传的 Workbook，关闭 Workbook 时不写回文件
+                        Workbook inputWorkbook = new XSSFWorkbook(inputPackage);
+                        progress.addStageTime(ConversionStage.PARSE, System.nanoTime() - start);
+                        sheetService.ProcessSheet(inputWorkbook, outputWorkbook, context);
+                    }
+                } finally {
+                    // 只读打开的包不能保存，关闭时放弃所有修改
+                    inputPackage.revert();
+                }
+            }
+        }
+        incrementalService.save(context.session());
+    }
+
+    /**
+     * 获取 CSV 文件对应的模板 Sheet 名称。
+     *
+     * @param template 模板
+     * @return 配置的 Sheet 名称，未配置时为模板的第一个 Sheet
+     */
+    private String csvSheetName(TemplateModel template) {
+        String sheetName = handleProperties.getInput().getCsvSheetName();
+        if (sheetName != null && !sheetName.isBlank()) {
+            return sheetName.trim();
+        }
+        return template.sheets().keySet().stream().findFirst()
+                .orElseThrow(() -> new IllegalStateException("模板中没有Sheet"));
+    }
+
+    /**
+     * 汇总本次转换的问题：输出一条日志，列出各原因的问题数和出现最多的几项；
+     * 启用问题 Sheet 时在输出 Workbook 末尾附加问题列表。
+     *
+     * @param outputWorkbook 输出 Workbook，为 null 时只输出日志
+     * @param progress       转换进度
+     */
+    private void reportIssues(Workbook outputWorkbook, ConversionProgress progress) {
+        Diagnostics diagnostics = progress.getDiagnostics();
+        List<Issue> issues = diagnostics.getIssues();
+        if (progress.getWarnings() == 0) {
+            log.info("转换完成，处理 {} 行，匹配 {} 个单元格，没有发现问题",
+                    progress.getRowsProcessed(), progress.getCellsMatched());
+        } else {
+            StringJoiner reasons = new StringJoiner("，");
+            for (UnmatchedReason reason : UnmatchedReason.values()) {
+                if (progress.getUnmatched(reason) > 0) {
+                    reasons.add(reason.getLabel() + " " + progress.getUnmatched(reason));
+                }
+            }
+            StringJoiner top = new StringJoiner("，");
+            issues.stream().limit(SUMMARY_TOP_ISSUES).forEach(issue -> top.add(
+                    issue.sheetName() + "/" + issue.reason().getLabel() + " '" + issue.key() + "' × " + issue.count()));
+            log.warn("转换完成，处理 {} 行，匹配 {} 个单元格，发现 {} 条问题（{}），合并后 {} 项，出现最多的: {}",
+                    progress.getRowsProcessed(), progress.getCellsMatched(), progress.getWarnings(), reasons,
+                    issues.size() + (diagnostics.getDropped() > 0 ? "+" : ""), top);
+        }
+
+        if (outputWorkbook != null && handleProperties.getDiagnostics().isIssueSheet() && !issues.isEmpty()) {
+            if (outputWorkbook.getSheet(ISSUE_SHEET_NAME) != null) {
+                log.warn("输出Workbook中已存在Sheet: '{}'，不再附加问题列表", ISSUE_SHEET_NAME);
+                return;
+            }
+            ExcelUtils.createIssueSheet(outputWorkbook, ISSUE_SHEET_NAME, issues, diagnostics.getDropped());
+        }
+    }
+
+    /**
+     * 关闭输出 Workbook，SXSSF 模式下同时删除临时文件。
+     *
+     * @param outputWorkbook 输出 Workbook
+     */
+    public void closeOutputWorkbook(Workbook outputWorkbook) {
+        if (outputWorkbook instanceof SXSSFWorkbook sxssfWorkbook) {
+            sxssfWorkbook.dispose();
+        }
+        try {
+            outputWorkbook.close();
+        } catch (IOException e) {
+            log.warn("关闭输出Workbook失败", e);
+        }
+    }
+
+    /**
+     * 根据配置创建输出 Workbook。
+     * SXSSF 模式下只在内存中保留最近的若干行，其余行刷写到临时文件，
+     * 模板表头由 copySheet 最先写入，因此仍位于输出 Sheet 的开头。
+     *
+     * @return 输出 Workbook
+     */
+    private Workbook createOutputWorkbook() {
+        HandleProperties.Output output = handleProperties.getOutput();
+        if (output.getMode() == HandleProperties.OutputMode.SXSSF) {
+            return new SXSSFWorkbook(null, output.getRowWindowSize(), output.isCompressTempFiles());
+        }
+        return new XSSFWorkbook();
+    }
+}
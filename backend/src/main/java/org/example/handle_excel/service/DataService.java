@@ -1,22 +1,26 @@
 package org.example.handle_excel.service;
 
+import org.example.handle_excel.config.HandleProperties;
 import org.example.handle_excel.mapper.ClassMapper;
 import org.example.handle_excel.mapper.CourseMapper;
 import org.example.handle_excel.mapper.TeacherMapper;
 import org.example.handle_excel.bean.Class;
 import org.example.handle_excel.bean.Course;
 import org.example.handle_excel.bean.Teacher;
+import org.example.handle_excel.model.ReferenceFilter;
 import org.example.handle_excel.utils.SymbolUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.function.Function;
 @SuppressWarnings("all")
 
 /**
  * 数据服务类，用于从数据库中获取课程、班级、教师数据并进行处理。
- * 通过调用 Mapper 接口获取数据，并构建便于后续处理的映射结构。
+ * 通过调用 Mapper 接口逐行（流式结果集）或逐页（按主键分页）读取数据，边读取边构建便于后续处理的映射结构，
+ * 不会先把整张表读成列表；可按校区和状态过滤，停用的记录不会读入内存。
  */
 @Service
 public class DataService {
@@ -30,58 +34,122 @@ public class DataService {
     @Autowired
     private TeacherMapper teacherMapper; // 教师 Mapper
 
+    @Autowired
+    private HandleProperties handleProperties; // 转换相关配置，包含基础数据的读取方式和过滤条件
+
     /**
-     * 获取所有课程并创建基础课程名称到课程列表的映射。
+     * 读取所有课程并创建基础课程名称到课程列表的映射。
      * 处理步骤：
-     * 1. 调用 courseMapper 获取所有课程。
-     * 2. 使用 Stream API 遍历每个课程，设置课程备注。
+     * 1. 按配置的读取方式逐行或逐页读取课程，不在内存中保留整张表的列表。
+     * 2. 为每个课程设置课程备注，处理课程名称中的符号。
      * 3. 使用 SymbolUtils 去除课程名称中的符号，并按去除后的名称进行分组。
      *
      * @return 基础课程名称到课程列表的映射
      */
     public Map<String, List<Course>> getCourseMap() {
-        List<Course> courseList = courseMapper.getAllCourses(); // 获取所有课程
-        return courseList.stream()
-                // 为每个课程设置备注，处理课程名称中的符号
-                .peek(course -> course.setRemark(SymbolUtils.process(course.getCourName())))
-                // 使用去除符号后的课程名称作为键，将同名的课程收集到一起
-                .collect(Collectors.groupingBy(
-                        course -> SymbolUtils.removeSymbol(course.getCourName())
-                ));
+        ReferenceFilter filter = filter();
+        Map<String, List<Course>> courseMap = new HashMap<>();
+        Consumer<Course> action = course -> {
+            // 为每个课程设置备注，处理课程名称中的符号
+            course.setRemark(SymbolUtils.process(course.getCourName()));
+            // 使用去除符号后的课程名称作为键，将同名的课程收集到一起
+            courseMap.computeIfAbsent(SymbolUtils.removeSymbol(course.getCourName()), key -> new ArrayList<>())
+                    .add(course);
+        };
+        if (isPaged()) {
+            readPages(afterId -> courseMapper.getCoursePage(filter, afterId, pageSize()), Course::getId, action);
+        } else {
+            courseMapper.streamCourses(filter, context -> action.accept(context.getResultObject()));
+        }
+        return courseMap;
     }
 
     /**
-     * 获取所有班级并创建班级名称到班级对象的映射。
-     * 处理步骤：
-     * 1. 调用 classMapper 获取所有班级。
-     * 2. 使用 Stream API 将班级列表转换为 Map，键为班级名称，值为班级对象。
+     * 读取所有班级并创建班级名称到班级对象的映射。
+     * 按配置的读取方式逐行或逐页读取班级，键为班级名称，值为班级对象。
      *
      * @return 班级名称到班级对象的映射
+     * @throws IllegalStateException 存在同名班级
      */
     public Map<String, Class> getClassMap() {
-        List<Class> classList = classMapper.getAllClasses(); // 获取所有班级
-        return classList.stream()
-                .collect(Collectors.toMap(
-                        Class::getClassName, // 班级名称作为键
-                        classEntity -> classEntity // 班级对象作为值
-                ));
+        ReferenceFilter filter = filter();
+        Map<String, Class> classMap = new HashMap<>();
+        Consumer<Class> action = classEntity -> {
+            Class existing = classMap.putIfAbsent(classEntity.getClassName(), classEntity);
+            if (existing != null) {
+                throw new IllegalStateException("班级名称重复: " + classEntity.getClassName()
+                        + "（" + existing.getClassNum() + "、" + classEntity.getClassNum() + "）");
+            }
+        };
+        if (isPaged()) {
+            readPages(afterId -> classMapper.getClassPage(filter, afterId, pageSize()), Class::getId, action);
+        } else {
+            classMapper.streamClasses(filter, context -> action.accept(context.getResultObject()));
+        }
+        return classMap;
     }
 
     /**
-     * 获取所有教师并创建教师姓名到教师列表的映射。
-     * 处理步骤：
-     * 1. 调用 teacherMapper 获取所有教师。
-     * 2. 使用 Stream API 将教师列表转换为 Map，键为教师的姓和名组合，值为教师对象列表。
-     *    这样可以处理同名教师的情况。
+     * 读取所有教师并创建教师姓名到教师列表的映射。
+     * 按配置的读取方式逐行或逐页读取教师，键为教师的姓和名组合，值为教师对象列表，
+     * 这样可以处理同名教师的情况。
      *
      * @return 教师姓名到教师列表的映射
      */
     public Map<String, List<Teacher>> getTeacherMap() {
-        List<Teacher> teacherList = teacherMapper.getAllTeachers(); // 获取所有教师
-        return teacherList.stream()
-                .collect(Collectors.groupingBy(
-                        // 使用教师的姓和名组合作为键，将同名的教师收集到一起
-                        teacher -> teacher.getTrFirstName() + teacher.getTrName()
-                ));
+        Map<String, List<Teacher>> teacherMap = new HashMap<>();
+        // 使用教师的姓和名组合作为键，将同名的教师收集到一起
+        Consumer<Teacher> action = teacher -> teacherMap
+                .computeIfAbsent(teacher.getTrFirstName() + teacher.getTrName(), key -> new ArrayList<>())
+                .add(teacher);
+        if (isPaged()) {
+            readPages(afterId -> teacherMapper.getTeacherPage(afterId, pageSize()), Teacher::getId, action);
+        } else {
+            teacherMapper.streamTeachers(context -> action.accept(context.getResultObject()));
+        }
+        return teacherMap;
+    }
+
+    /**
+     * 获取课程、班级、教师三张表的组合变更签名。
+     * 签名由各表的记录数和最大更新时间组成，只要任一表新增、删除或更新了数据，签名就会变化。
+     *
+     * @return 组合变更签名
+     */
+    public String getSignature() {
+        return courseMapper.getVersion() + "|" + classMapper.getVersion() + "|" + teacherMapper.getVersion();
+    }
+
+    /**
+     * 按主键逐页读取，每页从上一页最后一条记录的主键之后开始，直到某一页少于每页条数。
+     *
+     * @param pageReader 根据上一页最后的主键读取下一页，第一页传入 null
+     * @param idGetter   获取记录主键的方法
+     * @param action     逐条处理记录的回调
+     */
+    private <T> void readPages(Function<Long, List<T>> pageReader, Function<T, Long> idGetter, Consumer<T> action) {
+        int pageSize = pageSize();
+        Long afterId = null;
+        while (true) {
+            List<T> page = pageReader.apply(afterId);
+            page.forEach(action);
+            if (page.size() < pageSize) {
+                return;
+            }
+            afterId = idGetter.apply(page.get(page.size() - 1));
+        }
+    }
+
+    private boolean isPaged() {
+        return handleProperties.getReference().getLoadMode() == HandleProperties.ReferenceLoadMode.PAGED;
+    }
+
+    private int pageSize() {
+        return Math.max(1, handleProperties.getReference().getPageSize());
+    }
+
+    private ReferenceFilter filter() {
+        HandleProperties.Reference config = handleProperties.getReference();
+        return new ReferenceFilter(config.getCampus(), config.getClassStatuses(), config.getCourseStates());
     }
 }
@@ -0,0 +1,229 @@
+package org.example.handle_excel.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.example.handle_excel.config.HandleProperties;
+import org.example.handle_excel.model.IncrementalSession;
+import org.example.handle_excel.model.ReferenceData;
+import org.example.handle_excel.model.SheetSnapshot;
+import org.example.handle_excel.model.Term;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 增量转换服务。
+ * 课表在排课过程中反复修改、反复上传，通常只改动少数单元格。客户端为同一份课表提供一个文档 ID 时，
+ * 每次转换完成后按文档 ID 保存各 Sheet 的快照（表头和每行的指纹及生成的排课结果），下一次转换同一文档时，
+ * 内容没有变化的行直接复用上一次的结果，只有新增或修改的行重新匹配。
+ * 基础数据版本或学期与上一次不同时整个文档重新匹配，表头不同时该 Sheet 重新匹配。
+ * 快照只保存在内存中，所有文档的快照行数、估算的内存和文档数都有上限，超出时按最近最少使用的顺序淘汰，
+ * 超过有效期的快照不再使用。内存上限是从内存预算中划出的独立额度（{@link MemoryAdmission#getSnapshotBudget()}），
+ * 快照不占用转换的预算，保存的快照再多也不会让转换排队或被拒绝。
+ * 记录的指标：
+ * - handle.incremental.rows：增量转换中复用和重新匹配的行数，按 result（reused / processed）区分
+ * - handle.incremental.memory：所有文档快照估算的内存（字节）
+ */
+@Slf4j
+@Service
+public class IncrementalService {
+
+    /**
+     * 文档 ID 的最大长度
+     */
+    public static final int MAX_DOCUMENT_ID_LENGTH = 128;
+
+    /**
+     * 一个文档最近一次转换的快照。
+     *
+     * @param referenceVersion 转换时的基础数据快照版本
+     * @param term             转换时的学期
+     * @param sheets           Sheet 名称到快照的映射
+     * @param rows             各 Sheet 快照的记录条数之和
+     * @param bytes            各 Sheet 快照估算的内存之和（字节）
+     * @param savedAt          保存时间（System.currentTimeMillis）
+     */
+    private record DocumentSnapshot(long referenceVersion, Term term, Map<String, SheetSnapshot> sheets,
+                                    long rows, long bytes, long savedAt) {
+    }
+
+    @Autowired
+    private HandleProperties handleProperties; // 转换相关配置
+
+    @Autowired
+    private MeterRegistry meterRegistry; // 指标注册表
+
+    @Autowired
+    private MemoryAdmission memoryAdmission; // 内存准入控制，提供快照的内存额度
+
+    private final LinkedHashMap<String, DocumentSnapshot> documents = new LinkedHashMap<>(16, 0.75f, true); // 按访问顺序排列的文档快照，由 this 保护
+
+    private long storedRows; // 所有文档快照的记录条数之和，由 this 保护
+
+    private long storedBytes; // 所有文档快照估算的内存之和（字节），由 this 保护
+
+    private Counter reusedRows; // 复用的行数
+
+    private Counter processedRows; // 重新匹配的行数
+
+    /**
+     * 注册指标。
+     */
+    @PostConstruct
+    public void init() {
+        reusedRows = Counter.builder("handle.incremental.rows")
+                .description("增量转换中复用上一次结果的行数")
+                .tag("result", "reused")
+                .register(meterRegistry);
+        processedRows = Counter.builder("handle.incremental.rows")
+                .description("增量转换中重新匹配的行数")
+                .tag("result", "processed")
+                .register(meterRegistry);
+        Gauge.builder("handle.incremental.memory", this, IncrementalService::getStoredBytes)
+                .description("增量转换快照估算的内存")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 开始一次增量转换，取出同一文档上一次转换的快照。
+     * 上一次的快照不存在、已过期，或基础数据版本、学期与本次不同时，本次所有行都重新匹配。
+     *
+     * @param documentId    客户端提供的文档 ID，为空时不使用增量转换
+     * @param referenceData 本次转换使用的基础数据快照
+     * @param term          本次转换的学期
+     * @return 增量转换状态，未启用或未提供文档 ID 时返回 null
+     */
+    public IncrementalSession open(String documentId, ReferenceData referenceData, Term term) {
+        if (!handleProperties.getIncremental().isEnabled() || documentId == null || documentId.isBlank()) {
+            return null;
+        }
+        long expireBefore = System.currentTimeMillis() - handleProperties.getIncremental().getTtl().toMillis();
+        DocumentSnapshot previous;
+        synchronized (this) {
+            previous = documents.get(documentId);
+            if (previous != null && previous.savedAt() < expireBefore) {
+                remove(documentId);
+                previous = null;
+            }
+        }
+        Map<String, SheetSnapshot> previousSheets = Map.of();
+        if (previous == null) {
+            log.debug("文档 '{}' 没有可用的快照，全部重新匹配", documentId);
+        } else if (previous.referenceVersion() != referenceData.version() || previous.term() != term) {
+            log.info("文档 '{}' 的基础数据或学期已变化，全部重新匹配", documentId);
+        } else {
+            previousSheets = previous.sheets();
+        }
+        return new IncrementalSession(documentId, referenceData.version(), term, previousSheets);
+    }
+
+    /**
+     * 转换成功后保存本次转换的快照，替换同一文档上一次的快照；超出文档数、行数或内存上限时淘汰最久未使用的文档。
+     * 单个文档的行数或估算的内存超过上限时不保存，同一文档上一次的快照也不再保留。
+     *
+     * @param session 增量转换状态，为 null 时不保存
+     */
+    public void save(IncrementalSession session) {
+        if (session == null) {
+            return;
+        }
+        HandleProperties.Incremental config = handleProperties.getIncremental();
+        String documentId = session.getDocumentId();
+        Map<String, SheetSnapshot> sheets = Map.copyOf(session.getCurrentSheets());
+        long rows = 0;
+        long bytes = 0;
+        for (SheetSnapshot sheet : sheets.values()) {
+            rows += sheet.size();
+            bytes += sheet.estimatedBytes();
+        }
+
+        // 运行中调小 max-memory 时按新的上限淘汰；额度在启动时已从内存预算中划出，不会超过该额度
+        long maxBytes = Math.min(config.getMaxMemory().toBytes(), memoryAdmission.getSnapshotBudget());
+        boolean store = rows <= config.getMaxRows() && bytes <= maxBytes;
+        synchronized (this) {
+            remove(documentId);
+            if (store) {
+                documents.put(documentId, new DocumentSnapshot(session.getReferenceVersion(), session.getTerm(),
+                        sheets, rows, bytes, System.currentTimeMillis()));
+                storedRows += rows;
+                storedBytes += bytes;
+            }
+            evict(config, maxBytes);
+        }
+        if (!store) {
+            log.info("文档 '{}' 的快照有 {} 行，约 {} KB，超过行数或内存上限，不保存", documentId, rows, bytes / 1024);
+        }
+        reusedRows.increment(session.getReusedRows());
+        processedRows.increment(session.getProcessedRows());
+        log.info("增量转换文档 '{}'：复用 {} 行，重新匹配 {} 行",
+                session.getDocumentId(), session.getReusedRows(), session.getProcessedRows());
+    }
+
+    /**
+     * 当前保存的文档数。
+     *
+     * @return 文档数
+     */
+    public synchronized int getDocumentCount() {
+        return documents.size();
+    }
+
+    /**
+     * 当前保存的所有文档快照的记录条数之和。
+     *
+     * @return 记录条数
+     */
+    public synchronized long getStoredRows() {
+        return storedRows;
+    }
+
+    /**
+     * 当前保存的所有文档快照估算的内存之和。
+     *
+     * @return 估算的内存（字节）
+     */
+    public synchronized long getStoredBytes() {
+        return storedBytes;
+    }
+
+    /**
+     * 按最近最少使用的顺序淘汰文档，直到文档数、行数和估算的内存都不超过上限；最久未使用的文档已过期时也一并淘汰。
+     * 调用方持有 this 的锁。
+     */
+    private void evict(HandleProperties.Incremental config, long maxBytes) {
+        long expireBefore = System.currentTimeMillis() - config.getTtl().toMillis();
+        Iterator<DocumentSnapshot> iterator = documents.values().iterator();
+        while (iterator.hasNext()) {
+            DocumentSnapshot eldest = iterator.next();
+            if (documents.size() > config.getMaxDocuments() || storedRows > config.getMaxRows()
+                    || storedBytes > maxBytes || eldest.savedAt() < expireBefore) {
+                iterator.remove();
+                release(eldest);
+            } else {
+                break;
+            }
+        }
+    }
+
+    /**
+     * 移除一个文档的快照。调用方持有 this 的锁。
+     */
+    private void remove(String documentId) {
+        DocumentSnapshot removed = documents.remove(documentId);
+        if (removed != null) {
+            release(removed);
+        }
+    }
+
+    private void release(DocumentSnapshot snapshot) {
+        storedRows -= snapshot.rows();
+        storedBytes -= snapshot.bytes();
+    }
+}
@@ -0,0 +1,197 @@
+package org.example.handle_excel.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.example.handle_excel.config.HandleProperties;
+import org.example.handle_excel.model.ConversionJob;
+import org.example.handle_excel.model.ConversionProgress;
+import org.example.handle_excel.model.ConversionStage;
+import org.example.handle_excel.model.Term;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 异步转换任务服务。
+ * 提交任务时把上传的文件写入任务目录，交给有界的任务线程池执行；结果文件同样写入任务目录，
+ * 由下载接口读取。线程池的等待队列已满时拒绝新任务。已结束的任务在保留时间过后清理，提交和查询任务时检查。
+ */
+@Slf4j
+@Service
+public class JobService {
+
+    @Autowired
+    private ConversionService conversionService; // 转换服务，生成输出工作簿
+
+    @Autowired
+    private ConversionMetrics conversionMetrics; // 转换指标服务，记录各阶段的耗时和计数
+
+    @Autowired
+    private MemoryAdmission memoryAdmission; // 内存准入控制，转换前预留内存
+
+    @Autowired
+    private HandleProperties handleProperties; // 转换相关配置
+
+    @Autowired
+    @Qualifier("jobExecutor")
+    private ExecutorService jobExecutor; // 执行转换任务的有界线程池
+
+    private final Map<String, ConversionJob> jobs = new ConcurrentHashMap<>(); // 任务 ID 到任务的映射
+
+    private Path spoolDir; // 任务目录
+
+    /**
+     * 启动时创建任务目录，并删除上一次运行留下的上传文件和结果文件。
+     */
+    @PostConstruct
+    public void init() {
+        spoolDir = Paths.get(handleProperties.getJob().getSpoolDir());
+        try {
+            Files.createDirectories(spoolDir);
+            try (Stream<Path> files = Files.list(spoolDir)) {
+                files.forEach(this::deleteQuietly);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("创建任务目录失败: " + spoolDir, e);
+        }
+    }
+
+    /**
+     * 提交转换任务。
+     *
+     * @param file       上传的 Excel 文件
+     * @param term       学期，为 null 时使用配置的默认学期
+     * @param documentId 客户端提供的文档 ID，用于增量转换，为 null 时所有行都重新匹配
+     * @return 已提交的任务
+     * @throws IOException                上传的文件写入任务目录失败
+     * @throws RejectedExecutionException 任务队列已满
+     */
+    public ConversionJob submit(MultipartFile file, Term term, String documentId) throws IOException {
+        purgeExpiredJobs();
+
+        String id = UUID.randomUUID().toString();
+        ConversionJob job = new ConversionJob(id, file.getOriginalFilename(), term, documentId,
+                spoolDir.resolve(id + ".upload"), spoolDir.resolve(id + ".xlsx"),
+                new ConversionProgress(handleProperties.getDiagnostics().getMaxIssues()));
+
+        // 先把上传的文件写入任务目录，请求结束后临时文件会被删除
+        try (InputStream inputStream = file.getInputStream()) {
+            Files.copy(inputStream, job.getInputFile(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        jobs.put(id, job);
+        try {
+            jobExecutor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(id);
+            deleteQuietly(job.getInputFile());
+            throw e;
+        }
+        log.info("提交转换任务: {}，文件: {}", id, job.getFileName());
+        return job;
+    }
+
+    /**
+     * 根据 ID 获取任务，获取前先清理过期的任务。
+     *
+     * @param id 任务 ID
+     * @return 任务，不存在或已被清理时返回 null
+     */
+    public ConversionJob getJob(String id) {
+        purgeExpiredJobs();
+        return jobs.get(id);
+    }
+
+    /**
+     * 执行转换任务，结果先写入临时文件，写完后再重命名为结果文件。
+     * 转换前从内存预算中预留内存，结果写出后归还。
+     *
+     * @param job 任务
+     */
+    private void run(ConversionJob job) {
+        job.start();
+        long startTime = System.nanoTime();
+        long inputBytes = 0;
+        boolean success = false;
+        Path partFile = job.getResultFile().resolveSibling(job.getId() + ".part");
+        try {
+            inputBytes = Files.size(job.getInputFile());
+            // 任务已经在队列中排过队，预算不足时继续等待，不拒绝
+            long cost = memoryAdmission.estimate(new FileSystemResource(job.getInputFile()), inputBytes);
+            try (MemoryAdmission.Reservation reservation = memoryAdmission.reserve(cost)) {
+                // 任务的输入文件已经在磁盘上，xlsx 直接以文件方式打开
+                Workbook outputWorkbook = conversionService.convert(new FileSystemResource(job.getInputFile()),
+                        job.getTerm(), job.getDocumentId(), job.getProgress());
+                long writeStart = System.nanoTime();
+                try (OutputStream outputStream = Files.newOutputStream(partFile)) {
+                    outputWorkbook.write(outputStream);
+                } finally {
+                    conversionService.closeOutputWorkbook(outputWorkbook);
+                    job.getProgress().addStageTime(ConversionStage.WRITE, System.nanoTime() - writeStart);
+                }
+            }
+            Files.move(partFile, job.getResultFile(), StandardCopyOption.REPLACE_EXISTING);
+            job.succeed();
+            success = true;
+            log.info("转换任务完成: {}，处理 {} 行，警告 {} 条，耗时 {} ms", job.getId(),
+                    job.getProgress().getRowsProcessed(), job.getProgress().getWarnings(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        } catch (IOException | InvalidFormatException | RuntimeException e) {
+            log.error("转换任务失败: {}", job.getId(), e);
+            job.fail(e instanceof IllegalArgumentException ? e.getMessage() : "文件处理失败");
+            deleteQuietly(partFile);
+        } finally {
+            if (!job.isFinished()) {
+                // Error（如 OutOfMemoryError）不在上面捕获，同样标记为失败，否则任务一直处于运行中、永远不会被清理
+                job.fail("文件处理失败");
+                deleteQuietly(partFile);
+            }
+            deleteQuietly(job.getInputFile());
+            conversionMetrics.record(ConversionMetrics.SOURCE_JOB, success, job.getProgress(),
+                    System.nanoTime() - startTime, inputBytes);
+        }
+    }
+
+    /**
+     * 清理结束时间超过保留时间的任务及其文件。
+     */
+    private void purgeExpiredJobs() {
+        long expireBefore = System.currentTimeMillis() - handleProperties.getJob().getRetention().toMillis();
+        jobs.values().removeIf(job -> {
+            if (job.isFinished() && job.getFinishTime() < expireBefore) {
+                deleteQuietly(job.getResultFile());
+                log.debug("清理过期任务: {}", job.getId());
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("删除任务文件失败: {}", path, e);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package org.example.handle_excel.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.example.handle_excel.config.HandleProperties;
+import org.example.handle_excel.model.InputFormat;
+import org.example.handle_excel.utils.ZipEntrySizes;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 转换的内存准入控制。
+ * 每次转换开始前按上传文件的大小和 xlsx 中各文件解压后的大小估算内存占用，从共享的内存预算中预留，
+ * 转换结果写出后归还。预算以 KB 为单位保存在公平的信号量中，预算不足的请求按到达顺序排队，
+ * 不会因为大文件一直等不到足够的预算而饿死。单次估算超过整个预算时按整个预算预留，即独占执行。
+ * 启用增量转换时，从总预算中划出增量转换快照的额度（handle.incremental.max-memory，最多为总预算的一半），
+ * 其余为转换的预算；快照只在自己的额度内保存和淘汰，长期保存的快照不会占用转换的预算。
+ * 记录的指标：
+ * - handle.admission.reserved：当前已预留的内存（字节）
+ * - handle.admission.waiting：正在等待预算的转换数
+ * - handle.admission.rejected：等待超时被拒绝的请求数
+ */
+@Slf4j
+@Service
+public class MemoryAdmission {
+
+    private static final Reservation NONE = new Reservation(null, 0); // 未启用时返回的空预留
+
+    @Autowired
+    private HandleProperties handleProperties; // 转换相关配置
+
+    @Autowired
+    private MeterRegistry meterRegistry; // 指标注册表
+
+    private Semaphore budget; // 剩余的内存预算（KB）
+
+    private int totalPermits; // 转换的内存预算总量（KB）
+
+    private long snapshotBudget; // 增量转换快照的额度（字节）
+
+    private Counter rejected; // 被拒绝的请求数
+
+    /**
+     * 按配置初始化内存预算并注册指标，未配置预算时使用最大堆内存的一半；启用增量转换时先划出快照的额度。
+     */
+    @PostConstruct
+    public void init() {
+        HandleProperties.Admission config = handleProperties.getAdmission();
+        long budgetBytes = config.getBudget() != null
+                ? config.getBudget().toBytes() : Runtime.getRuntime().maxMemory() / 2;
+        HandleProperties.Incremental incremental = handleProperties.getIncremental();
+        long maxSnapshotBytes = incremental.isEnabled() ? incremental.getMaxMemory().toBytes() : 0;
+        if (config.isEnabled()) {
+            snapshotBudget = Math.min(maxSnapshotBytes, budgetBytes / 2);
+            budgetBytes -= snapshotBudget;
+        } else {
+            snapshotBudget = maxSnapshotBytes;
+        }
+        totalPermits = (int) Math.max(1, Math.min(Integer.MAX_VALUE, budgetBytes / 1024));
+        budget = new Semaphore(totalPermits, true);
+
+        Gauge.builder("handle.admission.reserved", () -> (totalPermits - budget.availablePermits()) * 1024L)
+                .description("已预留的内存")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("handle.admission.waiting", budget::getQueueLength)
+                .description("正在等待内存预算的转换数")
+                .register(meterRegistry);
+        rejected = Counter.builder("handle.admission.rejected")
+                .description("内存预算不足被拒绝的请求数")
+                .register(meterRegistry);
+        if (config.isEnabled()) {
+            log.info("转换内存预算: {} MB，增量转换快照额度: {} MB", totalPermits / 1024, snapshotBudget / 1024 / 1024);
+        }
+    }
+
+    /**
+     * 增量转换快照的额度，所有文档快照估算的内存之和不超过该值。
+     *
+     * @return 额度（字节），未启用增量转换时为 0
+     */
+    public long getSnapshotBudget() {
+        return snapshotBudget;
+    }
+
+    /**
+     * 估算转换一个文件占用的内存：固定开销 + 内存中的上传文件副本 + 解压后的输入大小 × 读取方式对应的系数。
+     * 磁盘上的文件和超过临时文件阈值的上传文件不占用堆内存，不计文件大小。
+     * xlsx 的解压后大小从中央目录读取，读取失败时按配置的压缩比估算；xls 和 csv 不压缩，解压后大小即文件大小。
+     * 无法识别的格式只计固定开销和文件大小，转换时会被拒绝。
+     *
+     * @param source 上传文件的副本（内存中或临时文件）或磁盘上的输入文件，可以多次打开；
+     *               不直接使用 MultipartFile，避免再读一遍上传内容
+     * @param size   文件大小（字节）
+     * @return 估算的内存占用（字节）
+     * @throws IOException 文件读取失败
+     */
+    public long estimate(Resource source, long size) throws IOException {
+        HandleProperties.Admission config = handleProperties.getAdmission();
+        boolean inMemory = !source.isFile() && size <= handleProperties.getInput().getSpillThreshold().toBytes();
+        long fixed = config.getBaseCost().toBytes() + (inMemory ? size : 0);
+        InputFormat format;
+        try (InputStream input = FileMagic.prepareToCheckMagic(source.getInputStream())) {
+            format = InputFormat.detect(input);
+        } catch (IllegalArgumentException e) {
+            return fixed;
+        }
+
+        long inflatedSize = size;
+        if (format == InputFormat.XLSX) {
+            inflatedSize = ZipEntrySizes.totalUncompressedSize(source, size);
+            if (inflatedSize < 0) {
+                inflatedSize = (long) (size * config.getCompressionRatio());
+            }
+        }
+        boolean dom = format != InputFormat.CSV
+                && handleProperties.getInput().getMode() == HandleProperties.InputMode.DOM;
+        return fixed + (long) (inflatedSize * (dom ? config.getDomFactor() : config.getStreamingFactor()));
+    }
+
+    /**
+     * 预留内存，预算不足时最多等待配置的时间，用于同步请求。
+     *
+     * @param bytes 估算的内存占用（字节）
+     * @return 预留，转换结果写出后关闭
+     * @throws RejectedExecutionException 等待超时或线程被中断
+     */
+    public Reservation tryReserve(long bytes) {
+        return reserve(bytes, handleProperties.getAdmission().getMaxWait());
+    }
+
+    /**
+     * 预留内存，预算不足时一直等待，用于已经在任务队列中排队的异步任务。
+     *
+     * @param bytes 估算的内存占用（字节）
+     * @return 预留，转换结果写出后关闭
+     * @throws RejectedExecutionException 线程被中断
+     */
+    public Reservation reserve(long bytes) {
+        return reserve(bytes, null);
+    }
+
+    /**
+     * 预算足够时立即预留内存，不等待，也不计入被拒绝的请求数。
+     * 用于持有其他预留的调用方：等待期间其他预留无法归还时，改为先归还再重试，避免互相等待。
+     *
+     * @param bytes 估算的内存占用（字节）
+     * @return 预留；预算不足或有其他转换在排队时返回 null
+     */
+    public Reservation reserveIfAvailable(long bytes) {
+        if (!handleProperties.getAdmission().isEnabled()) {
+            return NONE;
+        }
+        int permits = (int) Math.max(1, Math.min(totalPermits, (bytes + 1023) / 1024));
+        try {
+            // 带超时的 tryAcquire 遵守公平顺序，不插队到排队的转换前面
+            if (!budget.tryAcquire(permits, 0, TimeUnit.NANOSECONDS)) {
+                return null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        log.debug("预留内存 {} KB，剩余 {} KB", permits, budget.availablePermits());
+        return new Reservation(budget, permits);
+    }
+
+    /**
+     * 从预算中预留内存。
+     *
+     * @param bytes   估算的内存占用（字节）
+     * @param maxWait 最长等待时间，为 null 时一直等待
+     * @return 预留
+     * @throws RejectedExecutionException 等待超时或线程被中断
+     */
+    private Reservation reserve(long bytes, Duration maxWait) {
+        if (!handleProperties.getAdmission().isEnabled()) {
+            return NONE;
+        }
+        int permits = (int) Math.max(1, Math.min(totalPermits, (bytes + 1023) / 1024));
+        try {
+            if (maxWait == null) {
+                budget.acquire(permits);
+            } else if (!budget.tryAcquire(permits, maxWait.toNanos(), TimeUnit.NANOSECONDS)) {
+                rejected.increment();
+                log.warn("内存预算不足，拒绝转换: 需要 {} MB，剩余 {} MB", permits / 1024, budget.availablePermits() / 1024);
+                throw new RejectedExecutionException("内存预算不足");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("等待内存预算时被中断", e);
+        }
+        log.debug("预留内存 {} KB，剩余 {} KB", permits, budget.availablePermits());
+        return new Reservation(budget, permits);
+    }
+
+    /**
+     * 一次内存预留，关闭时把预留的内存归还给预算。
+     * 可以重复关闭，只有第一次生效，便于在各个结束路径上都调用。
+     */
+    public static final class Reservation implements AutoCloseable {
+
+        private final Semaphore budget; // 预留来源的预算，未启用时为 null
+
+        private final int permits; // 预留的内存（KB）
+
+        private final AtomicBoolean closed = new AtomicBoolean(); // 是否已归还
+
+        private Reservation(Semaphore budget, int permits) {
+            this.budget = budget;
+            this.permits = permits;
+        }
+
+        @Override
+        public void close() {
+            if (budget != null && closed.compareAndSet(false, true)) {
+                budget.release(permits);
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.example.handle_excel.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.handle_excel.config.HandleProperties;
+import org.example.handle_excel.model.ReferenceData;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Objects;
+
+/**
+ * 基础数据缓存服务，位于 DataService 之前，缓存课程、班级、教师映射的不可变快照。
+ * 快照在配置的有效期内直接复用；过期后如果启用了变更检查，先查询各表的变更签名，
+ * 签名未变化时只延长有效期，变化时才重新加载三张表。
+ */
+@Slf4j
+@Service
+public class ReferenceDataService {
+
+    @Autowired
+    private DataService dataService; // 数据服务，用于从数据库加载基础数据
+
+    @Autowired
+    private HandleProperties handleProperties; // 转换相关配置
+
+    private volatile ReferenceData referenceData; // 当前缓存的快照
+
+    private volatile long expireTime; // 快照的过期时间
+
+    private long version; // 最近一次加载的版本号
+
+    /**
+     * 获取基础数据快照，首次调用或缓存过期时加载。
+     *
+     * @return 基础数据快照
+     */
+    public ReferenceData getReferenceData() {
+        ReferenceData current = referenceData;
+        if (current != null && System.currentTimeMillis() < expireTime) {
+            return current;
+        }
+        synchronized (this) {
+            // 其他线程可能已经完成了加载
+            if (referenceData != null && System.currentTimeMillis() < expireTime) {
+                return referenceData;
+            }
+            if (referenceData != null && handleProperties.getReference().isChangeCheck()) {
+                String signature = dataService.getSignature();
+                if (Objects.equals(signature, referenceData.signature())) {
+                    log.debug("基础数据未变化，延长缓存有效期，版本: {}", referenceData.version());
+                    expireTime = System.currentTimeMillis() + handleProperties.getReference().getTtl().toMillis();
+                    return referenceData;
+                }
+                log.info("基础数据已变化，重新加载");
+            }
+            return load();
+        }
+    }
+
+    /**
+     * 立即重新加载基础数据，不论缓存是否过期。
+     *
+     * @return 重新加载后的基础数据快照
+     */
+    public synchronized ReferenceData refresh() {
+        log.info("手动刷新基础数据");
+        return load();
+    }
+
+    /**
+     * 从数据库加载三张表并替换当前快照。
+     * 先读取签名再读取数据，加载期间发生的变更会在下一次检查时被发现。
+     *
+     * @return 新的基础数据快照
+     */
+    private ReferenceData load() {
+        long start = System.currentTimeMillis();
+        String signature = handleProperties.getReference().isChangeCheck() ? dataService.getSignature() : null;
+        ReferenceData data = ReferenceData.of(dataService.getCourseMap(), dataService.getClassMap(),
+                dataService.getTeacherMap(), signature, ++version);
+
+        referenceData = data;
+        expireTime = System.currentTimeMillis() + handleProperties.getReference().getTtl().toMillis();
+        log.info("基础数据加载完成，版本: {}，课程 {} 种，班级 {} 个，教师 {} 个，耗时 {} ms", data.version(),
+                data.courseMap().size(), data.classMap().size(), data.teacherMap().size(),
+                System.currentTimeMillis() - start);
+        return data;
+    }
+}
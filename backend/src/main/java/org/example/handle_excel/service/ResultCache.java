@@ -0,0 +1,342 @@
+package org.example.handle_excel.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.example.handle_excel.config.HandleProperties;
+import org.example.handle_excel.model.OutputFormat;
+import org.example.handle_excel.model.Term;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * 转换结果缓存。
+ * 同一份课表在基础数据和模板都没有变化时，转换结果完全相同，重复上传时直接返回上一次的结果文件。
+ * 缓存键由上传文件内容的 SHA-256、基础数据快照版本、模板版本、学期、结果格式以及影响输出内容的配置组成，
+ * 基础数据或模板重新加载后旧的结果不会再被命中，随后按最近最少使用的顺序淘汰。
+ * 结果文件保存在缓存目录中，内存中只保存索引；总大小和条数都有上限。索引不持久化，启动时清空缓存目录。
+ */
+@Slf4j
+@Service
+public class ResultCache {
+
+    /**
+     * 写出结果的回调，用于在写入响应的同时写入缓存文件。
+     */
+    public interface ResultWriter {
+        /**
+         * 把结果写入输出流。
+         *
+         * @param outputStream 输出流
+         * @throws IOException 写出失败
+         */
+        void write(OutputStream outputStream) throws IOException;
+    }
+
+    /**
+     * 缓存项。
+     *
+     * @param file 结果文件
+     * @param size 文件大小（字节）
+     */
+    private record Entry(Path file, long size) {
+    }
+
+    @Autowired
+    private HandleProperties handleProperties; // 转换相关配置
+
+    @Autowired
+    private ReferenceDataService referenceDataService; // 基础数据缓存服务，提供快照版本
+
+    @Autowired
+    private TemplateService templateService; // 模板服务，提供模板版本
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true); // 按访问顺序排列的缓存项
+
+    private long totalSize; // 所有结果文件的总大小（字节）
+
+    private Path cacheDir; // 缓存目录
+
+    /**
+     * 启动时创建缓存目录，并删除上一次运行留下的结果文件。
+     */
+    @PostConstruct
+    public void init() {
+        if (!isEnabled()) {
+            return;
+        }
+        cacheDir = Paths.get(handleProperties.getCache().getDir());
+        try {
+            Files.createDirectories(cacheDir);
+            try (Stream<Path> files = Files.list(cacheDir)) {
+                files.forEach(this::deleteQuietly);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("创建缓存目录失败: " + cacheDir, e);
+        }
+    }
+
+    /**
+     * 是否启用结果缓存。
+     *
+     * @return 是否启用
+     */
+    public boolean isEnabled() {
+        return handleProperties.getCache().isEnabled();
+    }
+
+    /**
+     * 创建计算上传文件内容哈希的摘要对象，调用方在读取上传文件时同时更新摘要。
+     *
+     * @return SHA-256 摘要对象
+     */
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("当前运行环境不支持 SHA-256", e);
+        }
+    }
+
+    /**
+     * 生成缓存键。
+     * 转换过程中会再次获取基础数据和模板，如果在此期间重新加载，结果会以旧版本的键保存，
+     * 之后的请求使用新版本的键，不会命中这个结果。
+     *
+     * @param contentHash 上传文件内容的 SHA-256
+     * @param term        学期，为 null 时使用配置的默认学期
+     * @param format      结果的格式
+     * @return 缓存键，可直接用作文件名
+     */
+    public String key(byte[] contentHash, Term term, OutputFormat format) {
+        Term effectiveTerm = term != null ? term : handleProperties.getTerm();
+        return HexFormat.of().formatHex(contentHash)
+                + "-" + referenceDataService.getReferenceData().version()
+                + "-" + templateService.getTemplate().version()
+                + "-" + effectiveTerm.name()
+                + (format == OutputFormat.XLSX && handleProperties.getDiagnostics().isIssueSheet() ? "-issues" : "")
+                + "." + format.getExtension();
+    }
+
+    /**
+     * 打开缓存的结果文件。
+     *
+     * @param key 缓存键
+     * @return 结果文件的输入流，未命中时返回 null；调用方读取完后关闭
+     */
+    public InputStream open(String key) {
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            try {
+                // 在锁内打开文件，避免打开前被淘汰删除；已打开的文件被删除后仍可读取
+                return Files.newInputStream(entry.file());
+            } catch (IOException e) {
+                log.warn("读取缓存的结果文件失败: {}", entry.file(), e);
+                entries.remove(key);
+                totalSize -= entry.size();
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 写出结果，同时写入缓存文件；写出成功后以指定的键保存。
+     * 缓存文件写入失败只记录日志，不影响写出。
+     *
+     * @param key          缓存键
+     * @param outputStream 结果的输出流，如响应输出流
+     * @param writer       写出结果的回调
+     * @throws IOException 写出失败，此时不保存缓存
+     */
+    public void write(String key, OutputStream outputStream, ResultWriter writer) throws IOException {
+        Path tempFile = null;
+        OutputStream cacheStream;
+        try {
+            tempFile = Files.createTempFile(cacheDir, "result-", ".part");
+            cacheStream = new BufferedOutputStream(Files.newOutputStream(tempFile));
+        } catch (IOException e) {
+            log.warn("创建缓存文件失败，本次结果不缓存", e);
+            if (tempFile != null) {
+                deleteQuietly(tempFile);
+            }
+            writer.write(outputStream);
+            return;
+        }
+
+        CachingOutputStream cachingStream = new CachingOutputStream(outputStream, cacheStream);
+        try {
+            writer.write(cachingStream);
+        } catch (IOException | RuntimeException e) {
+            cachingStream.closeCache();
+            deleteQuietly(tempFile);
+            throw e;
+        }
+        if (cachingStream.closeCache()) {
+            put(key, tempFile);
+        } else {
+            deleteQuietly(tempFile);
+        }
+    }
+
+    /**
+     * 把写好的结果文件加入缓存，超出总大小或条数上限时淘汰最久未使用的结果。
+     *
+     * @param key      缓存键
+     * @param tempFile 写好的结果文件
+     */
+    private void put(String key, Path tempFile) {
+        HandleProperties.Cache config = handleProperties.getCache();
+        Path file = cacheDir.resolve(key);
+        long size;
+        try {
+            size = Files.size(tempFile);
+            if (size > config.getMaxSize().toBytes()) {
+                log.debug("结果文件超过缓存总大小上限，不缓存: {} 字节", size);
+                deleteQuietly(tempFile);
+                return;
+            }
+        } catch (IOException e) {
+            log.warn("读取缓存文件大小失败，本次结果不缓存", e);
+            deleteQuietly(tempFile);
+            return;
+        }
+
+        List<Path> evicted = new ArrayList<>();
+        synchronized (this) {
+            if (entries.containsKey(key)) {
+                // 同一份文件同时转换了多次，保留先写完的结果
+                evicted.add(tempFile);
+            } else {
+                try {
+                    Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException e) {
+                    log.warn("保存缓存文件失败，本次结果不缓存", e);
+                    deleteQuietly(tempFile);
+                    return;
+                }
+                entries.put(key, new Entry(file, size));
+                totalSize += size;
+
+                Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+                while ((totalSize > config.getMaxSize().toBytes() || entries.size() > config.getMaxEntries())
+                        && iterator.hasNext()) {
+                    Entry eldest = iterator.next().getValue();
+                    iterator.remove();
+                    totalSize -= eldest.size();
+                    evicted.add(eldest.file());
+                }
+            }
+        }
+        // 删除文件不需要持有锁
+        evicted.forEach(this::deleteQuietly);
+        log.debug("缓存转换结果: {}，淘汰 {} 个", key, evicted.size());
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("删除缓存文件失败: {}", path, e);
+        }
+    }
+
+    /**
+     * 同时写入目标输出流和缓存文件的输出流。
+     * 缓存文件写入失败后不再写入缓存，目标输出流不受影响；关闭时只刷新目标输出流，由调用方决定何时关闭。
+     */
+    private static class CachingOutputStream extends OutputStream {
+
+        private final OutputStream target; // 目标输出流
+
+        private OutputStream cache; // 缓存文件的输出流，写入失败后为 null
+
+        CachingOutputStream(OutputStream target, OutputStream cache) {
+            this.target = target;
+            this.cache = cache;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            target.write(b);
+            if (cache != null) {
+                try {
+                    cache.write(b);
+                } catch (IOException e) {
+                    abandonCache(e);
+                }
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            target.write(b, off, len);
+            if (cache != null) {
+                try {
+                    cache.write(b, off, len);
+                } catch (IOException e) {
+                    abandonCache(e);
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            target.flush();
+        }
+
+        /**
+         * 关闭缓存文件的输出流。
+         *
+         * @return 缓存文件是否完整写入
+         */
+        boolean closeCache() {
+            if (cache == null) {
+                return false;
+            }
+            try {
+                cache.close();
+                cache = null;
+                return true;
+            } catch (IOException e) {
+                abandonCache(e);
+                return false;
+            }
+        }
+
+        private void abandonCache(IOException e) {
+            log.warn("写入缓存文件失败，本次结果不缓存", e);
+            try {
+                cache.close();
+            } catch (IOException ignored) {
+                // 已经放弃缓存，关闭失败不影响结果
+            }
+            cache = null;
+        }
+    }
+}
@@ -1,23 +1,48 @@
 package org.example.handle_excel.service;
 
 import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.openxml4j.opc.OPCPackage;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
-import org.example.handle_excel.bean.Class;
-import org.example.handle_excel.bean.Course;
-import org.example.handle_excel.bean.Teacher;
+import org.example.handle_excel.config.HandleProperties;
+import org.example.handle_excel.model.AssignmentTable;
+import org.example.handle_excel.model.ColumnDescriptor;
+import org.example.handle_excel.model.ConversionContext;
+import org.example.handle_excel.model.ConversionProgress;
+import org.example.handle_excel.model.ConversionStage;
+import org.example.handle_excel.model.IncrementalSession;
+import org.example.handle_excel.model.RowListener;
+import org.example.handle_excel.model.SheetSnapshot;
+import org.example.handle_excel.model.TemplateModel;
+import org.example.handle_excel.model.UnmatchedReason;
+import org.example.handle_excel.utils.ExcelStreamReader;
 import org.example.handle_excel.utils.ExcelUtils;
+import org.example.handle_excel.utils.SheetStreamReader;
+import org.example.handle_excel.utils.StyleCache;
+import org.example.handle_excel.writer.AssignmentWriter;
+import org.example.handle_excel.writer.SheetAssignmentWriter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 @SuppressWarnings("all")
 
 /**
  * Sheet 服务类，用于处理整个 Workbook 中的 Sheets。
  * 负责遍历输入 Workbook 的每个 Sheet，复制模板 Sheet 的结构和样式，并调用 ProcessService 处理数据。
+ * 每个 Sheet 先匹配完成，排课结果保存在该 Sheet 的 {@link AssignmentTable} 中，再整表交给写出方式写入输出 Workbook。
+ * 启用并行处理时，流式读取的各 Sheet 在共享的线程池中并行解析和匹配，
+ * 再由调用线程按 Sheet 顺序写入输出 Workbook（POI 的 Workbook 不是线程安全的，完整加载的输入 Workbook 也总是依次处理）。
+ * 增量转换时，内容与上一次上传相同的行直接复用上一次的排课结果，只有新增或修改的行交给 ProcessService 重新匹配。
+ * 模板、基础数据、学期、额外的写出方式和转换进度都由每次转换的 {@link ConversionContext} 提供，各 Sheet 共享同一个上下文。
  */
 @Slf4j
 @Service
@@ -26,68 +51,466 @@ public class SheetService {
     @Autowired
     private ProcessService processService; // 处理服务，用于处理每个 Sheet 的行和列
 
+    @Autowired
+    private HandleProperties handleProperties; // 转换相关配置
+
+    @Autowired
+    @Qualifier("sheetExecutor")
+    private ExecutorService sheetExecutor; // 并行处理 Sheet 的线程池
+
+    /**
+     * 按 Sheet 索引逐行读取输入的接口，由完整加载的 Workbook 或流式读取实现。
+     */
+    private interface SheetReader {
+        void read(int sheetIndex, ExcelStreamReader.RowHandler handler) throws IOException;
+    }
+
     /**
      * 处理输入的 Workbook 中的所有 Sheets，并将结果写入输出 Workbook。
      * 处理步骤：
      * 1. 遍历输入 Workbook 中的每个 Sheet。
      * 2. 查找模板 Workbook 中对应的 Sheet，如果不存在则跳过。
      * 3. 在输出 Workbook 中创建一个新的 Sheet，并复制模板 Sheet 的内容和样式。
-     * 4. 解析输入 Sheet 的表头，获取列索引到年级的映射。
+     * 4. 解析输入 Sheet 的表头，为每一列生成包含年级和班级的列描述。
      * 5. 调用 ProcessService 处理当前 Sheet 的数据，生成新的行到输出 Sheet。
+     * 上下文中有额外的写出方式时，排课结果同时交给该写出方式。
+     * 完整加载的 Workbook 不是线程安全的，不能在多个线程中同时读取，因此总是依次处理各 Sheet，不使用并行处理。
      *
      * @param inputWorkbook    输入的 Workbook，包含用户上传的数据
      * @param outputWorkbook   输出的 Workbook，将生成的数据写入
-     * @param templateWorkbook 模板的 Workbook，提供 Sheet 的结构和样式
-     * @param courseMap        课程映射，键为基础课程名称，值为课程列表
-     * @param classMap         班级映射，键为班级名称，值为班级对象
-     * @param teacherMap       教师映射，键为教师姓名，值为教师对象列表
+     * @param context          转换上下文，提供模板、基础数据、学期、额外的写出方式和转换进度
+     * @throws IOException 并行处理时等待结果被中断，或额外的写出方式写出失败
      */
     public void ProcessSheet(Workbook inputWorkbook,
                              Workbook outputWorkbook,
-                             Workbook templateWorkbook,
-                             Map<String, List<Course>> courseMap,
-                             Map<String, Class> classMap,
-                             Map<String, List<Teacher>> teacherMap) {
+                             ConversionContext context) throws IOException {
         log.info("开始处理工作簿");
 
         // 获取输入 Workbook 中的 Sheet 数量
         int numberOfSheets = inputWorkbook.getNumberOfSheets();
         log.info("输入Workbook包含 {} 个Sheet", numberOfSheets);
 
-        // 遍历每一个 Sheet
+        List<String> sheetNames = new ArrayList<>();
         for (int i = 0; i < numberOfSheets; i++) {
-            Sheet inputSheet = inputWorkbook.getSheetAt(i); // 获取当前输入 Sheet
-            String sheetName = inputSheet.getSheetName(); // 获取 Sheet 名称
-            log.info("处理Sheet: {}", sheetName);
-
-            // 在模板 Workbook 中找到对应的 Sheet
-            Sheet templateSheet = templateWorkbook.getSheet(sheetName);
-            if (templateSheet == null) {
-                // 如果模板中不存在对应的 Sheet，记录警告日志并跳过处理
-                log.warn("模板中未找到Sheet: '{}', 跳过处理", sheetName);
-                continue;
-            }
+            sheetNames.add(inputWorkbook.getSheetAt(i).getSheetName());
+        }
+
+        processSheets(sheetNames, (sheetIndex, handler) -> {
+            Sheet inputSheet = inputWorkbook.getSheetAt(sheetIndex);
+
+            // 获取表格的最后一行索引（0-based）
+            int lastRowNum = inputSheet.getLastRowNum();
+            log.info("Sheet '{}' 有 {} 行数据", inputSheet.getSheetName(), lastRowNum);
 
-            // 在输出 Workbook 中创建一个新的 Sheet，并复制模板 Sheet 的内容和样式
-            Sheet outputSheet = outputWorkbook.createSheet(sheetName);
-            log.debug("创建输出Sheet: {}", sheetName);
-            ExcelUtils.copySheet(templateSheet, outputSheet);
-
-            // 解析输入 Sheet 的表头，获取列索引到年级的映射
-            Row headerRow = inputSheet.getRow(0); // 表头通常在第一行（索引0）
-            if (headerRow == null) {
-                // 如果表头不存在，记录警告日志并跳过处理
-                log.warn("Sheet '{}' 没有表头，跳过处理", sheetName);
-                continue;
+            // 从表头（索引0）开始逐行交给回调处理
+            for (int rowIndex = 0; rowIndex <= lastRowNum; rowIndex++) {
+                Row inputRow = inputSheet.getRow(rowIndex); // 获取当前行
+
+                // 跳过空行
+                if (inputRow == null) {
+                    log.debug("跳过空行: {}", rowIndex);
+                    continue;
+                }
+                handler.row(rowIndex, ExcelUtils.getRowValues(inputRow));
             }
-            Map<Integer, String> gradeMap = ExcelUtils.parseHeader(headerRow); // 解析表头
-            log.debug("解析表头完成，gradeMap: {}", gradeMap);
+        }, false, outputWorkbook, context);
+    }
+
+    /**
+     * 以流式方式处理输入的 xlsx 文件中的所有 Sheets，并将结果写入输出 Workbook。
+     * 处理步骤与 {@link #ProcessSheet(Workbook, Workbook, ConversionContext)} 相同，
+     * 区别在于输入 Sheet 由 SAX 逐行解析，每解析完一行就交给 ProcessService 处理，不会把整个输入工作簿加载到内存。
+     *
+     * @param inputPackage     输入的 xlsx 包，包含用户上传的数据
+     * @param outputWorkbook   输出的 Workbook，将生成的数据写入
+     * @param context          转换上下文
+     * @throws IOException 输入文件读取或解析失败，或额外的写出方式写出失败
+     */
+    public void ProcessSheet(OPCPackage inputPackage,
+                             Workbook outputWorkbook,
+                             ConversionContext context) throws IOException {
+        // 读取共享字符串表、样式表和 Sheet 列表
+        long start = System.nanoTime();
+        ExcelStreamReader reader = new ExcelStreamReader(inputPackage);
+        context.progress().addStageTime(ConversionStage.PARSE, System.nanoTime() - start);
+        ProcessSheet(reader, outputWorkbook, context);
+    }
+
+    /**
+     * 以流式方式处理输入文件中的所有 Sheets，xlsx、xls、csv 的流式读取共用这一流程。
+     * 输出 Workbook 为 null 时不生成输出 Sheet，排课结果只交给上下文中额外的写出方式，如输出 CSV；
+     * 此时仍只处理模板中存在的 Sheet。
+     *
+     * @param reader           输入文件的流式读取工具
+     * @param outputWorkbook   输出的 Workbook，将生成的数据写入；为 null 时不生成输出 Workbook
+     * @param context          转换上下文
+     * @throws IOException 输入文件读取或解析失败，或额外的写出方式写出失败
+     */
+    public void ProcessSheet(SheetStreamReader reader,
+                             Workbook outputWorkbook,
+                             ConversionContext context) throws IOException {
+        log.info("开始流式处理工作簿");
+        processSheets(reader.getSheetNames(), reader::readSheet, true, outputWorkbook, context);
+    }
+
+    /**
+     * 依次或并行处理所有 Sheet。
+     * 输出 Sheet 总是由调用线程按输入 Sheet 的顺序创建和写入；并行处理时只有解析和匹配在线程池中执行。
+     *
+     * @param sheetNames     输入 Sheet 名称，按工作簿中的顺序排列
+     * @param reader         按 Sheet 索引逐行读取输入
+     * @param concurrent     reader 是否可以在多个线程中同时读取不同的 Sheet，为 false 时不使用并行处理
+     * @param outputWorkbook 输出的 Workbook
+     * @param context        转换上下文
+     * @throws IOException 输入文件读取或解析失败
+     */
+    private void processSheets(List<String> sheetNames,
+                               SheetReader reader,
+                               boolean concurrent,
+                               Workbook outputWorkbook,
+                               ConversionContext context) throws IOException {
+        ConversionProgress progress = context.progress();
+        // 同一个输出 Workbook 的所有 Sheet 共用一个样式缓存
+        StyleCache styleCache = outputWorkbook != null ? new StyleCache(outputWorkbook) : null;
+        progress.setSheetCount(sheetNames.size());
 
-            // 调用 ProcessService 处理当前 Sheet 的行和列数据
-            processService.ProcessRow(courseMap, classMap, teacherMap,
-                    inputSheet, sheetName, outputSheet, headerRow, gradeMap);
+        if (concurrent && handleProperties.getParallel().isEnabled() && sheetNames.size() > 1) {
+            processSheetsInParallel(sheetNames, reader, outputWorkbook, styleCache, context);
+        } else {
+            for (int i = 0; i < sheetNames.size(); i++) {
+                String sheetName = sheetNames.get(i);
+                log.info("处理Sheet: {}", sheetName);
 
+                // 模板中不存在对应的 Sheet 时跳过
+                TemplateModel.TemplateSheet templateSheet = findTemplateSheet(sheetName, context.template());
+                if (templateSheet == null) {
+                    progress.sheetDone();
+                    continue;
+                }
+
+                // 创建输出 Sheet 并复制模板，匹配完整个 Sheet 后再写入输出 Sheet
+                Sheet outputSheet = createOutputSheet(templateSheet, outputWorkbook, styleCache, progress);
+                AssignmentTable table = readSheet(reader, i, sheetName, context);
+                writeTable(outputSheet, table, progress);
+                writeExtra(table, context);
+                progress.sheetDone();
+                log.info("Sheet '{}' 处理完成", sheetName);
+            }
+        }
+        if (styleCache != null) {
+            log.info("工作簿处理完成，样式缓存命中 {} 次，未命中 {} 次", styleCache.getHits(), styleCache.getMisses());
+        } else {
             log.info("工作簿处理完成");
         }
     }
+
+    /**
+     * 并行处理所有 Sheet：每个 Sheet 在线程池中解析，生成的排课结果保存在该 Sheet 自己的结果表中；
+     * 调用线程在等待期间创建输出 Sheet 并复制模板，之后按 Sheet 顺序把结果写入输出 Workbook。
+     * 各任务共享同一个上下文，其中会被修改的只有线程安全的转换进度和增量转换状态；各任务只写入各自的结果表。
+     */
+    private void processSheetsInParallel(List<String> sheetNames,
+                                         SheetReader reader,
+                                         Workbook outputWorkbook,
+                                         StyleCache styleCache,
+                                         ConversionContext context) throws IOException {
+        ConversionProgress progress = context.progress();
+        List<String> processedNames = new ArrayList<>();
+        List<Sheet> outputSheets = new ArrayList<>();
+        List<Future<AssignmentTable>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < sheetNames.size(); i++) {
+                String sheetName = sheetNames.get(i);
+
+                // 模板中不存在对应的 Sheet 时跳过
+                TemplateModel.TemplateSheet templateSheet = findTemplateSheet(sheetName, context.template());
+                if (templateSheet == null) {
+                    progress.sheetDone();
+                    continue;
+                }
+
+                int sheetIndex = i;
+                processedNames.add(sheetName);
+                futures.add(sheetExecutor.submit(() -> {
+                    log.info("处理Sheet: {}", sheetName);
+                    AssignmentTable table = readSheet(reader, sheetIndex, sheetName, context);
+                    progress.sheetDone();
+                    return table;
+                }));
+                // 在等待期间创建输出 Sheet 并复制模板
+                outputSheets.add(createOutputSheet(templateSheet, outputWorkbook, styleCache, progress));
+            }
+
+            // 按 Sheet 顺序合并结果，保证输出与顺序处理时一致
+            for (int i = 0; i < futures.size(); i++) {
+                AssignmentTable table = await(futures.get(i));
+                writeTable(outputSheets.get(i), table, progress);
+                writeExtra(table, context);
+                log.info("Sheet '{}' 处理完成", processedNames.get(i));
+            }
+        } finally {
+            // 出现异常时取消尚未完成的任务
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    /**
+     * 逐行读取一个输入 Sheet 并匹配，读取的耗时计入 PARSE 阶段，处理每一行的耗时计入 PROCESS 阶段。
+     *
+     * @param reader     按 Sheet 索引逐行读取输入
+     * @param sheetIndex Sheet 索引
+     * @param sheetName  Sheet 名称
+     * @param context    转换上下文
+     * @return 该 Sheet 的排课结果表
+     * @throws IOException 输入文件读取或解析失败
+     */
+    private AssignmentTable readSheet(SheetReader reader, int sheetIndex, String sheetName,
+                                      ConversionContext context) throws IOException {
+        AssignmentTable table = new AssignmentTable(sheetName, context.dictionary());
+        SheetRowHandler handler = new SheetRowHandler(table, context);
+        long start = System.nanoTime();
+        try {
+            reader.read(sheetIndex, handler);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            context.progress().addStageTime(ConversionStage.PARSE, elapsed - handler.processNanos);
+            context.progress().addStageTime(ConversionStage.PROCESS, handler.processNanos);
+        }
+        if (handler.snapshot != null) {
+            context.session().putSheet(sheetName, handler.snapshot);
+        }
+        return table;
+    }
+
+    /**
+     * 把一个 Sheet 的排课结果写入输出 Sheet，耗时计入 PROCESS 阶段。
+     *
+     * @param outputSheet 输出 Sheet，为 null 时不写出
+     * @param table       排课结果表
+     * @param progress    转换进度
+     * @throws IOException 写出失败
+     */
+    private void writeTable(Sheet outputSheet, AssignmentTable table, ConversionProgress progress)
+            throws IOException {
+        if (outputSheet == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        new SheetAssignmentWriter(outputSheet).write(table);
+        progress.addStageTime(ConversionStage.PROCESS, System.nanoTime() - start);
+    }
+
+    /**
+     * 把一个 Sheet 的排课结果交给上下文中额外的写出方式，耗时计入 WRITE_BACK 阶段。
+     *
+     * @param table   排课结果表
+     * @param context 转换上下文，没有额外的写出方式时不写出
+     * @throws IOException 写出失败
+     */
+    private void writeExtra(AssignmentTable table, ConversionContext context) throws IOException {
+        AssignmentWriter writer = context.extraWriter();
+        if (writer == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        writer.write(table);
+        context.progress().addStageTime(ConversionStage.WRITE_BACK, System.nanoTime() - start);
+    }
+
+    /**
+     * 等待一个 Sheet 的处理结果，并还原任务中抛出的异常。
+     */
+    private AssignmentTable await(Future<AssignmentTable> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待Sheet处理结果时被中断");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * 在模板中查找与输入 Sheet 同名的 Sheet。
+     *
+     * @param sheetName Sheet 名称
+     * @param template  模板模型
+     * @return 模板 Sheet，如果模板中不存在对应的 Sheet 则返回 null
+     */
+    private TemplateModel.TemplateSheet findTemplateSheet(String sheetName, TemplateModel template) {
+        TemplateModel.TemplateSheet templateSheet = template.getSheet(sheetName);
+        if (templateSheet == null) {
+            // 如果模板中不存在对应的 Sheet，记录警告日志并跳过处理
+            log.warn("模板中未找到Sheet: '{}', 跳过处理", sheetName);
+        }
+        return templateSheet;
+    }
+
+    /**
+     * 在输出 Workbook 中创建与模板 Sheet 同名的 Sheet，并复制模板 Sheet 的内容和样式。
+     *
+     * @param templateSheet    模板 Sheet
+     * @param outputWorkbook   输出的 Workbook，为 null 时不创建
+     * @param styleCache       输出 Workbook 的样式缓存
+     * @param progress         转换进度，复制模板的耗时计入 TEMPLATE 阶段
+     * @return 创建的输出 Sheet，输出 Workbook 为 null 时返回 null
+     */
+    private Sheet createOutputSheet(TemplateModel.TemplateSheet templateSheet, Workbook outputWorkbook,
+                                    StyleCache styleCache, ConversionProgress progress) {
+        if (outputWorkbook == null) {
+            return null;
+        }
+        String sheetName = templateSheet.name();
+
+        // 在输出 Workbook 中创建一个新的 Sheet，并复制模板 Sheet 的内容和样式
+        long start = System.nanoTime();
+        Sheet outputSheet = outputWorkbook.createSheet(sheetName);
+        log.debug("创建输出Sheet: {}", sheetName);
+        ExcelUtils.copySheet(templateSheet, outputSheet, styleCache);
+        progress.addStageTime(ConversionStage.TEMPLATE, System.nanoTime() - start);
+        return outputSheet;
+    }
+
+    /**
+     * 一个输入 Sheet 的行处理器：第一行解析为表头，之后的每一行交给 ProcessService 处理。
+     * 增量转换时，表头与上一次相同的 Sheet 中内容没有变化的行直接复制上一次的结果，按新的行号重新记录问题；
+     * 每一行的指纹和结果都记录到本次的快照中。
+     * 每个 Sheet 创建一个实例，只在处理该 Sheet 的线程中使用。
+     */
+    private class SheetRowHandler implements ExcelStreamReader.RowHandler {
+
+        private final AssignmentTable output; // 该 Sheet 的排课结果表
+
+        private final ConversionContext context; // 转换上下文
+
+        private final RowRecorder recorder; // 记录一行匹配成功的单元格和问题，不使用增量转换时为 null
+
+        private ColumnDescriptor[] columns; // 列描述，解析表头后才有值
+
+        private boolean headerMissing; // 是否缺少表头，只记录一次警告
+
+        private SheetSnapshot previous; // 上一次转换中该 Sheet 的快照，表头不同或不存在时为 null
+
+        private SheetSnapshot snapshot; // 本次转换中该 Sheet 的快照，解析表头后才有值
+
+        private long processNanos; // 处理各行的累计耗时（纳秒），不含读取输入的时间
+
+        SheetRowHandler(AssignmentTable output, ConversionContext context) {
+            this.output = output;
+            this.context = context;
+            this.recorder = context.session() != null ? new RowRecorder(context.progress()) : null;
+        }
+
+        @Override
+        public void row(int rowIndex, String[] values) {
+            long start = System.nanoTime();
+            try {
+                processRow(rowIndex, values);
+            } finally {
+                processNanos += System.nanoTime() - start;
+            }
+        }
+
+        private void processRow(int rowIndex, String[] values) {
+            String sheetName = output.getSheetName();
+            ConversionProgress progress = context.progress();
+            if (rowIndex == 0) {
+                // 表头在第一行（索引0），每列的年级和班级只解析一次
+                columns = ExcelUtils.parseHeader(values, context.dictionary());
+                log.debug("解析表头完成，共 {} 列", columns.length);
+                IncrementalSession session = context.session();
+                if (session != null) {
+                    // 表头决定每列的年级和班级，表头变化后上一次的结果都不能复用
+                    long headerFingerprint = SheetSnapshot.fingerprint(values);
+                    previous = session.getPreviousSheet(sheetName);
+                    if (previous != null && previous.getHeaderFingerprint() != headerFingerprint) {
+                        log.info("Sheet '{}' 的表头已变化，全部重新匹配", sheetName);
+                        previous = null;
+                    }
+                    snapshot = new SheetSnapshot(headerFingerprint, output);
+                }
+                return;
+            }
+            if (columns == null) {
+                // 第一行不是表头时整个 Sheet 都不处理，只在第一次遇到时记录警告
+                if (!headerMissing) {
+                    log.warn("Sheet '{}' 没有表头，跳过处理", sheetName);
+                    progress.warning(UnmatchedReason.GRADE, sheetName, "表头", rowIndex + 1, 1);
+                    headerMissing = true;
+                }
+                return;
+            }
+            if (snapshot == null) {
+                processService.ProcessRow(context, columns, output, values, rowIndex, progress);
+                progress.rowProcessed();
+                return;
+            }
+
+            long fingerprint = SheetSnapshot.fingerprint(values);
+            int start = output.size();
+            int reused = previous != null ? previous.find(fingerprint) : -1;
+            if (reused >= 0) {
+                // 内容没有变化的行复制上一次的结果，问题按新的行号重新记录
+                output.addAll(previous.getTable(), previous.getStart(reused), previous.getEnd(reused), rowIndex);
+                for (SheetSnapshot.RowWarning warning : previous.getWarnings(reused)) {
+                    progress.warning(warning.reason(), sheetName, warning.key(), rowIndex + 1, warning.column());
+                }
+                progress.addCellsMatched(previous.getMatched(reused));
+                snapshot.record(fingerprint, start, output.size(), previous.getMatched(reused),
+                        previous.getWarnings(reused));
+                context.session().rowReused();
+            } else {
+                recorder.reset();
+                processService.ProcessRow(context, columns, output, values, rowIndex, recorder);
+                snapshot.record(fingerprint, start, output.size(), recorder.matched, recorder.warnings);
+                context.session().rowProcessed();
+            }
+            progress.rowProcessed();
+        }
+    }
+
+    /**
+     * 增量转换时匹配一行的监听器：记录该行匹配成功的单元格数和问题，同时转发给本次转换的进度，用于生成快照。
+     * 每个 Sheet 一个实例，处理每一行前重置。
+     */
+    private static class RowRecorder implements RowListener {
+
+        private final RowListener delegate; // 本次转换的进度
+
+        private final List<SheetSnapshot.RowWarning> warnings = new ArrayList<>(); // 当前行的问题
+
+        private int matched; // 当前行匹配成功的单元格数
+
+        RowRecorder(RowListener delegate) {
+            this.delegate = delegate;
+        }
+
+        void reset() {
+            warnings.clear();
+            matched = 0;
+        }
+
+        @Override
+        public void cellMatched() {
+            matched++;
+            delegate.cellMatched();
+        }
+
+        @Override
+        public void warning(UnmatchedReason reason, String sheetName, String key, int row, int column) {
+            warnings.add(new SheetSnapshot.RowWarning(reason, key, column));
+            delegate.warning(reason, sheetName, key, row, column);
+        }
+    }
 }
@@ -0,0 +1,192 @@
+package org.example.handle_excel.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.example.handle_excel.config.HandleProperties;
+import org.example.handle_excel.model.TemplateModel;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTBorder;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTFill;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTXf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+/**
+ * 模板服务类，负责解析并缓存模板工作簿。
+ * 模板在启动时解析为不可变的 {@link TemplateModel}，所有请求共享同一个模型；
+ * 获取模板时按配置的间隔检查模板文件的修改时间，文件变化后自动重新解析。
+ */
+@Slf4j
+@Service
+public class TemplateService {
+
+    @Autowired
+    private HandleProperties handleProperties; // 转换相关配置
+
+    @Autowired
+    private ResourceLoader resourceLoader; // 用于按配置的位置加载模板文件
+
+    private volatile TemplateModel template; // 当前使用的模板模型
+
+    private volatile long lastCheckTime; // 上一次检查模板文件的时间
+
+    /**
+     * 启动时解析模板，模板不可用时直接启动失败。
+     */
+    @PostConstruct
+    public void init() {
+        try {
+            reload();
+        } catch (IOException e) {
+            throw new UncheckedIOException("加载模板失败: " + handleProperties.getTemplate().getLocation(), e);
+        }
+    }
+
+    /**
+     * 获取当前的模板模型。
+     * 距上一次检查超过配置的间隔时，检查模板文件是否被修改，修改过则重新解析；
+     * 重新解析失败时记录错误并继续使用旧的模板。
+     *
+     * @return 模板模型
+     */
+    public TemplateModel getTemplate() {
+        long now = System.currentTimeMillis();
+        if (now - lastCheckTime >= handleProperties.getTemplate().getReloadCheckInterval().toMillis()) {
+            synchronized (this) {
+                if (now - lastCheckTime >= handleProperties.getTemplate().getReloadCheckInterval().toMillis()) {
+                    lastCheckTime = now;
+                    try {
+                        if (getTemplateResource().lastModified() != template.version()) {
+                            log.info("模板文件已修改，重新加载");
+                            reload();
+                        }
+                    } catch (IOException e) {
+                        log.error("重新加载模板失败，继续使用旧模板", e);
+                    }
+                }
+            }
+        }
+        return template;
+    }
+
+    /**
+     * 解析模板文件并替换当前的模板模型。
+     *
+     * @throws IOException 模板文件读取或解析失败
+     */
+    private synchronized void reload() throws IOException {
+        Resource resource = getTemplateResource();
+        long version = resource.lastModified();
+        try (InputStream inputStream = resource.getInputStream();
+             XSSFWorkbook workbook = new XSSFWorkbook(inputStream)) {
+            Map<Short, TemplateModel.StyleDescriptor> styles = new HashMap<>(); // 同一样式只生成一次描述
+            Map<String, TemplateModel.TemplateSheet> sheets = new LinkedHashMap<>();
+            for (Sheet sheet : workbook) {
+                sheets.put(sheet.getSheetName(), readSheet(sheet, workbook.getStylesSource(), styles));
+            }
+            template = new TemplateModel(Collections.unmodifiableMap(sheets), version);
+            lastCheckTime = System.currentTimeMillis();
+            log.info("模板加载完成，包含 {} 个Sheet，{} 种样式", sheets.size(), styles.size());
+        }
+    }
+
+    private Resource getTemplateResource() {
+        return resourceLoader.getResource(handleProperties.getTemplate().getLocation());
+    }
+
+    /**
+     * 读取模板 Sheet 的行、单元格、样式、列宽和合并区域。
+     *
+     * @param sheet       模板 Sheet
+     * @param stylesTable 模板的样式表
+     * @param styles      已生成的样式描述，键为样式索引
+     * @return 模板 Sheet 模型
+     */
+    private TemplateModel.TemplateSheet readSheet(Sheet sheet, StylesTable stylesTable,
+                                                  Map<Short, TemplateModel.StyleDescriptor> styles) {
+        List<TemplateModel.TemplateRow> rows = new ArrayList<>();
+        int maxColumn = 0;
+
+        for (int i = 0; i <= sheet.getLastRowNum(); i++) {
+            Row row = sheet.getRow(i);
+            if (row == null) continue; // 跳过空行
+
+            List<TemplateModel.TemplateCell> cells = new ArrayList<>();
+            for (int j = 0; j < row.getLastCellNum(); j++) {
+                Cell cell = row.getCell(j);
+                if (cell == null) continue; // 跳过空单元格
+                XSSFCellStyle style = (XSSFCellStyle) cell.getCellStyle();
+                TemplateModel.StyleDescriptor descriptor = styles.computeIfAbsent(style.getIndex(),
+                        index -> describeStyle(style, stylesTable));
+                cells.add(new TemplateModel.TemplateCell(j, cell.getCellType(), getCellValue(cell), descriptor));
+            }
+            maxColumn = Math.max(maxColumn, row.getLastCellNum());
+
+            // 只记录与默认行高不同的行高
+            short height = row.getHeight() != sheet.getDefaultRowHeight() ? row.getHeight() : -1;
+            rows.add(new TemplateModel.TemplateRow(i, height, List.copyOf(cells)));
+        }
+
+        List<Integer> columnWidths = new ArrayList<>();
+        for (int i = 0; i < maxColumn; i++) {
+            columnWidths.add(sheet.getColumnWidth(i));
+        }
+        List<String> mergedRegions = sheet.getMergedRegions().stream()
+                .map(CellRangeAddress::formatAsString)
+                .toList();
+
+        return new TemplateModel.TemplateSheet(sheet.getSheetName(), List.copyOf(rows),
+                List.copyOf(columnWidths), mergedRegions);
+    }
+
+    /**
+     * 读取单元格的原始值，公式单元格读取公式文本。
+     *
+     * @param cell 单元格
+     * @return 单元格的值，空单元格返回 null
+     */
+    private Object getCellValue(Cell cell) {
+        return switch (cell.getCellType()) {
+            case STRING -> cell.getStringCellValue();
+            case NUMERIC -> cell.getNumericCellValue();
+            case BOOLEAN -> cell.getBooleanCellValue();
+            case FORMULA -> cell.getCellFormula();
+            default -> null;
+        };
+    }
+
+    /**
+     * 生成样式描述，内容与 XSSFCellStyle.cloneStyleFrom 跨工作簿复制时使用的部分一致。
+     *
+     * @param style       模板样式
+     * @param stylesTable 模板的样式表
+     * @return 样式描述
+     */
+    private TemplateModel.StyleDescriptor describeStyle(XSSFCellStyle style, StylesTable stylesTable) {
+        CTXf xf = style.getCoreXf();
+
+        // 与 Excel 一致，缺少 applyFill 属性时视为应用填充
+        CTFill fill = !xf.isSetApplyFill() || xf.getApplyFill()
+                ? stylesTable.getFillAt((int) xf.getFillId()).getCTFill()
+                : CTFill.Factory.newInstance();
+        CTBorder border = xf.getApplyBorder()
+                ? stylesTable.getBorderAt((int) xf.getBorderId()).getCTBorder()
+                : CTBorder.Factory.newInstance();
+
+        return new TemplateModel.StyleDescriptor(xf.toString(), fill.toString(), border.toString(),
+                style.getFont().getCTFont().toString(), style.getDataFormatString());
+    }
+}
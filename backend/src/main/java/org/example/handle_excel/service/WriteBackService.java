@@ -0,0 +1,97 @@
+package org.example.handle_excel.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.example.handle_excel.config.HandleProperties;
+import org.example.handle_excel.model.AssignmentTable;
+import org.example.handle_excel.model.ConversionProgress;
+import org.example.handle_excel.model.ConversionStage;
+import org.example.handle_excel.writer.DatabaseAssignmentWriter;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 排课结果写回服务。
+ * 每次上传转换完成后，在一个数据库事务中把所有 Sheet 的排课记录交给批量执行器，按配置的批大小发送到数据库，
+ * 全部成功后提交；写回失败时回滚，转换失败时不写回，数据库中不会留下半份课表。
+ * 模板和基础数据的加载、输入文件的解析和匹配都在事务之外进行，事务只包含写回，不在转换期间占用数据库连接；
+ * 基础数据缓存未加载时也不会先在事务中绑定普通执行器的 SqlSession，导致批量执行器无法使用。
+ * 批量执行器的 SqlSessionTemplate 不注册为 Bean，避免替换 Mapper 默认使用的 SqlSessionTemplate。
+ */
+@Slf4j
+@Service
+public class WriteBackService {
+
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory; // MyBatis 会话工厂
+
+    @Autowired
+    private PlatformTransactionManager transactionManager; // 事务管理器
+
+    @Autowired
+    private HandleProperties handleProperties; // 转换相关配置
+
+    private SqlSessionTemplate batchSqlSession; // 批量执行器的 SqlSession，在事务中绑定到当前线程
+
+    @PostConstruct
+    public void init() {
+        batchSqlSession = new SqlSessionTemplate(sqlSessionFactory, ExecutorType.BATCH);
+    }
+
+    /**
+     * 是否允许请求写回数据库。
+     *
+     * @return 是否允许
+     */
+    public boolean isEnabled() {
+        return handleProperties.getWriteBack().isEnabled();
+    }
+
+    /**
+     * 在一个事务中写回各 Sheet 的排课结果，发送最后一批记录后提交事务。
+     *
+     * @param tables   各 Sheet 的排课结果表
+     * @param progress 转换进度，写回和提交事务的耗时计入 WRITE_BACK 阶段
+     * @throws IOException 写回失败，事务已回滚
+     */
+    public void write(List<AssignmentTable> tables, ConversionProgress progress) throws IOException {
+        long start = System.nanoTime();
+        TransactionStatus status;
+        try {
+            status = transactionManager.getTransaction(new DefaultTransactionDefinition());
+        } catch (TransactionException e) {
+            throw new IOException("写回数据库失败", e);
+        }
+
+        boolean committed = false;
+        try {
+            DatabaseAssignmentWriter writer = new DatabaseAssignmentWriter(batchSqlSession,
+                    handleProperties.getWriteBack().getBatchSize());
+            for (AssignmentTable table : tables) {
+                writer.write(table);
+            }
+            writer.flush();
+            transactionManager.commit(status);
+            committed = true;
+            log.info("写回数据库完成，共 {} 条排课记录", writer.getWritten());
+        } catch (TransactionException | DataAccessException e) {
+            throw new IOException("写回数据库失败", e);
+        } finally {
+            if (!committed && !status.isCompleted()) {
+                transactionManager.rollback(status);
+            }
+            progress.addStageTime(ConversionStage.WRITE_BACK, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package org.example.handle_excel.utils;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 流式 CSV 读取工具，按 RFC 4180 逐条解析记录，每解析完一条就回调一次，不在内存中保留整个文件。
+ * CSV 只有一个 Sheet，名称由调用方指定，用于匹配模板中的 Sheet。
+ * 编码按以下顺序判断：带 UTF-8 BOM 时为 UTF-8；文件开头的内容是有效的 UTF-8 时为 UTF-8；否则使用指定的备用编码
+ * （Excel 在中文系统中“另存为 CSV”时使用 GBK）。
+ * 只能读取一次。
+ */
+public class CsvStreamReader implements SheetStreamReader {
+
+    private static final int SNIFF_SIZE = 64 * 1024; // 判断编码时检查的字节数
+
+    private final String sheetName; // Sheet 名称
+
+    private final Reader reader; // 解码后的字符流
+
+    private final char[] buffer = new char[8192]; // 读取缓冲区
+
+    private int position; // 缓冲区中下一个字符的位置
+
+    private int limit; // 缓冲区中有效字符的个数
+
+    private boolean consumed; // 是否已经读取过
+
+    /**
+     * 判断输入的编码，不解析内容。
+     *
+     * @param input           CSV 文件内容，由调用方关闭
+     * @param sheetName       Sheet 名称
+     * @param fallbackCharset 不是 UTF-8 时使用的编码
+     * @throws IOException 文件读取失败
+     */
+    public CsvStreamReader(InputStream input, String sheetName, Charset fallbackCharset) throws IOException {
+        this.sheetName = sheetName;
+        BufferedInputStream buffered = input instanceof BufferedInputStream bufferedInput
+                ? bufferedInput : new BufferedInputStream(input);
+        buffered.mark(SNIFF_SIZE);
+        byte[] head = buffered.readNBytes(SNIFF_SIZE);
+        buffered.reset();
+
+        Charset charset;
+        if (head.length >= 3 && (head[0] & 0xFF) == 0xEF && (head[1] & 0xFF) == 0xBB && (head[2] & 0xFF) == 0xBF) {
+            buffered.skipNBytes(3); // 跳过 BOM
+            charset = StandardCharsets.UTF_8;
+        } else {
+            charset = isUtf8(head, head.length < SNIFF_SIZE) ? StandardCharsets.UTF_8 : fallbackCharset;
+        }
+        this.reader = new InputStreamReader(buffered, charset);
+    }
+
+    /**
+     * 判断字节序列是否为有效的 UTF-8。
+     *
+     * @param bytes    字节序列
+     * @param complete 是否为完整的文件内容；不完整时末尾被截断的字符不视为错误
+     * @return 是否为有效的 UTF-8
+     */
+    private static boolean isUtf8(byte[] bytes, boolean complete) {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        return !decoder.decode(ByteBuffer.wrap(bytes), CharBuffer.allocate(bytes.length), complete).isError();
+    }
+
+    @Override
+    public List<String> getSheetNames() {
+        return List.of(sheetName);
+    }
+
+    /**
+     * 逐条解析记录并回调，行索引为记录的序号（0-based），包含换行的字段不会增加行索引。
+     * 空行不回调，但仍占用一个行索引；字段值去掉首尾空白。
+     *
+     * @param sheetIndex Sheet 索引，只能为 0
+     * @param handler    行回调
+     * @throws IOException 文件读取失败
+     */
+    @Override
+    public void readSheet(int sheetIndex, ExcelStreamReader.RowHandler handler) throws IOException {
+        if (sheetIndex != 0) {
+            throw new IndexOutOfBoundsException("CSV 只有一个Sheet: " + sheetIndex);
+        }
+        if (consumed) {
+            throw new IllegalStateException("CSV 只能读取一次");
+        }
+        consumed = true;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false; // 是否在引号内
+        boolean fieldStarted = false; // 当前记录是否已有内容，用于判断空行
+        int rowIndex = 0;
+        int c;
+        while ((c = read()) != -1) {
+            if (quoted) {
+                if (c != '"') {
+                    field.append((char) c);
+                } else if (peek() == '"') {
+                    read(); // 两个连续的引号表示一个引号
+                    field.append('"');
+                } else {
+                    quoted = false;
+                }
+                continue;
+            }
+            switch (c) {
+                case '"' -> {
+                    quoted = true;
+                    fieldStarted = true;
+                }
+                case ',' -> {
+                    fields.add(field.toString().trim());
+                    field.setLength(0);
+                    fieldStarted = true;
+                }
+                case '\r', '\n' -> {
+                    if (c == '\r' && peek() == '\n') {
+                        read();
+                    }
+                    if (fieldStarted || field.length() > 0) {
+                        fields.add(field.toString().trim());
+                        handler.row(rowIndex, fields.toArray(new String[0]));
+                    }
+                    fields.clear();
+                    field.setLength(0);
+                    fieldStarted = false;
+                    rowIndex++;
+                }
+                default -> field.append((char) c);
+            }
+        }
+        // 最后一条记录后可能没有换行
+        if (fieldStarted || field.length() > 0) {
+            fields.add(field.toString().trim());
+            handler.row(rowIndex, fields.toArray(new String[0]));
+        }
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int count = reader.read(buffer);
+        if (count <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = count;
+        return true;
+    }
+}
@@ -0,0 +1,276 @@
+package org.example.handle_excel.utils;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.ooxml.POIXMLTypeLoader;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.apache.xmlbeans.XmlException;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTWorkbookPr;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.WorkbookDocument;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基于 POI 事件模型（XSSFReader + SAX）的流式 Excel 读取工具。
+ * 逐行解析 xlsx 文件中的 Sheet，每解析完一行就回调一次，不会在内存中构建整个工作簿，
+ * 内存占用只与共享字符串表的大小相关。
+ * 单元格的值按单元格类型转换为字符串，与完整加载时 {@link SymbolUtils#getCellValueAsString} 的结果相同，
+ * 不按数字格式格式化：整数不带小数点，日期格式的数值转换为 Date.toString()，布尔值为 true / false，错误值为空字符串。
+ * 共享字符串表和各样式是否为日期格式在创建时读取一次，之后只读；不同的 Sheet 可以在多个线程中同时解析。
+ * 同一个 Sheet 中内容相同的单元格得到的是同一个 String 实例，后续按名称查找教师、课程、班级时，
+ * 每个不同的名称只计算一次哈希值。
+ */
+public class ExcelStreamReader implements SheetStreamReader {
+
+    /**
+     * 行回调接口，由调用方实现具体的处理逻辑。
+     */
+    public interface RowHandler {
+        /**
+         * 解析完一行数据。
+         *
+         * @param rowIndex 行索引（0-based）
+         * @param values   行内各单元格的字符串值，下标为列索引，空单元格为空字符串
+         */
+        void row(int rowIndex, String[] values);
+    }
+
+    private final SharedStrings sharedStrings; // 共享字符串表
+
+    private final boolean[] dateStyles; // 各单元格样式的数字格式是否为日期格式，下标为样式索引
+
+    private final boolean date1904; // 工作簿是否使用 1904 日期系统
+
+    private final List<String> sheetNames = new ArrayList<>(); // 按工作簿中的顺序排列的 Sheet 名称
+
+    private final List<PackagePart> sheetParts = new ArrayList<>(); // 与 sheetNames 一一对应的 Sheet 部件
+
+    /**
+     * 读取工作簿的共享字符串表、日期系统、各样式是否为日期格式和 Sheet 列表，不解析 Sheet 的内容。
+     *
+     * @param inputPackage 已打开的 xlsx 包
+     * @throws IOException 文件读取或解析失败
+     */
+    public ExcelStreamReader(OPCPackage inputPackage) throws IOException {
+        try {
+            XSSFReader reader = new XSSFReader(inputPackage);
+            sharedStrings = new ReadOnlySharedStringsTable(inputPackage);
+            dateStyles = dateStyles(reader.getStylesTable());
+            try (InputStream workbookData = reader.getWorkbookData()) {
+                CTWorkbookPr workbookPr = WorkbookDocument.Factory.parse(workbookData,
+                        POIXMLTypeLoader.DEFAULT_XML_OPTIONS).getWorkbook().getWorkbookPr();
+                date1904 = workbookPr != null && workbookPr.getDate1904();
+            }
+
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                sheets.next().close(); // 只需要 Sheet 部件，内容在 readSheet 中按需读取
+                sheetNames.add(sheets.getSheetName());
+                sheetParts.add(sheets.getSheetPart());
+            }
+        } catch (OpenXML4JException | SAXException | XmlException e) {
+            throw new IOException("解析Excel文件失败", e);
+        }
+    }
+
+    /**
+     * 按 XSSFCell.getCellStyle() 的规则判断各样式的数字格式是否为日期格式，没有样式表时所有数值都不是日期。
+     */
+    private static boolean[] dateStyles(StylesTable styles) {
+        int count = styles == null ? 0 : styles.getNumCellStyles();
+        boolean[] result = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            XSSFCellStyle style = styles.getStyleAt(i);
+            result[i] = style != null && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString());
+        }
+        return result;
+    }
+
+    @Override
+    public List<String> getSheetNames() {
+        return Collections.unmodifiableList(sheetNames);
+    }
+
+    @Override
+    public void readSheet(int sheetIndex, RowHandler handler) throws IOException {
+        try (InputStream sheetStream = sheetParts.get(sheetIndex).getInputStream()) {
+            XMLReader xmlReader = XMLHelper.newXMLReader();
+            xmlReader.setContentHandler(new RowCollector(handler));
+            xmlReader.parse(new InputSource(sheetStream));
+        } catch (SAXException | ParserConfigurationException e) {
+            throw new IOException("解析Excel文件失败", e);
+        }
+    }
+
+    /**
+     * 解析 Sheet XML 中的行和单元格，行结束时回调 RowHandler。
+     * 行缓冲区在行之间复用，只在回调时按实际列数复制一份。
+     * 单元格的值按内容去重，同一个 Sheet 中内容相同的单元格共用一个 String 实例。
+     */
+    private class RowCollector extends DefaultHandler {
+
+        private final RowHandler handler;
+
+        private final Map<String, String> canonical = new HashMap<>(); // 单元格内容到共用实例的映射
+
+        private final StringBuilder text = new StringBuilder(); // 当前单元格的值或内联字符串
+
+        private String[] buffer = new String[64]; // 当前行的单元格缓冲区
+
+        private int rowIndex = -1; // 当前行的索引
+
+        private int lastColumn = -1; // 当前行最后一个非空单元格的列索引
+
+        private int column; // 当前单元格的列索引
+
+        private String type; // 当前单元格的类型（t 属性），数值单元格为 null 或 "n"
+
+        private int styleIndex; // 当前单元格的样式索引，没有 s 属性时为 0
+
+        private boolean formula; // 当前单元格是否为公式
+
+        private boolean hasValue; // 当前单元格是否有值
+
+        private boolean inlineString; // 是否在内联字符串（is 元素）中
+
+        private boolean phonetic; // 是否在内联字符串的注音（rPh 元素）中，注音不属于单元格的值
+
+        private boolean collecting; // 是否在收集 v 或 t 元素的文本
+
+        RowCollector(RowHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            if (uri != null && !uri.equals(XSSFRelation.NS_SPREADSHEETML)) {
+                return;
+            }
+            switch (localName) {
+                case "row" -> {
+                    String r = attributes.getValue("r");
+                    rowIndex = r == null ? rowIndex + 1 : Integer.parseInt(r) - 1;
+                    lastColumn = -1;
+                }
+                case "c" -> {
+                    // 部分文件的单元格没有 r 属性，此时按顺序推算列索引
+                    String r = attributes.getValue("r");
+                    column = r == null ? lastColumn + 1 : new CellReference(r).getCol();
+                    type = attributes.getValue("t");
+                    String s = attributes.getValue("s");
+                    styleIndex = s == null ? 0 : Integer.parseInt(s);
+                    formula = false;
+                    hasValue = false;
+                    text.setLength(0);
+                }
+                case "f" -> formula = true;
+                case "v" -> {
+                    hasValue = true;
+                    collecting = true;
+                    text.setLength(0);
+                }
+                case "is" -> {
+                    hasValue = true;
+                    inlineString = true;
+                    text.setLength(0);
+                }
+                case "rPh" -> phonetic = true;
+                case "t" -> collecting = inlineString && !phonetic;
+                default -> {
+                }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (collecting) {
+                text.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            if (uri != null && !uri.equals(XSSFRelation.NS_SPREADSHEETML)) {
+                return;
+            }
+            switch (localName) {
+                case "v", "t" -> collecting = false;
+                case "rPh" -> phonetic = false;
+                case "is" -> inlineString = false;
+                case "c" -> cell();
+                case "row" -> endRow();
+                default -> {
+                }
+            }
+        }
+
+        private void cell() {
+            String value = value();
+            if (value == null) {
+                return;
+            }
+            if (column >= buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, column + 1));
+            }
+            buffer[column] = canonical.computeIfAbsent(value.trim(), v -> v);
+            lastColumn = Math.max(lastColumn, column);
+        }
+
+        /**
+         * 当前单元格的字符串值，与 XSSFCell 的 getCellValueAsString 结果相同；没有值的单元格返回 null。
+         */
+        private String value() {
+            boolean numeric = type == null || "n".equals(type);
+            if (!hasValue) {
+                // 没有缓存结果的数值公式按 0 处理
+                return formula && numeric ? "0" : null;
+            }
+            if (numeric) {
+                double value = text.isEmpty() ? 0 : Double.parseDouble(text.toString());
+                // 公式的数值结果不按日期处理
+                if (!formula && styleIndex < dateStyles.length && dateStyles[styleIndex]
+                        && DateUtil.isValidExcelDate(value)) {
+                    return SymbolUtils.dateAsString(value, date1904);
+                }
+                return SymbolUtils.numberAsString(value);
+            }
+            return switch (type) {
+                case "s" -> sharedStrings.getItemAt(Integer.parseInt(text.toString())).getString();
+                case "b" -> SymbolUtils.booleanAsString("1".equals(text.toString()));
+                case "e" -> "";
+                default -> text.toString(); // inlineStr、str（字符串公式）
+            };
+        }
+
+        private void endRow() {
+            String[] values = new String[lastColumn + 1];
+            for (int i = 0; i <= lastColumn; i++) {
+                values[i] = buffer[i] == null ? "" : buffer[i];
+            }
+            Arrays.fill(buffer, 0, lastColumn + 1, null);
+            handler.row(rowIndex, values);
+        }
+    }
+}
@@ -1,46 +1,83 @@
 package org.example.handle_excel.utils;
 
 import org.apache.poi.ss.usermodel.*;
-import org.example.handle_excel.bean.Class;
-import org.example.handle_excel.bean.Course;
-import org.example.handle_excel.bean.Teacher;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.example.handle_excel.model.AssignmentTable;
+import org.example.handle_excel.model.BatchResult;
+import org.example.handle_excel.model.ColumnDescriptor;
+import org.example.handle_excel.model.ConversionProgress;
+import org.example.handle_excel.model.Issue;
+import org.example.handle_excel.model.ReferenceDictionary;
+import org.example.handle_excel.model.TemplateModel;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 @SuppressWarnings("all")
 
 /**
  * Excel 工具类，提供辅助方法来处理 Excel 单元格数据和 Sheet 操作。
- * 包括解析表头、复制 Sheet、填充新行数据等功能。
+ * 包括解析表头、复制 Sheet、填充新行数据、生成问题 Sheet 等功能。
  */
 public class ExcelUtils {
+
+    /**
+     * 输出行中的人数上限（固定值）
+     */
+    public static final int CLASS_SIZE_MAX = 60;
+
     /**
-     * 解析表头，提取班级对应的年级信息。
+     * 输出行中的人数下限（固定值）
+     */
+    public static final int CLASS_SIZE_MIN = 30;
+
+    /**
+     * 解析表头，为每一列生成班级列描述。
      * 处理步骤：
      * 1. 遍历表头行的每一列（从第二列开始）。
      * 2. 提取班级名称中的年级信息，假定年级为班级名称的第一个字符。
-     * 3. 构建列索引到年级的映射。
+     * 3. 在基础数据字典中查找班级编号，记录该列的校验状态。
      *
-     * @param headerRow 表头行
-     * @return 列索引到年级的映射，键为列索引，值为年级
+     * @param headerValues 表头行各单元格的字符串值
+     * @param dictionary   基础数据字典，按班级名称查找班级编号
+     * @return 列描述数组，下标为列索引，第一列（课程名称列）为 {@link ColumnDescriptor#MISSING}
      */
-    public static Map<Integer, String> parseHeader(Row headerRow) {
-        Map<Integer, String> gradeMap = new HashMap<>();
-
-        // 获取表头的最后一个单元格索引（0-based）
-        int lastCellNum = headerRow.getLastCellNum();
+    public static ColumnDescriptor[] parseHeader(String[] headerValues, ReferenceDictionary dictionary) {
+        ColumnDescriptor[] columns = new ColumnDescriptor[headerValues.length];
+        if (columns.length > 0) {
+            columns[0] = ColumnDescriptor.MISSING;
+        }
 
         // 从第二列（索引1）开始遍历每一列
-        for (int colIndex = 1; colIndex < lastCellNum; colIndex++) {
-            String classNameWithCode = SymbolUtils.getCellValueAsString(headerRow.getCell(colIndex));
-            if (classNameWithCode != null && !classNameWithCode.isEmpty()) {
-                // 提取班级名称中的年级信息，假定年级为第一个字符
-                String grade = classNameWithCode.substring(0, 1);
-                gradeMap.put(colIndex, grade);
+        for (int colIndex = 1; colIndex < headerValues.length; colIndex++) {
+            String className = headerValues[colIndex];
+            if (className == null || className.isEmpty()) {
+                columns[colIndex] = ColumnDescriptor.MISSING;
+                continue;
             }
+
+            // 提取班级名称中的年级信息，假定年级为第一个字符
+            String grade = className.substring(0, 1);
+            int classId = dictionary.getClassId(className);
+            columns[colIndex] = new ColumnDescriptor(className, grade, classId, classId != ReferenceDictionary.NONE
+                    ? ColumnDescriptor.Status.OK : ColumnDescriptor.Status.CLASS_NOT_FOUND);
         }
 
-        return gradeMap;
+        return columns;
+    }
+
+    /**
+     * 读取一行中所有单元格的字符串值，与流式读取得到的行数据格式保持一致。
+     *
+     * @param row 行
+     * @return 各单元格的字符串值，下标为列索引，空单元格为空字符串
+     */
+    public static String[] getRowValues(Row row) {
+        // 最后一个单元格索引 + 1，行内没有单元格时 POI 返回 -1
+        int lastCellNum = Math.max(row.getLastCellNum(), 0);
+        String[] values = new String[lastCellNum];
+        for (int colIndex = 0; colIndex < lastCellNum; colIndex++) {
+            values[colIndex] = SymbolUtils.getCellValueAsString(row.getCell(colIndex));
+        }
+        return values;
     }
 
     /**
@@ -48,51 +85,64 @@ public class ExcelUtils {
      * 处理步骤：
      * 1. 遍历模板 Sheet 中的每一行。
      * 2. 对于每一行，遍历每个单元格。
-     * 3. 复制单元格的值和样式到输出 Sheet 对应的单元格。
+     * 3. 复制单元格的值和样式到输出 Sheet 对应的单元格，样式通过缓存复用。
+     * 4. 复制列宽和合并单元格区域。
      *
      * @param templateSheet 模板 Sheet
      * @param outputSheet   输出 Sheet
+     * @param styleCache    输出 Workbook 的样式缓存
      */
-    public static void copySheet(Sheet templateSheet, Sheet outputSheet) {
-        // 遍历模板 Sheet 中的每一行
-        for (int i = 0; i <= templateSheet.getLastRowNum(); i++) {
-            Row templateRow = templateSheet.getRow(i); // 获取模板行
-            if (templateRow == null) continue; // 跳过空行
-            Row outputRow = outputSheet.createRow(i); // 在输出 Sheet 中创建对应的行
+    public static void copySheet(TemplateModel.TemplateSheet templateSheet, Sheet outputSheet, StyleCache styleCache) {
+        // 遍历模板 Sheet 中的每一行，模板模型中只包含非空行
+        for (TemplateModel.TemplateRow templateRow : templateSheet.rows()) {
+            Row outputRow = outputSheet.createRow(templateRow.rowNum()); // 在输出 Sheet 中创建对应的行
+            if (templateRow.height() >= 0) {
+                outputRow.setHeight(templateRow.height());
+            }
 
             // 遍历模板行中的每一个单元格
-            for (int j = 0; j < templateRow.getLastCellNum(); j++) {
-                Cell templateCell = templateRow.getCell(j); // 获取模板单元格
-                if (templateCell == null) continue; // 跳过空单元格
-                Cell outputCell = outputRow.createCell(j); // 在输出行中创建对应的单元格
-                copyCell(templateCell, outputCell); // 复制单元格内容和样式
+            for (TemplateModel.TemplateCell templateCell : templateRow.cells()) {
+                Cell outputCell = outputRow.createCell(templateCell.column()); // 在输出行中创建对应的单元格
+                copyCell(templateCell, outputCell, styleCache); // 复制单元格内容和样式
             }
         }
+
+        // 复制列宽
+        List<Integer> columnWidths = templateSheet.columnWidths();
+        for (int i = 0; i < columnWidths.size(); i++) {
+            outputSheet.setColumnWidth(i, columnWidths.get(i));
+        }
+
+        // 复制合并单元格区域
+        for (String mergedRegion : templateSheet.mergedRegions()) {
+            outputSheet.addMergedRegion(CellRangeAddress.valueOf(mergedRegion));
+        }
     }
 
     /**
      * 复制单元格内容和样式。
      * 处理步骤：
      * 1. 根据模板单元格的类型，复制其值到输出单元格。
-     * 2. 复制模板单元格的样式到输出单元格。
+     * 2. 复制模板单元格的样式到输出单元格，同一模板样式只创建一次。
      *
      * @param templateCell 模板单元格
      * @param outputCell   输出单元格
+     * @param styleCache   输出 Workbook 的样式缓存
      */
-    private static void copyCell(Cell templateCell, Cell outputCell) {
+    private static void copyCell(TemplateModel.TemplateCell templateCell, Cell outputCell, StyleCache styleCache) {
         // 复制单元格值
-        switch (templateCell.getCellType()) {
+        switch (templateCell.type()) {
             case STRING:
-                outputCell.setCellValue(templateCell.getStringCellValue());
+                outputCell.setCellValue((String) templateCell.value());
                 break;
             case NUMERIC:
-                outputCell.setCellValue(templateCell.getNumericCellValue());
+                outputCell.setCellValue((Double) templateCell.value());
                 break;
             case BOOLEAN:
-                outputCell.setCellValue(templateCell.getBooleanCellValue());
+                outputCell.setCellValue((Boolean) templateCell.value());
                 break;
             case FORMULA:
-                outputCell.setCellFormula(templateCell.getCellFormula());
+                outputCell.setCellFormula((String) templateCell.value());
                 break;
             case BLANK:
                 outputCell.setBlank();
@@ -103,56 +153,126 @@ public class ExcelUtils {
         }
 
         // 复制单元格样式
-        CellStyle newStyle = outputCell.getSheet().getWorkbook().createCellStyle();
-        newStyle.cloneStyleFrom(templateCell.getCellStyle());
-        outputCell.setCellStyle(newStyle);
+        outputCell.setCellStyle(styleCache.get(templateCell.style()));
     }
 
     /**
      * 填充新行的数据。
      * 处理步骤：
-     * 1. 根据教师、课程和班级对象，填充新行的各个单元格。
+     * 1. 根据排课结果中的教师、课程和班级，填充新行的各个单元格。
      * 2. 设置固定值，如人数上限和下限。
-     * 3. 处理可能为空的日期字段。
+     * 3. 日期和教师姓名使用基础数据字典中预先生成的字符串。
      *
-     * @param newRow             新行
-     * @param teacher            教师对象
-     * @param course             课程对象
-     * @param originalCourseName 原始课程名称
-     * @param classEntity        班级对象
+     * @param newRow 新行
+     * @param table  排课结果表
+     * @param index  排课结果在表中的下标
      */
-    public static void populateNewRow(Row newRow, Teacher teacher, Course course, String originalCourseName, Class classEntity) {
+    public static void populateNewRow(Row newRow, AssignmentTable table, int index) {
         // 填充教师编号
-        newRow.createCell(0).setCellValue(teacher.getTrNum()); // 教师编号
+        newRow.createCell(0).setCellValue(table.getTeacher(index).getTrNum()); // 教师编号
 
         // 填充教师姓名（姓 + 名）
-        newRow.createCell(1).setCellValue(teacher.getTrFirstName() + teacher.getTrName()); // 教师姓名
+        newRow.createCell(1).setCellValue(table.getTeacherName(index)); // 教师姓名
 
         // 填充课程编号
-        newRow.createCell(2).setCellValue(course.getCourNum()); // 课程编号
+        newRow.createCell(2).setCellValue(table.getCourse(index).getCourNum()); // 课程编号
 
         // 填充课程名称
-        newRow.createCell(3).setCellValue(originalCourseName); // 课程名称
+        newRow.createCell(3).setCellValue(table.getOriginalCourseName(index)); // 课程名称
 
         // 填充班级编号
-        newRow.createCell(4).setCellValue(classEntity.getClassNum()); // 班级编号
+        newRow.createCell(4).setCellValue(table.getClassEntity(index).getClassNum()); // 班级编号
 
         // 填充班级名称
-        newRow.createCell(5).setCellValue(classEntity.getClassName()); // 班级名称
+        newRow.createCell(5).setCellValue(table.getClassEntity(index).getClassName()); // 班级名称
 
         // 填充人数上限（固定值）
-        newRow.createCell(6).setCellValue(60); // 人数上限
+        newRow.createCell(6).setCellValue(CLASS_SIZE_MAX); // 人数上限
 
         // 填充人数下限（固定值）
-        newRow.createCell(7).setCellValue(30); // 人数下限
+        newRow.createCell(7).setCellValue(CLASS_SIZE_MIN); // 人数下限
 
-        // 填充开始日期，处理可能为空的情况
-        newRow.createCell(8).setCellValue(course.getTtime() != null ? course.getTtime() : ""); // 开始日期
+        // 填充开始日期，为空时为空字符串
+        newRow.createCell(8).setCellValue(table.getCourseStartDate(index)); // 开始日期
 
-        // 填充结束日期，处理可能为空的情况
-        newRow.createCell(9).setCellValue(course.getUtime() != null ? course.getUtime() : ""); // 结束日期
+        // 填充结束日期，为空时为空字符串
+        newRow.createCell(9).setCellValue(table.getCourseEndDate(index)); // 结束日期
 
         // 填充备注（空值）
         newRow.createCell(10).setCellValue(""); // 备注
     }
+
+    /**
+     * 在输出 Workbook 末尾创建“问题” Sheet，每个问题一行。
+     * 列依次为：Sheet、问题、内容、次数、首次出现行、首次出现列。
+     *
+     * @param outputWorkbook 输出的 Workbook
+     * @param sheetName      问题 Sheet 的名称
+     * @param issues         问题列表
+     * @param dropped        超出上限未记录的问题数，大于 0 时在末尾说明
+     * @return 创建的 Sheet
+     */
+    public static Sheet createIssueSheet(Workbook outputWorkbook, String sheetName, List<Issue> issues, long dropped) {
+        Sheet sheet = outputWorkbook.createSheet(sheetName);
+        String[] headers = {"Sheet", "问题", "内容", "次数", "首次出现行", "首次出现列"};
+        int[] widths = {16, 12, 30, 8, 12, 12};
+
+        Row header = sheet.createRow(0);
+        for (int i = 0; i < headers.length; i++) {
+            header.createCell(i).setCellValue(headers[i]);
+            sheet.setColumnWidth(i, widths[i] * 256);
+        }
+
+        int rowIndex = 1;
+        for (Issue issue : issues) {
+            Row row = sheet.createRow(rowIndex++);
+            row.createCell(0).setCellValue(issue.sheetName()); // 所在 Sheet
+            row.createCell(1).setCellValue(issue.reason().getLabel()); // 问题
+            row.createCell(2).setCellValue(issue.key()); // 未匹配的内容
+            row.createCell(3).setCellValue(issue.count()); // 出现次数
+            row.createCell(4).setCellValue(issue.firstRow()); // 首次出现行
+            row.createCell(5).setCellValue(issue.firstColumn()); // 首次出现列
+        }
+
+        if (dropped > 0) {
+            // 超出上限的问题只计数，在末尾说明
+            sheet.createRow(rowIndex).createCell(0).setCellValue("另有 " + dropped + " 条问题超出记录上限，未列出");
+        }
+        return sheet;
+    }
+
+    /**
+     * 创建批量转换的汇总 Sheet，每个输入文件一行。
+     * 列依次为：文件、结果文件、状态、行数、匹配单元格数、问题数、失败原因。
+     *
+     * @param outputWorkbook 输出的 Workbook
+     * @param sheetName      汇总 Sheet 的名称
+     * @param results        各文件的转换结果，按输入顺序排列
+     * @return 创建的 Sheet
+     */
+    public static Sheet createBatchSummarySheet(Workbook outputWorkbook, String sheetName, List<BatchResult> results) {
+        Sheet sheet = outputWorkbook.createSheet(sheetName);
+        String[] headers = {"文件", "结果文件", "状态", "行数", "匹配单元格数", "问题数", "失败原因"};
+        int[] widths = {30, 30, 8, 8, 14, 8, 30};
+
+        Row header = sheet.createRow(0);
+        for (int i = 0; i < headers.length; i++) {
+            header.createCell(i).setCellValue(headers[i]);
+            sheet.setColumnWidth(i, widths[i] * 256);
+        }
+
+        int rowIndex = 1;
+        for (BatchResult result : results) {
+            ConversionProgress progress = result.progress();
+            Row row = sheet.createRow(rowIndex++);
+            row.createCell(0).setCellValue(result.fileName()); // 输入文件
+            row.createCell(1).setCellValue(result.isSuccess() ? result.outputName() : ""); // 结果文件
+            row.createCell(2).setCellValue(result.isSuccess() ? "成功" : "失败"); // 状态
+            row.createCell(3).setCellValue(progress.getRowsProcessed()); // 行数
+            row.createCell(4).setCellValue(progress.getCellsMatched()); // 匹配单元格数
+            row.createCell(5).setCellValue(progress.getWarnings()); // 问题数
+            row.createCell(6).setCellValue(result.isSuccess() ? "" : result.error()); // 失败原因
+        }
+        return sheet;
+    }
 }
@@ -0,0 +1,280 @@
+package org.example.handle_excel.utils;
+
+import org.apache.poi.hssf.eventusermodel.AbortableHSSFListener;
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.eventusermodel.HSSFUserException;
+import org.apache.poi.hssf.eventusermodel.MissingRecordAwareHSSFListener;
+import org.apache.poi.hssf.eventusermodel.dummyrecord.LastCellOfRowDummyRecord;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.BoundSheetRecord;
+import org.apache.poi.hssf.record.CellValueRecordInterface;
+import org.apache.poi.hssf.record.DateWindow1904Record;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.ExtendedFormatRecord;
+import org.apache.poi.hssf.record.FilePassRecord;
+import org.apache.poi.hssf.record.FormatRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.CellType;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 基于 POI 事件模型（HSSFEventFactory）的 xls 读取工具。
+ * 逐条处理 BIFF8 记录，不构建 HSSFWorkbook 的单元格对象；每解析完一行就回调一次，行内各值与 xlsx 的流式读取一致，
+ * 与完整加载时 {@link SymbolUtils#getCellValueAsString} 的结果相同。
+ * 创建时从 OLE2 文件中取出 Workbook 流，处理一次全局部分，保存 Sheet 列表、各 Sheet 的起始位置、共享字符串表、数字格式和日期系统；
+ * 读取 Sheet 时从该 Sheet 的 BOF 记录开始处理，读到该 Sheet 的结尾后立即停止，不再重复处理前面的全局部分和其他 Sheet。
+ * 加密的文件只能从头解密，读取每个 Sheet 时仍从头处理记录。
+ * 全局部分的记录创建后只读，各次读取的其他状态互不共享，不同的 Sheet 可以在多个线程中同时解析。
+ */
+public class HssfStreamReader implements SheetStreamReader {
+
+    private final byte[] workbookStream; // OLE2 文件中的 Workbook 流
+
+    private final List<String> sheetNames = new ArrayList<>(); // 按 Sheet 记录在文件中的顺序排列的 Sheet 名称
+
+    private final List<Integer> sheetOffsets = new ArrayList<>(); // 与 sheetNames 一一对应的 BOF 记录在 Workbook 流中的位置
+
+    private final List<Record> formatRecords = new ArrayList<>(); // 全局部分的数字格式和单元格格式记录
+
+    private SSTRecord sharedStrings; // 全局部分的共享字符串表，没有时为 null
+
+    private boolean encrypted; // 文件是否加密，加密时每次读取都从头处理
+
+    private boolean date1904; // 工作簿是否使用 1904 日期系统
+
+    /**
+     * 读取 xls 文件的 Workbook 流和 Sheet 列表，不解析 Sheet 的内容。
+     *
+     * @param input xls 文件内容，由调用方关闭
+     * @throws IOException 文件读取或解析失败
+     */
+    public HssfStreamReader(InputStream input) throws IOException {
+        try (POIFSFileSystem fileSystem = new POIFSFileSystem(input);
+             InputStream stream = fileSystem.createDocumentInputStream(
+                     HSSFWorkbook.getWorkbookDirEntryName(fileSystem.getRoot()))) {
+            workbookStream = stream.readAllBytes();
+        }
+
+        // 全局部分的 Sheet 记录按显示顺序排列，各 Sheet 的内容按文件中的位置排列
+        List<BoundSheetRecord> boundSheets = new ArrayList<>();
+        boolean[] globalsEnd = new boolean[1]; // 全局部分结束后不再需要其他记录
+        process(record -> {
+            if (record instanceof BoundSheetRecord boundSheet) {
+                boundSheets.add(boundSheet);
+            } else if (record instanceof FormatRecord || record instanceof ExtendedFormatRecord) {
+                formatRecords.add(record);
+            } else if (record instanceof SSTRecord sst) {
+                sharedStrings = sst;
+            } else if (record instanceof FilePassRecord) {
+                encrypted = true;
+            } else if (record instanceof DateWindow1904Record dateWindow) {
+                date1904 = dateWindow.getWindowing() == 1;
+            }
+            globalsEnd[0] = record instanceof EOFRecord;
+        }, 0, () -> globalsEnd[0]);
+        for (BoundSheetRecord boundSheet : BoundSheetRecord.orderByBofPosition(boundSheets)) {
+            sheetNames.add(boundSheet.getSheetname());
+            sheetOffsets.add(boundSheet.getPositionOfBof());
+        }
+    }
+
+    @Override
+    public List<String> getSheetNames() {
+        return Collections.unmodifiableList(sheetNames);
+    }
+
+    @Override
+    public void readSheet(int sheetIndex, ExcelStreamReader.RowHandler handler) throws IOException {
+        SheetListener sheetListener = new SheetListener(sheetIndex, handler);
+        // 格式跟踪记录全局部分的数字格式，用于判断数值是否为日期；缺失记录处理在每行结尾插入行结束标记
+        FormatTrackingHSSFListener formatListener = new FormatTrackingHSSFListener(sheetListener);
+        sheetListener.formatListener = formatListener;
+        int offset = 0;
+        if (!encrypted) {
+            // 从该 Sheet 的 BOF 记录开始处理，全局部分的格式和共享字符串表使用创建时保存的记录
+            formatRecords.forEach(formatListener::processRecord);
+            sheetListener.sharedStrings = sharedStrings;
+            sheetListener.date1904 = date1904;
+            sheetListener.currentSheet = sheetIndex - 1;
+            offset = sheetOffsets.get(sheetIndex);
+        }
+        process(new MissingRecordAwareHSSFListener(formatListener), offset, () -> sheetListener.done);
+    }
+
+    /**
+     * 从指定位置开始处理 Workbook 流中的记录，每处理一条记录检查一次是否停止。
+     *
+     * @param listener 记录监听器
+     * @param offset   开始处理的位置，必须是一条 BOF 记录的开头
+     * @param stop     返回 true 时停止处理后续记录
+     * @throws IOException 文件解析失败
+     */
+    private void process(HSSFListener listener, int offset, BooleanSupplier stop) throws IOException {
+        HSSFRequest request = new HSSFRequest();
+        request.addListenerForAllRecords(new AbortableHSSFListener() {
+            @Override
+            public short abortableProcessRecord(Record record) {
+                listener.processRecord(record);
+                return stop.getAsBoolean() ? (short) 1 : 0;
+            }
+        });
+        try {
+            new HSSFEventFactory().abortableProcessEvents(request,
+                    new ByteArrayInputStream(workbookStream, offset, workbookStream.length - offset));
+        } catch (HSSFUserException e) {
+            throw new IOException("解析Excel文件失败", e);
+        }
+    }
+
+    /**
+     * 收集指定 Sheet 中的单元格，每行结束时回调 RowHandler。
+     * 行缓冲区在行之间复用，只在回调时按实际列数复制一份。
+     */
+    private static class SheetListener implements HSSFListener {
+
+        private final int sheetIndex; // 要读取的 Sheet 索引
+
+        private final ExcelStreamReader.RowHandler handler;
+
+        private FormatTrackingHSSFListener formatListener; // 查找数值单元格的数字格式，判断是否为日期
+
+        private SSTRecord sharedStrings; // 共享字符串表
+
+        private boolean date1904; // 工作簿是否使用 1904 日期系统
+
+        private int depth; // 当前所在的 BOF/EOF 嵌套层数，Sheet 中嵌入的图表有自己的 BOF/EOF
+
+        private int currentSheet = -1; // 当前所在的 Sheet 索引，全局部分为 -1；从 Sheet 的 BOF 开始处理时为前一个 Sheet 的索引
+
+        private boolean done; // 是否已经读完指定的 Sheet
+
+        private int formulaRow = -1; // 等待 StringRecord 的字符串公式所在的行，没有时为 -1
+
+        private int formulaColumn; // 等待 StringRecord 的字符串公式所在的列
+
+        private String[] buffer = new String[64]; // 当前行的单元格缓冲区
+
+        private int lastColumn = -1; // 当前行最后一个非空单元格的列索引
+
+        SheetListener(int sheetIndex, ExcelStreamReader.RowHandler handler) {
+            this.sheetIndex = sheetIndex;
+            this.handler = handler;
+        }
+
+        @Override
+        public void processRecord(Record record) {
+            if (record instanceof BOFRecord bof) {
+                if (depth == 0 && bof.getType() != BOFRecord.TYPE_WORKBOOK) {
+                    currentSheet++;
+                }
+                depth++;
+                return;
+            }
+            if (record instanceof EOFRecord) {
+                depth--;
+                if (depth == 0 && currentSheet == sheetIndex) {
+                    done = true;
+                }
+                return;
+            }
+            if (record instanceof SSTRecord sst) {
+                sharedStrings = sst;
+                return;
+            }
+            if (record instanceof DateWindow1904Record dateWindow) {
+                date1904 = dateWindow.getWindowing() == 1;
+                return;
+            }
+            if (currentSheet != sheetIndex || depth != 1) {
+                return;
+            }
+
+            if (record instanceof LastCellOfRowDummyRecord lastCell) {
+                endRow(lastCell.getRow());
+            } else if (record instanceof LabelSSTRecord label) {
+                cell(label, sharedStrings.getString(label.getSSTIndex()).getString());
+            } else if (record instanceof LabelRecord label) {
+                cell(label, label.getValue());
+            } else if (record instanceof NumberRecord number) {
+                cell(number, number(number));
+            } else if (record instanceof BoolErrRecord boolErr) {
+                // 错误值与完整加载时一样为空字符串
+                cell(boolErr, boolErr.isBoolean() ? SymbolUtils.booleanAsString(boolErr.getBooleanValue()) : "");
+            } else if (record instanceof FormulaRecord formula) {
+                formula(formula);
+            } else if (record instanceof StringRecord string && formulaRow >= 0) {
+                // 字符串公式的结果在紧随其后的 StringRecord 中
+                cell(formulaRow, formulaColumn, string.getString());
+                formulaRow = -1;
+            }
+        }
+
+        private void formula(FormulaRecord formula) {
+            CellType resultType = formula.getCachedResultTypeEnum();
+            if (resultType == CellType.STRING) {
+                formulaRow = formula.getRow();
+                formulaColumn = formula.getColumn();
+            } else if (resultType == CellType.NUMERIC) {
+                cell(formula, SymbolUtils.numberAsString(formula.getValue())); // 公式的数值结果不按日期处理
+            } else if (resultType == CellType.BOOLEAN) {
+                cell(formula, SymbolUtils.booleanAsString(formula.getCachedBooleanValue()));
+            } else {
+                cell(formula, "");
+            }
+        }
+
+        /**
+         * 数值单元格的字符串值，数字格式为日期格式时转换为日期字符串。
+         */
+        private String number(NumberRecord number) {
+            double value = number.getValue();
+            if (SymbolUtils.isDateFormatted(value, formatListener.getFormatIndex(number),
+                    formatListener.getFormatString(number))) {
+                return SymbolUtils.dateAsString(value, date1904);
+            }
+            return SymbolUtils.numberAsString(value);
+        }
+
+        private void cell(CellValueRecordInterface record, String value) {
+            cell(record.getRow(), record.getColumn(), value);
+        }
+
+        private void cell(int row, int column, String value) {
+            if (column >= buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, column + 1));
+            }
+            buffer[column] = value == null ? "" : value.trim();
+            lastColumn = Math.max(lastColumn, column);
+        }
+
+        private void endRow(int rowIndex) {
+            String[] values = new String[lastColumn + 1];
+            for (int i = 0; i <= lastColumn; i++) {
+                values[i] = buffer[i] == null ? "" : buffer[i];
+            }
+            Arrays.fill(buffer, 0, lastColumn + 1, null);
+            lastColumn = -1;
+            handler.row(rowIndex, values);
+        }
+    }
+}
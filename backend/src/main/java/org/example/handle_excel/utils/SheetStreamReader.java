@@ -0,0 +1,26 @@
+package org.example.handle_excel.utils;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 按 Sheet 逐行读取输入文件的接口，xlsx、xls、csv 各有一个流式实现，读取到的行都交给同一套处理流程。
+ */
+public interface SheetStreamReader {
+
+    /**
+     * 获取所有 Sheet 的名称。
+     *
+     * @return Sheet 名称列表，按文件中的顺序排列
+     */
+    List<String> getSheetNames();
+
+    /**
+     * 流式解析一个 Sheet，依次回调每一行。
+     *
+     * @param sheetIndex Sheet 索引，与 {@link #getSheetNames()} 的下标一致
+     * @param handler    行回调
+     * @throws IOException 文件读取或解析失败
+     */
+    void readSheet(int sheetIndex, ExcelStreamReader.RowHandler handler) throws IOException;
+}
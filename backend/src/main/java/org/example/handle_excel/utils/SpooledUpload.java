@@ -0,0 +1,87 @@
+package org.example.handle_excel.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+
+/**
+ * 上传文件的副本：不超过阈值的文件保留在内存中，更大的文件写入临时文件。
+ * 复制的同时可以计算内容摘要，用于结果缓存的键，不需要再读一遍上传文件。
+ * 保存在磁盘上的 xlsx 可以以文件方式打开，按需随机读取其中的各个文件。关闭时删除临时文件。
+ */
+@Slf4j
+public final class SpooledUpload implements Closeable {
+
+    private final Resource resource; // 副本的内容
+
+    private final Path tempFile; // 临时文件，保留在内存中时为 null
+
+    private SpooledUpload(Resource resource, Path tempFile) {
+        this.resource = resource;
+        this.tempFile = tempFile;
+    }
+
+    /**
+     * 复制上传的文件。
+     *
+     * @param file      上传的文件
+     * @param threshold 保留在内存中的大小上限（字节），超过时写入临时文件
+     * @param dir       临时文件的存放目录，不存在时创建
+     * @param digest    复制的同时更新的摘要，为 null 时不计算
+     * @return 上传文件的副本
+     * @throws IOException 读取上传文件或写入临时文件失败
+     */
+    public static SpooledUpload spool(MultipartFile file, long threshold, Path dir, MessageDigest digest)
+            throws IOException {
+        try (InputStream input = digest != null
+                ? new DigestInputStream(file.getInputStream(), digest) : file.getInputStream()) {
+            if (file.getSize() <= threshold) {
+                return new SpooledUpload(new ByteArrayResource(input.readAllBytes()), null);
+            }
+            Files.createDirectories(dir);
+            Path tempFile = Files.createTempFile(dir, "upload-", ".tmp");
+            try {
+                Files.copy(input, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(tempFile);
+                throw e;
+            }
+            return new SpooledUpload(new FileSystemResource(tempFile), tempFile);
+        }
+    }
+
+    /**
+     * 获取副本的内容，保存在磁盘上时 {@link Resource#isFile()} 为 true。
+     *
+     * @return 副本的内容，可以多次打开
+     */
+    public Resource getResource() {
+        return resource;
+    }
+
+    /**
+     * 删除临时文件，删除失败只记录日志。
+     */
+    @Override
+    public void close() {
+        if (tempFile == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(tempFile);
+        } catch (IOException e) {
+            log.warn("删除上传文件的临时文件失败: {}", tempFile, e);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.example.handle_excel.utils;
+
+import lombok.Getter;
+import org.apache.poi.ooxml.POIXMLException;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFFont;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.usermodel.extensions.XSSFCellBorder;
+import org.apache.poi.xssf.usermodel.extensions.XSSFCellFill;
+import org.apache.xmlbeans.XmlException;
+import org.example.handle_excel.model.TemplateModel;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTBorder;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTFill;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTFont;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTXf;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.apache.poi.ooxml.POIXMLTypeLoader.DEFAULT_XML_OPTIONS;
+
+/**
+ * 单元格样式缓存，每个输出 Workbook 对应一个实例。
+ * 模板中的每种样式只创建一次，之后复用同一个输出样式，避免样式表随单元格数量线性增长。
+ * 与 Workbook 一样不是线程安全的。
+ */
+public class StyleCache {
+
+    private final Workbook outputWorkbook; // 输出 Workbook，克隆出的样式都属于它
+
+    private final Map<TemplateModel.StyleDescriptor, CellStyle> styles = new HashMap<>(); // 模板样式描述到输出样式的映射
+
+    @Getter
+    private int hits; // 命中次数
+
+    @Getter
+    private int misses; // 未命中次数
+
+    public StyleCache(Workbook outputWorkbook) {
+        this.outputWorkbook = outputWorkbook;
+    }
+
+    /**
+     * 获取与模板样式等价的输出样式，第一次遇到时创建，之后直接复用。
+     *
+     * @param templateStyle 模板单元格的样式描述
+     * @return 属于输出 Workbook 的样式
+     */
+    public CellStyle get(TemplateModel.StyleDescriptor templateStyle) {
+        CellStyle style = styles.get(templateStyle);
+        if (style != null) {
+            hits++;
+            return style;
+        }
+        misses++;
+        style = createStyle(templateStyle);
+        styles.put(templateStyle, style);
+        return style;
+    }
+
+    /**
+     * 根据样式描述在输出 Workbook 中创建样式，过程与 XSSFCellStyle.cloneStyleFrom 跨工作簿复制时相同：
+     * 复制 xf，并把填充、边框、数据格式和字体注册到输出 Workbook 的样式表中。
+     *
+     * @param descriptor 样式描述
+     * @return 新创建的样式
+     */
+    private CellStyle createStyle(TemplateModel.StyleDescriptor descriptor) {
+        StylesTable stylesTable = getStylesTable();
+        int index = outputWorkbook.createCellStyle().getIndex();
+        try {
+            CTXf xf = CTXf.Factory.parse(descriptor.xf(), DEFAULT_XML_OPTIONS);
+
+            CTFill fill = CTFill.Factory.parse(descriptor.fill(), DEFAULT_XML_OPTIONS);
+            xf.setFillId(stylesTable.putFill(new XSSFCellFill(fill, stylesTable.getIndexedColors())));
+            xf.setApplyFill(true);
+
+            CTBorder border = CTBorder.Factory.parse(descriptor.border(), DEFAULT_XML_OPTIONS);
+            xf.setBorderId(stylesTable.putBorder(new XSSFCellBorder(border, stylesTable.getIndexedColors())));
+            xf.setApplyBorder(true);
+
+            stylesTable.replaceCellXfAt(index, xf);
+
+            // 替换 xf 后重新获取样式对象，再设置数据格式和字体
+            XSSFCellStyle style = stylesTable.getStyleAt(index);
+            style.setDataFormat(outputWorkbook.createDataFormat().getFormat(descriptor.dataFormat()));
+            XSSFFont font = new XSSFFont(CTFont.Factory.parse(descriptor.font(), DEFAULT_XML_OPTIONS));
+            font.registerTo(stylesTable);
+            style.setFont(font);
+            return style;
+        } catch (XmlException e) {
+            throw new POIXMLException(e);
+        }
+    }
+
+    /**
+     * 获取输出 Workbook 的样式表，SXSSF 的样式保存在其底层的 XSSFWorkbook 中。
+     *
+     * @return 样式表
+     */
+    private StylesTable getStylesTable() {
+        if (outputWorkbook instanceof SXSSFWorkbook sxssfWorkbook) {
+            return sxssfWorkbook.getXSSFWorkbook().getStylesSource();
+        }
+        return ((XSSFWorkbook) outputWorkbook).getStylesSource();
+    }
+}
@@ -2,12 +2,10 @@ package org.example.handle_excel.utils;
 
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.DateUtil;
+import org.example.handle_excel.model.Remark;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 @SuppressWarnings("all")
 
 /**
@@ -16,61 +14,39 @@ import java.util.regex.Pattern;
  */
 public class SymbolUtils {
 
-    // 正则表达式，匹配中英文括号内的内容
-    private static final String BRACKET_CONTENT_REGEX = "[（(][^）)]*?[）)]";
-
     /**
-     * 处理字符串，提取括号内的内容并拆分。
+     * 解析字符串，提取每一对括号内的内容作为备注。
      * 处理步骤：
-     * 1. 使用正则表达式查找所有括号及其内部的内容。
-     * 2. 去除括号，只保留内部内容。
-     * 3. 按空格拆分内部内容。
-     * 4. 将拆分后的内容存入 ArrayList，并添加括号标记。
-     * 5. 将每个处理后的列表添加到结果列表中。
+     * 1. 从左向右扫描，遇到中文或英文左括号后，查找其后的第一个中文或英文右括号。
+     * 2. 两个括号之间的内容按空白拆分为若干个词（与 split("\\s+") 的结果一致）。
+     * 3. 根据拆分后的词创建备注，解析年级、学期和标签。
+     * 括号的匹配规则与原先的正则表达式 "[（(][^）)]*?[）)]" 相同：左右括号可以混用，括号内的左括号视为普通字符。
      *
      * @param input 输入字符串，可能包含括号及其内容
-     * @return 括号内内容的列表，每个内容为一个字符串列表
+     * @return 备注列表，按括号在字符串中出现的顺序排列
      */
-    public static List<ArrayList<String>> process(String input) {
-        List<ArrayList<String>> resultList = new ArrayList<>();
+    public static List<Remark> process(String input) {
         if (input == null || input.isEmpty()) {
-            return resultList;
+            return new ArrayList<>();
         }
 
-        // 编译正则表达式
-        Pattern pattern = Pattern.compile(BRACKET_CONTENT_REGEX);
-        // 创建匹配器对象
-        Matcher matcher = pattern.matcher(input);
-
-        // 查找所有匹配项并添加到结果列表中
-        while (matcher.find()) {
-            // 获取括号中的内容，包括括号
-            String content = matcher.group();
-
-            // 去掉左右括号，保留内部内容
-            String innerContent = content.substring(1, content.length() - 1);
-
-            // 按空格拆分括号内的内容，可以根据需要更改分隔符
-            String[] parts = innerContent.split("\\s+");
-
-            // 将拆分后的部分存入一个 ArrayList
-            ArrayList<String> contentList = new ArrayList<>();
-            contentList.add("("); // 添加左括号标记
-            Collections.addAll(contentList, parts); // 添加拆分后的内容
-            contentList.add(")"); // 添加右括号标记
-
-            // 将拆分后的 ArrayList 添加到结果列表
-            resultList.add(contentList);
+        List<Remark> resultList = new ArrayList<>(2);
+        int from = 0;
+        int open;
+        while ((open = indexOfOpen(input, from)) >= 0) {
+            int close = indexOfClose(input, open + 1);
+            if (close < 0) {
+                break; // 之后不会再有右括号
+            }
+            resultList.add(Remark.of(split(input, open + 1, close)));
+            from = close + 1;
         }
-
         return resultList;
     }
 
     /**
      * 移除字符串中的括号及其内容。
-     * 处理步骤：
-     * 1. 使用正则表达式匹配所有括号及其内部内容。
-     * 2. 将匹配到的内容替换为空字符串。
+     * 括号的匹配规则与 {@link #process(String)} 相同，字符串中没有括号时直接返回原字符串。
      *
      * @param input 输入字符串，可能包含括号及其内容
      * @return 移除括号及内容后的字符串
@@ -80,13 +56,87 @@ public class SymbolUtils {
             return input;
         }
 
-        // 编译正则表达式
-        Pattern pattern = Pattern.compile(BRACKET_CONTENT_REGEX);
-        // 创建匹配器对象
-        Matcher matcher = pattern.matcher(input);
+        StringBuilder builder = null; // 只有存在括号时才创建
+        int from = 0;
+        int open;
+        while ((open = indexOfOpen(input, from)) >= 0) {
+            int close = indexOfClose(input, open + 1);
+            if (close < 0) {
+                break;
+            }
+            if (builder == null) {
+                builder = new StringBuilder(input.length());
+            }
+            builder.append(input, from, open);
+            from = close + 1;
+        }
+        if (builder == null) {
+            return input;
+        }
+        return builder.append(input, from, input.length()).toString();
+    }
+
+    /**
+     * 查找下一个中文或英文左括号的位置。
+     */
+    private static int indexOfOpen(String input, int from) {
+        for (int i = from; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c == '(' || c == '（') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 查找下一个中文或英文右括号的位置。
+     */
+    private static int indexOfClose(String input, int from) {
+        for (int i = from; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c == ')' || c == '）') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 按空白拆分 input 中 [start, end) 范围内的内容，结果与 String.split("\\s+") 相同：
+     * 开头有空白时保留一个空字符串，末尾的空字符串被去掉，内容为空时返回只包含一个空字符串的列表。
+     */
+    private static List<String> split(String input, int start, int end) {
+        List<String> parts = new ArrayList<>(2);
+        boolean separated = false; // 是否遇到过空白
+        int tokenStart = start;
+        for (int i = start; i < end; i++) {
+            if (isWhitespace(input.charAt(i))) {
+                parts.add(input.substring(tokenStart, i));
+                separated = true;
+                while (i + 1 < end && isWhitespace(input.charAt(i + 1))) {
+                    i++;
+                }
+                tokenStart = i + 1;
+            }
+        }
+        if (!separated) {
+            return List.of(input.substring(start, end));
+        }
+        parts.add(input.substring(tokenStart, end));
+        // 与 split 一致，去掉末尾的空字符串
+        int size = parts.size();
+        while (size > 0 && parts.get(size - 1).isEmpty()) {
+            size--;
+        }
+        return List.copyOf(parts.subList(0, size));
+    }
 
-        // 替换所有匹配的括号及内容为空字符串
-        return matcher.replaceAll("");
+    /**
+     * 判断是否为正则表达式 \s 匹配的空白字符。
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
     }
 
     /**
@@ -95,6 +145,8 @@ public class SymbolUtils {
      * 1. 根据单元格的类型，提取其内容并转换为字符串。
      * 2. 对于数值类型，检查是否为日期格式或整数，适当转换。
      * 3. 对于公式类型，尝试获取公式的计算结果。
+     * xlsx 和 xls 的流式读取使用 {@link #numberAsString(double)}、{@link #dateAsString(double, boolean)}
+     * 和 {@link #booleanAsString(boolean)} 得到相同的字符串。
      *
      * @param cell 单元格对象
      * @return 单元格内容的字符串表示，去除前后空格
@@ -109,16 +161,10 @@ public class SymbolUtils {
                     // 如果是日期格式，返回日期字符串
                     return cell.getDateCellValue().toString();
                 } else {
-                    double numericValue = cell.getNumericCellValue();
-                    // 检查是否为整数，去除小数点后多余的零
-                    if (numericValue == (long) numericValue) {
-                        return String.valueOf((long) numericValue);
-                    } else {
-                        return String.valueOf(numericValue);
-                    }
+                    return numberAsString(cell.getNumericCellValue());
                 }
             case BOOLEAN:
-                return String.valueOf(cell.getBooleanCellValue()); // 返回布尔值字符串
+                return booleanAsString(cell.getBooleanCellValue()); // 返回布尔值字符串
             case FORMULA:
                 // 尝试获取公式结果
                 try {
@@ -126,14 +172,9 @@ public class SymbolUtils {
                         case STRING:
                             return cell.getStringCellValue().trim(); // 返回字符串结果，去除空格
                         case NUMERIC:
-                            double numericValue = cell.getNumericCellValue();
-                            if (numericValue == (long) numericValue) {
-                                return String.valueOf((long) numericValue); // 返回整数形式
-                            } else {
-                                return String.valueOf(numericValue); // 返回浮点数形式
-                            }
+                            return numberAsString(cell.getNumericCellValue()); // 公式结果不按日期格式处理
                         case BOOLEAN:
-                            return String.valueOf(cell.getBooleanCellValue()); // 返回布尔值字符串
+                            return booleanAsString(cell.getBooleanCellValue()); // 返回布尔值字符串
                         default:
                             return ""; // 其他类型返回空字符串
                     }
@@ -146,4 +187,50 @@ public class SymbolUtils {
                 return ""; // 空单元格或未知类型返回空字符串
         }
     }
+
+    /**
+     * 数值的字符串表示：整数去除小数点后多余的零，其他数值使用 Double.toString。
+     *
+     * @param value 数值
+     * @return 字符串表示
+     */
+    public static String numberAsString(double value) {
+        if (value == (long) value) {
+            return String.valueOf((long) value);
+        }
+        return String.valueOf(value);
+    }
+
+    /**
+     * 日期格式数值的字符串表示，与 Cell.getDateCellValue().toString() 相同。
+     *
+     * @param value    Excel 日期数值
+     * @param date1904 工作簿是否使用 1904 日期系统
+     * @return 日期字符串
+     */
+    public static String dateAsString(double value, boolean date1904) {
+        return DateUtil.getJavaDate(value, date1904).toString();
+    }
+
+    /**
+     * 判断数值单元格是否按日期处理，与 DateUtil.isCellDateFormatted(Cell) 相同：数值是有效的 Excel 日期且数字格式为日期格式。
+     *
+     * @param value        数值
+     * @param formatIndex  数字格式索引
+     * @param formatString 数字格式字符串
+     * @return 按日期处理时返回 true
+     */
+    public static boolean isDateFormatted(double value, int formatIndex, String formatString) {
+        return DateUtil.isValidExcelDate(value) && DateUtil.isADateFormat(formatIndex, formatString);
+    }
+
+    /**
+     * 布尔值的字符串表示，与 String.valueOf(boolean) 相同。
+     *
+     * @param value 布尔值
+     * @return "true" 或 "false"
+     */
+    public static String booleanAsString(boolean value) {
+        return value ? "true" : "false";
+    }
 }
@@ -0,0 +1,121 @@
+package org.example.handle_excel.utils;
+
+import org.springframework.core.io.InputStreamSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 读取 zip 文件（xlsx 即 zip 压缩包）中央目录记录的各文件解压后的大小，不解压任何内容。
+ * 中央目录位于文件末尾，只需要读取末尾的一小段；中央目录超出这一段时再从头打开一次输入并跳到中央目录的位置。
+ * 不支持 zip64，也不信任无法解析的文件，这些情况返回 -1，由调用方按压缩比估算。
+ */
+public final class ZipEntrySizes {
+
+    private static final int END_SIGNATURE = 0x06054b50; // 中央目录结束记录的签名
+
+    private static final int ENTRY_SIGNATURE = 0x02014b50; // 中央目录文件记录的签名
+
+    private static final int END_SIZE = 22; // 中央目录结束记录的固定长度，不含注释
+
+    private static final int ENTRY_SIZE = 46; // 中央目录文件记录的固定长度，不含文件名、扩展字段和注释
+
+    private static final int MAX_COMMENT_SIZE = 0xFFFF; // zip 注释的最大长度
+
+    private static final int MAX_DIRECTORY_SIZE = 16 * 1024 * 1024; // 读取的中央目录大小上限
+
+    private ZipEntrySizes() {
+    }
+
+    /**
+     * 计算 zip 文件中所有文件解压后的总大小。
+     *
+     * @param source 文件内容，可以多次打开
+     * @param length 文件长度（字节）
+     * @return 解压后的总大小（字节），不是 zip 文件、使用 zip64 或中央目录损坏时返回 -1
+     * @throws IOException 文件读取失败
+     */
+    public static long totalUncompressedSize(InputStreamSource source, long length) throws IOException {
+        if (length < END_SIZE) {
+            return -1;
+        }
+        int tailSize = (int) Math.min(length, END_SIZE + MAX_COMMENT_SIZE);
+        long tailOffset = length - tailSize;
+        byte[] tail;
+        try (InputStream input = source.getInputStream()) {
+            input.skipNBytes(tailOffset);
+            tail = input.readNBytes(tailSize);
+        }
+
+        // 结束记录后面只有注释，从后往前查找签名
+        int end = -1;
+        for (int i = tail.length - END_SIZE; i >= 0; i--) {
+            if (readInt(tail, i) == END_SIGNATURE) {
+                end = i;
+                break;
+            }
+        }
+        if (end < 0) {
+            return -1;
+        }
+        long directorySize = readInt(tail, end + 12) & 0xFFFFFFFFL;
+        long directoryOffset = readInt(tail, end + 16) & 0xFFFFFFFFL;
+        if (directorySize == 0xFFFFFFFFL || directoryOffset == 0xFFFFFFFFL // zip64
+                || directorySize > MAX_DIRECTORY_SIZE || directoryOffset + directorySize > tailOffset + end) {
+            return -1;
+        }
+
+        byte[] directory;
+        int start;
+        if (directoryOffset >= tailOffset) {
+            directory = tail;
+            start = (int) (directoryOffset - tailOffset);
+        } else {
+            try (InputStream input = source.getInputStream()) {
+                input.skipNBytes(directoryOffset);
+                directory = input.readNBytes((int) directorySize);
+            }
+            start = 0;
+        }
+        return sumEntries(directory, start, start + (int) directorySize);
+    }
+
+    /**
+     * 累加中央目录中各文件记录的解压后大小。
+     *
+     * @param directory 包含中央目录的字节数组
+     * @param start     中央目录的起始位置
+     * @param end       中央目录的结束位置（不含）
+     * @return 解压后的总大小，记录损坏或使用 zip64 时返回 -1
+     */
+    private static long sumEntries(byte[] directory, int start, int end) {
+        if (end > directory.length) {
+            return -1;
+        }
+        long total = 0;
+        int position = start;
+        while (position < end) {
+            if (position + ENTRY_SIZE > end || readInt(directory, position) != ENTRY_SIGNATURE) {
+                return -1;
+            }
+            long size = readInt(directory, position + 24) & 0xFFFFFFFFL;
+            if (size == 0xFFFFFFFFL) {
+                return -1; // zip64
+            }
+            total += size;
+            position += ENTRY_SIZE + readShort(directory, position + 28) // 文件名
+                    + readShort(directory, position + 30) // 扩展字段
+                    + readShort(directory, position + 32); // 注释
+        }
+        return total;
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8
+                | (bytes[offset + 2] & 0xFF) << 16 | (bytes[offset + 3] & 0xFF) << 24;
+    }
+
+    private static int readShort(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8;
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.handle_excel.writer;
+
+import org.example.handle_excel.model.AssignmentTable;
+
+import java.io.IOException;
+
+/**
+ * 排课结果的写出接口，每个实现对应一种输出方式，如模板 xlsx、CSV。
+ * 匹配完成后按 Sheet 顺序调用，每次写出一个 Sheet 的全部结果。
+ */
+public interface AssignmentWriter {
+
+    /**
+     * 写出一个 Sheet 的排课结果。
+     *
+     * @param table 排课结果表
+     * @throws IOException 写出失败
+     */
+    void write(AssignmentTable table) throws IOException;
+}
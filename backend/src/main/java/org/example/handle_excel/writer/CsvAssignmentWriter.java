@@ -0,0 +1,79 @@
+package org.example.handle_excel.writer;
+
+import org.example.handle_excel.model.AssignmentTable;
+import org.example.handle_excel.utils.ExcelUtils;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * 把排课结果写为 CSV，列与模板输出 Sheet 的数据行相同，所有 Sheet 的结果依次写入同一个文件。
+ * 第一次写出前先写表头行；字段中包含逗号、引号或换行时按 RFC 4180 加引号。
+ */
+public class CsvAssignmentWriter implements AssignmentWriter {
+
+    /**
+     * CSV 表头，与 {@link ExcelUtils#populateNewRow} 填充的列一一对应
+     */
+    public static final String[] HEADERS = {"教师编号", "教师姓名", "课程编号", "课程名称", "班级编号", "班级名称",
+            "人数上限", "人数下限", "开始日期", "结束日期", "备注"};
+
+    private final Writer writer; // 输出的字符流，由调用方负责关闭
+
+    private boolean headerWritten; // 是否已写出表头
+
+    public CsvAssignmentWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public void write(AssignmentTable table) throws IOException {
+        if (!headerWritten) {
+            writeRecord(HEADERS);
+            headerWritten = true;
+        }
+        String[] fields = new String[HEADERS.length];
+        for (int i = 0; i < table.size(); i++) {
+            fields[0] = table.getTeacher(i).getTrNum(); // 教师编号
+            fields[1] = table.getTeacherName(i); // 教师姓名
+            fields[2] = table.getCourse(i).getCourNum(); // 课程编号
+            fields[3] = table.getOriginalCourseName(i); // 课程名称
+            fields[4] = table.getClassEntity(i).getClassNum(); // 班级编号
+            fields[5] = table.getClassEntity(i).getClassName(); // 班级名称
+            fields[6] = String.valueOf(ExcelUtils.CLASS_SIZE_MAX); // 人数上限
+            fields[7] = String.valueOf(ExcelUtils.CLASS_SIZE_MIN); // 人数下限
+            fields[8] = table.getCourseStartDate(i); // 开始日期
+            fields[9] = table.getCourseEndDate(i); // 结束日期
+            fields[10] = ""; // 备注
+            writeRecord(fields);
+        }
+    }
+
+    private void writeRecord(String[] fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeField(fields[i]);
+        }
+        writer.write("\r\n");
+    }
+
+    private void writeField(String field) throws IOException {
+        if (field == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < field.length() && !quote; i++) {
+            char c = field.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quote) {
+            writer.write(field);
+            return;
+        }
+        writer.write('"');
+        writer.write(field.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
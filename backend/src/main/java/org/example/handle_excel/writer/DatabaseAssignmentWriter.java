@@ -0,0 +1,89 @@
+package org.example.handle_excel.writer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.handle_excel.bean.TeachingAssignment;
+import org.example.handle_excel.mapper.AssignmentMapper;
+import org.example.handle_excel.model.AssignmentTable;
+import org.example.handle_excel.utils.ExcelUtils;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.dao.DataAccessException;
+
+import java.io.IOException;
+
+/**
+ * 把排课结果写回数据库的 teaching_assignment 表，内容与输出课表中的一行相同。
+ * 通过批量执行器的 SqlSession 逐条调用 upsert，每积累一批再一起发送；
+ * 调用方负责开启事务，写完所有 Sheet 后调用 {@link #flush()} 发送最后一批，再提交事务。
+ * 只能在开启事务的线程中使用。
+ */
+@Slf4j
+public class DatabaseAssignmentWriter implements AssignmentWriter {
+
+    private final SqlSessionTemplate batchSqlSession; // 批量执行器的 SqlSession
+
+    private final AssignmentMapper assignmentMapper; // 绑定到批量执行器的 Mapper
+
+    private final int batchSize; // 每批发送的记录数
+
+    private int pending; // 尚未发送的记录数
+
+    private long written; // 已发送的记录数
+
+    public DatabaseAssignmentWriter(SqlSessionTemplate batchSqlSession, int batchSize) {
+        this.batchSqlSession = batchSqlSession;
+        this.assignmentMapper = batchSqlSession.getMapper(AssignmentMapper.class);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @Override
+    public void write(AssignmentTable table) throws IOException {
+        try {
+            for (int i = 0; i < table.size(); i++) {
+                assignmentMapper.upsertAssignment(new TeachingAssignment(
+                        table.getTeacher(i).getTrNum(), // 教师编号
+                        table.getTeacherName(i), // 教师姓名
+                        table.getCourse(i).getCourNum(), // 课程编号
+                        table.getOriginalCourseName(i), // 课程名称
+                        table.getClassEntity(i).getClassNum(), // 班级编号
+                        table.getClassEntity(i).getClassName(), // 班级名称
+                        ExcelUtils.CLASS_SIZE_MAX, // 人数上限
+                        ExcelUtils.CLASS_SIZE_MIN, // 人数下限
+                        table.getCourseStartDate(i), // 开始日期
+                        table.getCourseEndDate(i))); // 结束日期
+                if (++pending >= batchSize) {
+                    flush();
+                }
+            }
+        } catch (DataAccessException e) {
+            throw new IOException("写回数据库失败", e);
+        }
+        log.debug("Sheet '{}' 写回数据库 {} 条", table.getSheetName(), table.size());
+    }
+
+    /**
+     * 发送尚未发送的记录。
+     *
+     * @throws IOException 写入数据库失败
+     */
+    public void flush() throws IOException {
+        if (pending == 0) {
+            return;
+        }
+        try {
+            batchSqlSession.flushStatements();
+        } catch (DataAccessException e) {
+            throw new IOException("写回数据库失败", e);
+        }
+        written += pending;
+        pending = 0;
+    }
+
+    /**
+     * 获取已发送的记录数。
+     *
+     * @return 记录数
+     */
+    public long getWritten() {
+        return written;
+    }
+}
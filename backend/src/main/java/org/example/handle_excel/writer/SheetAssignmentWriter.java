@@ -0,0 +1,31 @@
+package org.example.handle_excel.writer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.example.handle_excel.model.AssignmentTable;
+import org.example.handle_excel.utils.ExcelUtils;
+
+/**
+ * 把排课结果逐行追加到输出 Sheet 的末尾，输出 Sheet 已经复制好模板的表头和样式。
+ */
+@Slf4j
+public class SheetAssignmentWriter implements AssignmentWriter {
+
+    private final Sheet outputSheet; // 输出的 Sheet
+
+    public SheetAssignmentWriter(Sheet outputSheet) {
+        this.outputSheet = outputSheet;
+    }
+
+    @Override
+    public void write(AssignmentTable table) {
+        int rowNum = outputSheet.getLastRowNum() + 1;
+        for (int i = 0; i < table.size(); i++) {
+            // 在输出 Sheet 中创建新行并填充数据
+            Row newRow = outputSheet.createRow(rowNum++);
+            ExcelUtils.populateNewRow(newRow, table, i);
+        }
+        log.debug("Sheet '{}' 写入 {} 行", outputSheet.getSheetName(), table.size());
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.handle_excel;
+
+import org.example.handle_excel.bean.Class;
+import org.example.handle_excel.bean.Course;
+import org.example.handle_excel.bean.Teacher;
+import org.example.handle_excel.model.AssignmentTable;
+import org.example.handle_excel.model.ReferenceDictionary;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 验证 AssignmentTable 扩容前后保存的结果不变，按编号取出的对象和字符串来自基础数据字典。
+ */
+class AssignmentTableTest {
+
+    private static final ReferenceDictionary DICTIONARY = ReferenceDictionary.build(
+            Map.of("语文", List.of(new Course("C001", "语文", "2024-09-01", "2025-01-15", List.of(), 1L))),
+            Map.of("一年级1班", new Class("K001", "一年级1班", "一年级", 1L)),
+            Map.of("张三", List.of(new Teacher("T001", "张", "三", 1L))));
+
+    @Test
+    void getResolvesIdsThroughDictionary() {
+        AssignmentTable table = new AssignmentTable("小学部", DICTIONARY);
+        table.add(0, 0, "语文（一上）", 0, 3);
+
+        assertEquals("小学部", table.getSheetName());
+        assertEquals(1, table.size());
+        assertEquals("T001", table.getTeacher(0).getTrNum());
+        assertEquals("张三", table.getTeacherName(0));
+        assertEquals("C001", table.getCourse(0).getCourNum());
+        assertEquals("2024-09-01", table.getCourseStartDate(0));
+        assertEquals("2025-01-15", table.getCourseEndDate(0));
+        assertEquals("K001", table.getClassEntity(0).getClassNum());
+        assertEquals("语文（一上）", table.getOriginalCourseName(0));
+        assertEquals(3, table.getRowIndex(0));
+    }
+
+    @Test
+    void growKeepsAllRows() {
+        AssignmentTable table = new AssignmentTable("小学部", DICTIONARY);
+        int count = 1000; // 超过初始容量，触发多次扩容
+        for (int i = 0; i < count; i++) {
+            table.add(0, 0, "课程" + (i % 7), 0, i);
+        }
+
+        assertEquals(count, table.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, table.getRowIndex(i));
+            assertEquals("课程" + (i % 7), table.getOriginalCourseName(i));
+            assertEquals(0, table.getTeacherId(i));
+            assertEquals(0, table.getCourseId(i));
+            assertEquals(0, table.getClassId(i));
+        }
+    }
+
+    @Test
+    void addAllCopiesRangeWithNewRowIndex() {
+        AssignmentTable source = new AssignmentTable("小学部", DICTIONARY);
+        source.add(0, 0, "语文", 0, 1);
+        source.add(0, 0, "语文（拓展）", 0, 1);
+        source.add(0, 0, "语文", 0, 2);
+
+        AssignmentTable target = new AssignmentTable("小学部", DICTIONARY);
+        target.addAll(source, 0, 2, 5);
+
+        assertEquals(2, target.size());
+        assertEquals("语文", target.getOriginalCourseName(0));
+        assertEquals("语文（拓展）", target.getOriginalCourseName(1));
+        assertEquals(5, target.getRowIndex(0));
+        assertEquals(5, target.getRowIndex(1));
+    }
+
+    @Test
+    void getOutOfRangeThrows() {
+        AssignmentTable table = new AssignmentTable("小学部", DICTIONARY);
+        assertThrows(IndexOutOfBoundsException.class, () -> table.getTeacherId(0));
+        table.add(0, 0, "语文", 0, 1);
+        assertThrows(IndexOutOfBoundsException.class, () -> table.getRowIndex(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> table.getCourse(-1));
+    }
+}
@@ -0,0 +1,137 @@
+package org.example.handle_excel;
+
+import org.example.handle_excel.bean.Class;
+import org.example.handle_excel.bean.Course;
+import org.example.handle_excel.bean.Teacher;
+import org.example.handle_excel.config.HandleProperties;
+import org.example.handle_excel.model.BatchFile;
+import org.example.handle_excel.model.ReferenceData;
+import org.example.handle_excel.model.Remark;
+import org.example.handle_excel.service.BatchService;
+import org.example.handle_excel.service.ReferenceDataService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 验证批量转换的上传文件写入临时文件而不保留在内存中：压缩包中只取课表文件，转换结束后删除所有临时文件；
+ * 超过总大小上限时删除已写入的临时文件。
+ */
+@SpringBootTest
+class BatchServiceTest {
+
+    private static final byte[] CSV = "课程,一年级1班\r\n语文,张三\r\n".getBytes(StandardCharsets.UTF_8);
+
+    @MockBean
+    private ReferenceDataService referenceDataService;
+
+    @Autowired
+    private BatchService batchService;
+
+    @Autowired
+    private HandleProperties handleProperties;
+
+    @Test
+    void spoolAndDeleteAfterConversion() throws IOException {
+        when(referenceDataService.getReferenceData()).thenReturn(referenceData());
+        List<BatchFile> files = batchService.readFiles(new MockMultipartFile[]{
+                new MockMultipartFile("files", "课表.csv", "text/csv", CSV),
+                new MockMultipartFile("files", "更多.zip", "application/zip",
+                        zip("一年级/课表.csv", "__MACOSX/课表.csv", "说明.txt"))});
+
+        assertEquals(List.of("课表.csv", "课表.csv"), files.stream().map(BatchFile::fileName).toList());
+        for (BatchFile file : files) {
+            assertEquals(CSV.length, file.size());
+            assertArrayEquals(CSV, Files.readAllBytes(file.file()));
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        batchService.convert(files, null, out);
+        assertEquals(List.of("课表.xlsx", "课表(2).xlsx", "汇总.xlsx"), entryNames(out.toByteArray()));
+        for (BatchFile file : files) {
+            assertFalse(Files.exists(file.file()));
+        }
+    }
+
+    @Test
+    void overLimitDeletesSpooledFiles() throws IOException {
+        HandleProperties.Batch config = handleProperties.getBatch();
+        DataSize maxSize = config.getMaxUncompressedSize();
+        List<Path> before = spooledFiles();
+        try {
+            // 第一个文件写完后，压缩包中的文件超过上限
+            config.setMaxUncompressedSize(DataSize.ofBytes(CSV.length + 1));
+            MockMultipartFile[] upload = {
+                    new MockMultipartFile("files", "课表.csv", "text/csv", CSV),
+                    new MockMultipartFile("files", "更多.zip", "application/zip", zip("课表.csv"))};
+            assertThrows(IllegalArgumentException.class, () -> batchService.readFiles(upload));
+        } finally {
+            config.setMaxUncompressedSize(maxSize);
+        }
+        assertEquals(before, spooledFiles());
+    }
+
+    private List<Path> spooledFiles() throws IOException {
+        Path dir = Paths.get(handleProperties.getInput().getSpillDir());
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("batch-")).sorted().toList();
+        }
+    }
+
+    // 每个文件的内容都是同一份课表
+    private static byte[] zip(String... names) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zipStream = new ZipOutputStream(out, StandardCharsets.UTF_8)) {
+            for (String name : names) {
+                zipStream.putNextEntry(new ZipEntry(name));
+                zipStream.write(CSV);
+                zipStream.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static List<String> entryNames(byte[] zip) throws IOException {
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream zipStream = new ZipInputStream(new ByteArrayInputStream(zip), StandardCharsets.UTF_8)) {
+            ZipEntry entry;
+            while ((entry = zipStream.getNextEntry()) != null) {
+                names.add(entry.getName());
+            }
+        }
+        return names;
+    }
+
+    private static ReferenceData referenceData() {
+        return ReferenceData.of(
+                Map.of("语文", List.of(new Course("C001", "语文（一上）", "2024-09-01", "2025-01-15",
+                        List.of(Remark.of(List.of("一上"))), 1L))),
+                Map.of("一年级1班", new Class("K001", "一年级1班", "一年级", 1L)),
+                Map.of("张三", List.of(new Teacher("T001", "张", "三", 1L))),
+                "test", 1L);
+    }
+}
@@ -9,7 +9,7 @@ public class ClassTest {
 
     @Test
     void test1(){
-        Teacher teacher = new Teacher("123", "123", "123");
+        Teacher teacher = new Teacher("123", "123", "123", 1L);
         System.out.println(teacher.getTrNum());
     }
 }
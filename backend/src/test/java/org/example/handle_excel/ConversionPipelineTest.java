@@ -0,0 +1,230 @@
+package org.example.handle_excel;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.example.handle_excel.bean.Class;
+import org.example.handle_excel.bean.Course;
+import org.example.handle_excel.bean.Teacher;
+import org.example.handle_excel.config.HandleProperties;
+import org.example.handle_excel.model.ConversionProgress;
+import org.example.handle_excel.model.ReferenceData;
+import org.example.handle_excel.model.Remark;
+import org.example.handle_excel.model.TemplateModel;
+import org.example.handle_excel.model.Term;
+import org.example.handle_excel.model.UnmatchedReason;
+import org.example.handle_excel.service.ConversionService;
+import org.example.handle_excel.service.TemplateService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 转换流程的回归测试：用生成的小课表和固定的基础数据跑完整的转换，比较输出工作簿中的排课结果和问题列表。
+ * xlsx 和 xls 的流式读取、完整加载、并行处理各 Sheet，以及 csv 输入的结果都应与预期一致；启用问题 Sheet 以比较问题列表。
+ */
+@SpringBootTest(properties = "handle.diagnostics.issue-sheet=true")
+class ConversionPipelineTest {
+
+    // 第一个模板 Sheet 的排课结果（教师编号、教师姓名、课程编号、课程名称、班级编号、班级名称）
+    private static final List<String> PRIMARY_ROWS = List.of(
+            "T001|张三|C001|语文|K001|一年级1班",
+            "T003|张三|C001|语文|K001|一年级1班",
+            "T002|李四|C001|语文|K002|一年级2班",
+            "T002|李四|C002|数学（一上）|K001|一年级1班");
+
+    // 第二个模板 Sheet 的排课结果
+    private static final List<String> SECONDARY_ROWS = List.of(
+            "T001|张三|C001|语文|K001|一年级1班",
+            "T003|张三|C001|语文|K001|一年级1班");
+
+    @Autowired
+    private ConversionService conversionService;
+
+    @Autowired
+    private TemplateService templateService;
+
+    @Autowired
+    private HandleProperties handleProperties;
+
+    private List<String> templateSheets; // 模板 Sheet 名称，按 CSV 选择默认 Sheet 的顺序排列
+
+    @BeforeEach
+    void setUp() {
+        templateSheets = new ArrayList<>(templateService.getTemplate().sheets().keySet());
+        assertTrue(templateSheets.size() >= 2, "测试需要模板中至少有两个 Sheet");
+    }
+
+    @Test
+    void xlsxInAllReadModes() throws Exception {
+        byte[] input = workbook(new XSSFWorkbook());
+        Map<String, List<String>> streaming = convert(input, HandleProperties.InputMode.STREAMING, false);
+        assertExpected(streaming);
+        assertEquals(streaming, convert(input, HandleProperties.InputMode.STREAMING, true));
+        assertEquals(streaming, convert(input, HandleProperties.InputMode.DOM, true));
+    }
+
+    @Test
+    void xlsInAllReadModes() throws Exception {
+        byte[] input = workbook(new HSSFWorkbook());
+        Map<String, List<String>> streaming = convert(input, HandleProperties.InputMode.STREAMING, false);
+        assertExpected(streaming);
+        assertEquals(streaming, convert(input, HandleProperties.InputMode.STREAMING, true));
+        assertEquals(streaming, convert(input, HandleProperties.InputMode.DOM, false));
+    }
+
+    @Test
+    void csvUsesFirstTemplateSheet() throws Exception {
+        String csv = "课程,一年级1班,一年级2班\r\n语文,张三,李四\r\n数学（一上）,李四,王五\r\n英语,张三,\r\n";
+        Map<String, List<String>> output = convert(csv.getBytes(StandardCharsets.UTF_8),
+                HandleProperties.InputMode.STREAMING, false);
+        assertEquals(PRIMARY_ROWS, dataRows(output.get(templateSheets.get(0))));
+        assertNull(output.get(templateSheets.get(1)));
+        assertEquals(List.of(
+                "Sheet|问题|内容|次数|首次出现行|首次出现列",
+                templateSheets.get(0) + "|未找到教师|王五|1|3|3",
+                templateSheets.get(0) + "|未找到课程|英语|1|4|1"), issueRows(output));
+    }
+
+    @Test
+    void progressCounts() throws Exception {
+        ConversionProgress progress = new ConversionProgress();
+        Workbook outputWorkbook = conversionService.convert(new ByteArrayResource(workbook(new XSSFWorkbook())),
+                templateService.getTemplate(), referenceData(), Term.UPPER, progress);
+        conversionService.closeOutputWorkbook(outputWorkbook);
+
+        assertEquals(4, progress.getRowsProcessed());
+        assertEquals(4, progress.getCellsMatched());
+        assertEquals(3, progress.getWarnings());
+        assertEquals(1, progress.getUnmatched(UnmatchedReason.TEACHER));
+        assertEquals(2, progress.getUnmatched(UnmatchedReason.COURSE));
+        assertEquals(3, progress.getSheetsDone());
+    }
+
+    private void assertExpected(Map<String, List<String>> output) {
+        assertEquals(List.of(templateSheets.get(0), templateSheets.get(1), "问题"), List.copyOf(output.keySet()));
+        assertEquals(PRIMARY_ROWS, dataRows(output.get(templateSheets.get(0))));
+        assertEquals(SECONDARY_ROWS, dataRows(output.get(templateSheets.get(1))));
+        // 问题按次数、Sheet 名称、行号排序
+        List<String> issues = new ArrayList<>(List.of(
+                templateSheets.get(0) + "|未找到教师|王五|1|3|3",
+                templateSheets.get(0) + "|未找到课程|英语|1|4|1"));
+        String secondary = templateSheets.get(1) + "|未找到课程|语文（二上）|1|2|2";
+        issues.add(templateSheets.get(1).compareTo(templateSheets.get(0)) < 0 ? 0 : issues.size(), secondary);
+        issues.add(0, "Sheet|问题|内容|次数|首次出现行|首次出现列");
+        assertEquals(issues, issueRows(output));
+    }
+
+    // 按指定的读取方式转换，返回输出工作簿中每个 Sheet 的所有行
+    private Map<String, List<String>> convert(byte[] input, HandleProperties.InputMode mode, boolean parallel)
+            throws Exception {
+        HandleProperties.InputMode previousMode = handleProperties.getInput().getMode();
+        boolean previousParallel = handleProperties.getParallel().isEnabled();
+        handleProperties.getInput().setMode(mode);
+        handleProperties.getParallel().setEnabled(parallel);
+        try {
+            TemplateModel template = templateService.getTemplate();
+            Workbook outputWorkbook = conversionService.convert(new ByteArrayResource(input), template,
+                    referenceData(), Term.UPPER, new ConversionProgress());
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try {
+                outputWorkbook.write(out);
+            } finally {
+                conversionService.closeOutputWorkbook(outputWorkbook);
+            }
+            return render(out.toByteArray());
+        } finally {
+            handleProperties.getInput().setMode(previousMode);
+            handleProperties.getParallel().setEnabled(previousParallel);
+        }
+    }
+
+    private static Map<String, List<String>> render(byte[] output) throws Exception {
+        Map<String, List<String>> sheets = new LinkedHashMap<>();
+        DataFormatter formatter = new DataFormatter();
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(output))) {
+            for (Sheet sheet : workbook) {
+                List<String> rows = new ArrayList<>();
+                for (Row row : sheet) {
+                    List<String> cells = new ArrayList<>();
+                    for (Cell cell : row) {
+                        cells.add(formatter.formatCellValue(cell));
+                    }
+                    rows.add(String.join("|", cells));
+                }
+                sheets.put(sheet.getSheetName(), rows);
+            }
+        }
+        return sheets;
+    }
+
+    // 模板表头之后的排课结果，只取教师、课程、班级六列
+    private static List<String> dataRows(List<String> rows) {
+        return rows.stream()
+                .filter(row -> row.startsWith("T00"))
+                .map(row -> String.join("|", List.of(row.split("\\|", -1)).subList(0, 6)))
+                .toList();
+    }
+
+    private static List<String> issueRows(Map<String, List<String>> output) {
+        return output.get("问题");
+    }
+
+    // 两个模板 Sheet 和一个模板中没有的 Sheet；第二个 Sheet 有模板中没有的年级
+    private byte[] workbook(Workbook workbook) throws Exception {
+        try (workbook; ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            Sheet primary = workbook.createSheet(templateSheets.get(0));
+            row(primary, 0, "课程", "一年级1班", "一年级2班");
+            row(primary, 1, "语文", "张三", "李四");
+            row(primary, 2, "数学（一上）", "李四", "王五");
+            row(primary, 3, "英语", "张三");
+
+            Sheet secondary = workbook.createSheet(templateSheets.get(1));
+            row(secondary, 0, "课程", "二年级1班", "一年级1班");
+            row(secondary, 1, "语文", "张三", "张三");
+
+            row(workbook.createSheet("不在模板中"), 0, "课程", "一年级1班");
+            workbook.write(out);
+            return out.toByteArray();
+        }
+    }
+
+    private static void row(Sheet sheet, int rowIndex, String... values) {
+        Row row = sheet.createRow(rowIndex);
+        for (int i = 0; i < values.length; i++) {
+            row.createCell(i).setCellValue(values[i]);
+        }
+    }
+
+    // 一年级上册的语文和数学，两个班级，两位同名的张三和一位李四
+    private static ReferenceData referenceData() {
+        return ReferenceData.of(
+                Map.of("语文", List.of(course("C001", "语文（一上）", 1L)),
+                        "数学", List.of(course("C002", "数学（一上）", 2L))),
+                Map.of("一年级1班", new Class("K001", "一年级1班", "一年级", 1L),
+                        "一年级2班", new Class("K002", "一年级2班", "一年级", 2L)),
+                Map.of("张三", List.of(new Teacher("T001", "张", "三", 1L), new Teacher("T003", "张", "三", 3L)),
+                        "李四", List.of(new Teacher("T002", "李", "四", 2L))),
+                "test", 1L);
+    }
+
+    private static Course course(String number, String name, long id) {
+        return new Course(number, name, "2024-09-01", "2025-01-15", List.of(Remark.of(List.of("一上"))), id);
+    }
+}
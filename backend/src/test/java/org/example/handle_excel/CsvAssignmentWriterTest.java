@@ -0,0 +1,88 @@
+package org.example.handle_excel;
+
+import org.example.handle_excel.bean.Class;
+import org.example.handle_excel.bean.Course;
+import org.example.handle_excel.bean.Teacher;
+import org.example.handle_excel.model.AssignmentTable;
+import org.example.handle_excel.model.ReferenceDictionary;
+import org.example.handle_excel.utils.ExcelUtils;
+import org.example.handle_excel.writer.CsvAssignmentWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 验证 CsvAssignmentWriter 的字段引号规则（RFC 4180），以及多个 Sheet 的结果写入同一个文件时只写一次表头。
+ */
+class CsvAssignmentWriterTest {
+
+    private static final String HEADER_LINE = String.join(",", CsvAssignmentWriter.HEADERS) + "\r\n";
+
+    private static final ReferenceDictionary DICTIONARY = ReferenceDictionary.build(
+            Map.of("语文", List.of(new Course("C001", "语文", "2024-09-01", null, List.of(), 1L))),
+            Map.of("一年级1班", new Class("K001", "一年级1班", "一年级", 1L)),
+            Map.of("张三", List.of(new Teacher("T001", "张", "三", 1L))));
+
+    @Test
+    void plainFieldsAreNotQuoted() throws IOException {
+        String csv = write(table("小学部", "语文"));
+        assertEquals(HEADER_LINE + "T001,张三,C001,语文,K001,一年级1班," + ExcelUtils.CLASS_SIZE_MAX + ","
+                + ExcelUtils.CLASS_SIZE_MIN + ",2024-09-01,,\r\n", csv);
+    }
+
+    @Test
+    void specialCharactersAreQuoted() throws IOException {
+        assertEquals("\"语文,拓展\"", courseNameField(write(table("小学部", "语文,拓展"))));
+        assertEquals("\"语文\"\"拓展\"\"\"", courseNameField(write(table("小学部", "语文\"拓展\""))));
+        assertEquals("\"语文\r\n拓展\"", courseNameField(write(table("小学部", "语文\r\n拓展"))));
+        assertEquals("\"语文\n拓展\"", courseNameField(write(table("小学部", "语文\n拓展"))));
+        assertEquals("\"语文\r拓展\"", courseNameField(write(table("小学部", "语文\r拓展"))));
+    }
+
+    @Test
+    void headerWrittenOnceAcrossTables() throws IOException {
+        StringWriter out = new StringWriter();
+        CsvAssignmentWriter writer = new CsvAssignmentWriter(out);
+        writer.write(table("小学部", "语文"));
+        writer.write(new AssignmentTable("空白", DICTIONARY));
+        writer.write(table("初中部", "语文"));
+
+        String csv = out.toString();
+        assertTrue(csv.startsWith(HEADER_LINE));
+        assertEquals(csv.indexOf(HEADER_LINE), csv.lastIndexOf(HEADER_LINE));
+        assertEquals(3, csv.split("\r\n").length); // 表头 + 两行结果
+    }
+
+    @Test
+    void emptyTableStillWritesHeader() throws IOException {
+        assertEquals(HEADER_LINE, write(new AssignmentTable("小学部", DICTIONARY)));
+    }
+
+    private static AssignmentTable table(String sheetName, String courseName) {
+        AssignmentTable table = new AssignmentTable(sheetName, DICTIONARY);
+        table.add(0, 0, courseName, 0, 1);
+        return table;
+    }
+
+    private static String write(AssignmentTable table) throws IOException {
+        StringWriter out = new StringWriter();
+        new CsvAssignmentWriter(out).write(table);
+        return out.toString();
+    }
+
+    // 取出唯一一行结果中的课程名称字段，前三个字段不含逗号
+    private static String courseNameField(String csv) {
+        String record = csv.substring(HEADER_LINE.length());
+        int start = 0;
+        for (int i = 0; i < 3; i++) {
+            start = record.indexOf(',', start) + 1;
+        }
+        int end = record.indexOf(",K001,", start);
+        return record.substring(start, end);
+    }
+}
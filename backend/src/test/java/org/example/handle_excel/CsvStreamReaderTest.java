@@ -0,0 +1,72 @@
+package org.example.handle_excel;
+
+import org.example.handle_excel.utils.CsvStreamReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 验证 CsvStreamReader 按 RFC 4180 解析引号、换行，以及按 BOM 和内容判断编码。
+ */
+class CsvStreamReaderTest {
+
+    private static final Charset GBK = Charset.forName("GBK");
+
+    @Test
+    void quotedFields() throws IOException {
+        String csv = "教师,课程\n\"张,三\",\"语文\"\"拓展\"\"\"\n\"李四\",\"多\r\n行\"\n";
+        assertEquals(List.of("0:[教师, 课程]", "1:[张,三, 语文\"拓展\"]", "2:[李四, 多\r\n行]"),
+                read(csv.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void lineEndings() throws IOException {
+        // CRLF、LF、CR 都作为记录结束；空行不回调但占用行索引，最后一条记录可以没有换行
+        String csv = "a,b\r\nc,d\n\r\ne, f \rg,";
+        assertEquals(List.of("0:[a, b]", "1:[c, d]", "3:[e, f]", "4:[g, ]"), read(csv.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void utf8WithBom() throws IOException {
+        byte[] body = "教师,课程\n".getBytes(StandardCharsets.UTF_8);
+        byte[] content = new byte[body.length + 3];
+        content[0] = (byte) 0xEF;
+        content[1] = (byte) 0xBB;
+        content[2] = (byte) 0xBF;
+        System.arraycopy(body, 0, content, 3, body.length);
+        assertEquals(List.of("0:[教师, 课程]"), read(content));
+    }
+
+    @Test
+    void utf8WithoutBom() throws IOException {
+        assertEquals(List.of("0:[教师, 课程]"), read("教师,课程".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void fallbackCharsetForInvalidUtf8() throws IOException {
+        assertEquals(List.of("0:[教师, 课程]"), read("教师,课程\r\n".getBytes(GBK)));
+    }
+
+    @Test
+    void readOnlyOnce() throws IOException {
+        CsvStreamReader reader = new CsvStreamReader(new ByteArrayInputStream(new byte[0]), "小学部", GBK);
+        assertEquals(List.of("小学部"), reader.getSheetNames());
+        reader.readSheet(0, (rowIndex, values) -> fail("空文件不应回调"));
+        assertThrows(IllegalStateException.class, () -> reader.readSheet(0, (rowIndex, values) -> { }));
+        assertThrows(IndexOutOfBoundsException.class, () -> reader.readSheet(1, (rowIndex, values) -> { }));
+    }
+
+    private static List<String> read(byte[] content) throws IOException {
+        CsvStreamReader reader = new CsvStreamReader(new ByteArrayInputStream(content), "小学部", GBK);
+        List<String> rows = new ArrayList<>();
+        reader.readSheet(0, (rowIndex, values) -> rows.add(rowIndex + ":" + List.of(values)));
+        return rows;
+    }
+}
@@ -0,0 +1,94 @@
+package org.example.handle_excel;
+
+import org.apache.poi.hssf.record.crypto.Biff8EncryptionKey;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.example.handle_excel.utils.HssfStreamReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 验证 HssfStreamReader 按 Sheet 读取 xls 的结果：各 Sheet 从自己的起始位置读取，与读取顺序无关，
+ * 共享字符串、数字、字符串公式的值与 xlsx 的流式读取一致，两行之间缺失的行回调为空行；加密的文件从头读取。
+ */
+class HssfStreamReaderTest {
+
+    @Test
+    void sheetNamesInFileOrder() throws IOException {
+        HssfStreamReader reader = new HssfStreamReader(new ByteArrayInputStream(workbook()));
+        assertEquals(List.of("小学部", "初中部", "空白"), reader.getSheetNames());
+    }
+
+    @Test
+    void readSheetsInAnyOrder() throws IOException {
+        HssfStreamReader reader = new HssfStreamReader(new ByteArrayInputStream(workbook()));
+
+        // 先读后面的 Sheet，再读前面的 Sheet，同一个 Sheet 可以重复读取
+        assertEquals(List.of(), read(reader, 2));
+        assertEquals(List.of("0:[教师, 七年级1班]", "1:[王五, 英语（七上）]", "2:[赵六, 语文]"), read(reader, 1));
+        assertEquals(List.of("0:[教师, 一年级1班, 一年级2班]", "1:[张三, 语文, 数学]", "2:[]", "3:[李四, 42, 1.5]"),
+                read(reader, 0));
+        assertEquals(read(reader, 1), read(reader, 1));
+    }
+
+    @Test
+    void encryptedWorkbookReadsFromStart() throws IOException {
+        byte[] content;
+        Biff8EncryptionKey.setCurrentUserPassword("secret");
+        try {
+            content = workbook();
+            HssfStreamReader reader = new HssfStreamReader(new ByteArrayInputStream(content));
+            assertEquals(List.of("0:[教师, 七年级1班]", "1:[王五, 英语（七上）]", "2:[赵六, 语文]"), read(reader, 1));
+            assertEquals(List.of("0:[教师, 一年级1班, 一年级2班]", "1:[张三, 语文, 数学]", "2:[]", "3:[李四, 42, 1.5]"),
+                    read(reader, 0));
+        } finally {
+            Biff8EncryptionKey.setCurrentUserPassword(null);
+        }
+    }
+
+    private static List<String> read(HssfStreamReader reader, int sheetIndex) throws IOException {
+        List<String> rows = new ArrayList<>();
+        reader.readSheet(sheetIndex, (rowIndex, values) -> rows.add(rowIndex + ":" + List.of(values)));
+        return rows;
+    }
+
+    // 三个 Sheet：共享字符串和数字、字符串公式、没有内容
+    private static byte[] workbook() throws IOException {
+        try (HSSFWorkbook workbook = new HSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            Sheet primary = workbook.createSheet("小学部");
+            row(primary, 0, "教师", "一年级1班", "一年级2班");
+            row(primary, 1, "张三", "语文", " 数学 ");
+            Row numbers = primary.createRow(3); // 索引 2 的行缺失
+            numbers.createCell(0).setCellValue("李四");
+            numbers.createCell(1).setCellValue(42);
+            numbers.createCell(2).setCellValue(1.5);
+
+            Sheet junior = workbook.createSheet("初中部");
+            row(junior, 0, "教师", "七年级1班");
+            row(junior, 1, "王五", "英语（七上）");
+            Row formula = junior.createRow(2);
+            formula.createCell(0).setCellValue("赵六");
+            formula.createCell(1).setCellFormula("\"语\"&\"文\"");
+            workbook.getCreationHelper().createFormulaEvaluator().evaluateAll();
+
+            workbook.createSheet("空白");
+            workbook.write(out);
+            return out.toByteArray();
+        }
+    }
+
+    private static void row(Sheet sheet, int rowIndex, String... values) {
+        Row row = sheet.createRow(rowIndex);
+        for (int i = 0; i < values.length; i++) {
+            row.createCell(i).setCellValue(values[i]);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package org.example.handle_excel;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.handle_excel.bean.Class;
+import org.example.handle_excel.bean.Course;
+import org.example.handle_excel.bean.Teacher;
+import org.example.handle_excel.config.HandleProperties;
+import org.example.handle_excel.model.AssignmentTable;
+import org.example.handle_excel.model.ConversionContext;
+import org.example.handle_excel.model.ConversionProgress;
+import org.example.handle_excel.model.IncrementalSession;
+import org.example.handle_excel.model.ReferenceData;
+import org.example.handle_excel.model.Remark;
+import org.example.handle_excel.model.Term;
+import org.example.handle_excel.model.UnmatchedReason;
+import org.example.handle_excel.service.IncrementalService;
+import org.example.handle_excel.service.SheetService;
+import org.example.handle_excel.service.TemplateService;
+import org.example.handle_excel.utils.CsvStreamReader;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 验证增量转换：内容没有变化的行复用上一次的结果并按新的行号重新记录问题，结果与全部重新匹配一致；
+ * 表头、基础数据版本或学期变化时不复用；保存的快照受文档数、行数和内存上限约束，不占用转换的内存预算。
+ */
+@SpringBootTest
+class IncrementalServiceTest {
+
+    private static final String FIRST = """
+            课程,一年级1班,一年级2班
+            语文,张三,李四
+            数学,李四,王五
+            英语,张三,
+            """;
+
+    // 调换两行的顺序，修改一行，新增一行
+    private static final String SECOND = """
+            课程,一年级1班,一年级2班
+            英语,张三,
+            数学,李四,王五
+            语文,张三,张三
+            数学（一上）,张三,
+            """;
+
+    @Autowired
+    private IncrementalService incrementalService;
+
+    @Autowired
+    private SheetService sheetService;
+
+    @Autowired
+    private TemplateService templateService;
+
+    @Autowired
+    private HandleProperties handleProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void reuseUnchangedRows() throws IOException {
+        Run first = convert("reuse", referenceData(1), Term.UPPER, FIRST);
+        assertEquals(0, first.session().getReusedRows());
+        assertEquals(3, first.session().getProcessedRows());
+
+        Run second = convert("reuse", referenceData(1), Term.UPPER, SECOND);
+        assertEquals(2, second.session().getReusedRows());
+        assertEquals(2, second.session().getProcessedRows());
+
+        // 复用的行与全部重新匹配的结果、计数和问题（含行号）都相同
+        Run full = convert(null, referenceData(1), Term.UPPER, SECOND);
+        assertNull(full.session());
+        assertEquals(full.rows(), second.rows());
+        assertEquals(full.progress().getCellsMatched(), second.progress().getCellsMatched());
+        assertEquals(full.progress().getUnmatched(UnmatchedReason.TEACHER),
+                second.progress().getUnmatched(UnmatchedReason.TEACHER));
+        assertEquals(full.progress().getUnmatched(UnmatchedReason.COURSE),
+                second.progress().getUnmatched(UnmatchedReason.COURSE));
+        assertEquals(full.progress().getDiagnostics().getIssues(), second.progress().getDiagnostics().getIssues());
+        assertEquals(List.of(3), rowsOf(second, "王五"));
+    }
+
+    @Test
+    void headerChangeInvalidatesSheet() throws IOException {
+        convert("header", referenceData(1), Term.UPPER, FIRST);
+        Run run = convert("header", referenceData(1), Term.UPPER, FIRST.replace("一年级1班,一年级2班", "一年级2班,一年级1班"));
+        assertEquals(0, run.session().getReusedRows());
+        assertEquals(3, run.session().getProcessedRows());
+        assertEquals(List.of("1:张三/语文（一上）/一年级2班", "1:李四/语文（一上）/一年级1班",
+                "2:李四/数学（一上）/一年级2班"), run.rows());
+    }
+
+    @Test
+    void referenceVersionAndTermInvalidateDocument() throws IOException {
+        convert("version", referenceData(1), Term.UPPER, FIRST);
+        Run reloaded = convert("version", referenceData(2), Term.UPPER, FIRST);
+        assertEquals(0, reloaded.session().getReusedRows());
+
+        Run otherTerm = convert("version", referenceData(2), Term.LOWER, FIRST);
+        assertEquals(0, otherTerm.session().getReusedRows());
+        assertEquals(List.of(), otherTerm.rows()); // 测试数据中没有下册的课程
+
+        Run unchanged = convert("version", referenceData(2), Term.LOWER, FIRST);
+        assertEquals(3, unchanged.session().getReusedRows());
+    }
+
+    @Test
+    void boundedByDocumentsRowsAndMemory() throws IOException {
+        HandleProperties.Incremental config = handleProperties.getIncremental();
+        int maxDocuments = config.getMaxDocuments();
+        long maxRows = config.getMaxRows();
+        DataSize maxMemory = config.getMaxMemory();
+        double reserved = reserved();
+        try {
+            config.setMaxDocuments(2);
+            convert("bound-1", referenceData(1), Term.UPPER, FIRST);
+            convert("bound-2", referenceData(1), Term.UPPER, FIRST);
+            convert("bound-3", referenceData(1), Term.UPPER, FIRST);
+            assertEquals(2, incrementalService.getDocumentCount());
+            assertEquals(6, incrementalService.getStoredRows());
+            long bytes = incrementalService.getStoredBytes();
+            assertTrue(bytes > 0);
+            assertEquals(reserved, reserved()); // 快照不从转换的预算中预留
+
+            // 最久未使用的文档已被淘汰
+            assertEquals(0, convert("bound-1", referenceData(1), Term.UPPER, FIRST).session().getReusedRows());
+            assertEquals(3, convert("bound-3", referenceData(1), Term.UPPER, FIRST).session().getReusedRows());
+
+            // 内存超过上限时淘汰最久未使用的文档，只保留一个文档
+            config.setMaxMemory(DataSize.ofBytes(bytes * 3 / 4));
+            convert("bound-5", referenceData(1), Term.UPPER, FIRST);
+            assertEquals(1, incrementalService.getDocumentCount());
+            assertEquals(bytes / 2, incrementalService.getStoredBytes());
+            assertEquals(3, convert("bound-5", referenceData(1), Term.UPPER, FIRST).session().getReusedRows());
+
+            // 超过行数上限的文档不保存，总行数超过上限时淘汰其他文档
+            config.setMaxRows(2);
+            convert("bound-4", referenceData(1), Term.UPPER, FIRST);
+            assertEquals(0, incrementalService.getDocumentCount());
+            assertEquals(0, incrementalService.getStoredRows());
+            assertEquals(0, incrementalService.getStoredBytes());
+        } finally {
+            config.setMaxDocuments(maxDocuments);
+            config.setMaxRows(maxRows);
+            config.setMaxMemory(maxMemory);
+        }
+    }
+
+    /**
+     * 一次转换的结果。
+     *
+     * @param rows     排课结果，格式为“来源行索引:教师/课程/班级”
+     * @param progress 转换进度
+     * @param session  增量转换状态，未提供文档 ID 时为 null
+     */
+    private record Run(List<String> rows, ConversionProgress progress, IncrementalSession session) {
+    }
+
+    // 与 ConversionService 相同：打开快照、处理所有 Sheet、保存快照
+    private Run convert(String documentId, ReferenceData referenceData, Term term, String csv) throws IOException {
+        ConversionProgress progress = new ConversionProgress();
+        IncrementalSession session = incrementalService.open(documentId, referenceData, term);
+        List<AssignmentTable> tables = new ArrayList<>();
+        ConversionContext context = new ConversionContext(templateService.getTemplate(), referenceData, term,
+                tables::add, session, progress);
+        String sheetName = context.template().sheets().keySet().iterator().next();
+        sheetService.ProcessSheet(new CsvStreamReader(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                sheetName, StandardCharsets.UTF_8), null, context);
+        incrementalService.save(session);
+
+        List<String> rows = new ArrayList<>();
+        for (AssignmentTable table : tables) {
+            for (int i = 0; i < table.size(); i++) {
+                rows.add(table.getRowIndex(i) + ":" + table.getTeacherName(i) + "/" + table.getCourse(i).getCourName()
+                        + "/" + table.getClassEntity(i).getClassName());
+            }
+        }
+        return new Run(rows, progress, session);
+    }
+
+    // 某位教师的问题所在的行号
+    private static List<Integer> rowsOf(Run run, String key) {
+        return run.progress().getDiagnostics().getIssues().stream()
+                .filter(issue -> issue.key().equals(key))
+                .map(issue -> issue.firstRow())
+                .toList();
+    }
+
+    private double reserved() {
+        return meterRegistry.get("handle.admission.reserved").gauge().value();
+    }
+
+    // 一年级上册的语文和数学，两个班级，两位教师；英语和王五不存在
+    private static ReferenceData referenceData(long version) {
+        return ReferenceData.of(
+                Map.of("语文", List.of(course("C001", "语文（一上）", 1L)),
+                        "数学", List.of(course("C002", "数学（一上）", 2L))),
+                Map.of("一年级1班", new Class("K001", "一年级1班", "一年级", 1L),
+                        "一年级2班", new Class("K002", "一年级2班", "一年级", 2L)),
+                Map.of("张三", List.of(new Teacher("T001", "张", "三", 1L)),
+                        "李四", List.of(new Teacher("T002", "李", "四", 2L))),
+                "test", version);
+    }
+
+    private static Course course(String number, String name, long id) {
+        return new Course(number, name, "2024-09-01", "2025-01-15", List.of(Remark.of(List.of("一上"))), id);
+    }
+}
@@ -0,0 +1,66 @@
+package org.example.handle_excel;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.example.handle_excel.model.InputFormat;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 验证 InputFormat.detect 按文件内容判断格式，判断后输入流回到开头。
+ */
+class InputFormatTest {
+
+    @Test
+    void detectXlsx() throws IOException {
+        assertDetected(InputFormat.XLSX, workbook(new XSSFWorkbook()));
+    }
+
+    @Test
+    void detectXls() throws IOException {
+        assertDetected(InputFormat.XLS, workbook(new HSSFWorkbook()));
+    }
+
+    @Test
+    void detectCsv() throws IOException {
+        assertDetected(InputFormat.CSV, "教师,课程\r\n张三,语文\r\n".getBytes(StandardCharsets.UTF_8));
+        assertDetected(InputFormat.CSV, "教师,课程".getBytes(Charset.forName("GBK")));
+    }
+
+    @Test
+    void rejectUnsupported() {
+        // PDF 和含 NUL 字节的二进制文件
+        assertThrows(IllegalArgumentException.class,
+                () -> InputFormat.detect(stream("%PDF-1.4\n".getBytes(StandardCharsets.US_ASCII))));
+        assertThrows(IllegalArgumentException.class,
+                () -> InputFormat.detect(stream(new byte[]{'a', 'b', 0, 'c', 1, 2, 3, 4, 5, 6})));
+    }
+
+    private static void assertDetected(InputFormat expected, byte[] content) throws IOException {
+        InputStream input = stream(content);
+        assertEquals(expected, InputFormat.detect(input));
+        assertArrayEquals(content, input.readAllBytes()); // 读取的内容已放回输入流
+    }
+
+    private static InputStream stream(byte[] content) {
+        return new BufferedInputStream(new ByteArrayInputStream(content));
+    }
+
+    private static byte[] workbook(Workbook workbook) throws IOException {
+        try (workbook; ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            workbook.createSheet("小学部").createRow(0).createCell(0).setCellValue("教师");
+            workbook.write(out);
+            return out.toByteArray();
+        }
+    }
+}
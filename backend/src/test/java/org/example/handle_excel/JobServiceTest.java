@@ -0,0 +1,62 @@
+package org.example.handle_excel;
+
+import org.example.handle_excel.config.HandleProperties;
+import org.example.handle_excel.model.ConversionJob;
+import org.example.handle_excel.service.ConversionService;
+import org.example.handle_excel.service.JobService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 验证转换任务抛出 Error 时任务同样标记为失败并删除任务文件，已结束的任务在查询时按保留时间清理。
+ */
+@SpringBootTest
+class JobServiceTest {
+
+    @MockBean
+    private ConversionService conversionService;
+
+    @Autowired
+    private JobService jobService;
+
+    @Autowired
+    private HandleProperties handleProperties;
+
+    @Test
+    void errorFailsJobAndPurgesOnLookup() throws Exception {
+        when(conversionService.convert(any(), any(), any(), any())).thenThrow(new StackOverflowError());
+        ConversionJob job = jobService.submit(new MockMultipartFile("file", "课表.csv", "text/csv",
+                "课程,一年级1班\r\n语文,张三\r\n".getBytes(StandardCharsets.UTF_8)), null, null);
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!job.isFinished() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(ConversionJob.Status.FAILED, job.getStatus());
+        assertEquals("文件处理失败", job.getError());
+        assertFalse(Files.exists(job.getInputFile()));
+        assertFalse(Files.exists(job.getResultFile().resolveSibling(job.getId() + ".part")));
+        assertSame(job, jobService.getJob(job.getId()));
+
+        // 保留时间为 0 时，查询前清理已结束的任务
+        Duration retention = handleProperties.getJob().getRetention();
+        try {
+            handleProperties.getJob().setRetention(Duration.ZERO);
+            Thread.sleep(5);
+            assertNull(jobService.getJob(job.getId()));
+        } finally {
+            handleProperties.getJob().setRetention(retention);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.handle_excel;
+
+import org.example.handle_excel.model.AssignmentTable;
+import org.example.handle_excel.model.ReferenceDictionary;
+import org.example.handle_excel.model.SheetSnapshot;
+import org.example.handle_excel.model.UnmatchedReason;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 验证 SheetSnapshot 的行指纹和按指纹查找记录：末尾空单元格不影响指纹，单元格边界影响指纹，
+ * 超过初始容量后仍能找到所有记录，重复的指纹保留第一次的记录。
+ */
+class SheetSnapshotTest {
+
+    @Test
+    void fingerprintIgnoresTrailingEmptyCells() {
+        long fingerprint = SheetSnapshot.fingerprint(new String[]{"语文", "张三"});
+        assertEquals(fingerprint, SheetSnapshot.fingerprint(new String[]{"语文", "张三", "", null}));
+        assertEquals(SheetSnapshot.fingerprint(new String[]{"语文", null, "张三"}),
+                SheetSnapshot.fingerprint(new String[]{"语文", "", "张三"}));
+        assertEquals(SheetSnapshot.fingerprint(new String[0]), SheetSnapshot.fingerprint(new String[]{"", null}));
+    }
+
+    @Test
+    void fingerprintSeparatesCells() {
+        assertNotEquals(SheetSnapshot.fingerprint(new String[]{"语文", "张三"}),
+                SheetSnapshot.fingerprint(new String[]{"语", "文张三"}));
+        assertNotEquals(SheetSnapshot.fingerprint(new String[]{"语文", "", "张三"}),
+                SheetSnapshot.fingerprint(new String[]{"语文", "张三"}));
+        assertNotEquals(SheetSnapshot.fingerprint(new String[]{"语文", "张三"}),
+                SheetSnapshot.fingerprint(new String[]{"张三", "语文"}));
+    }
+
+    @Test
+    void findRecordsBeyondInitialCapacity() {
+        SheetSnapshot snapshot = new SheetSnapshot(1L, table());
+        int rows = 1000;
+        for (int i = 0; i < rows; i++) {
+            snapshot.record(fingerprint(i), i * 2, i * 2 + 2, i % 3, List.of());
+        }
+        assertEquals(rows, snapshot.size());
+        for (int i = 0; i < rows; i++) {
+            int index = snapshot.find(fingerprint(i));
+            assertEquals(i, index);
+            assertEquals(i * 2, snapshot.getStart(index));
+            assertEquals(i * 2 + 2, snapshot.getEnd(index));
+            assertEquals(i % 3, snapshot.getMatched(index));
+        }
+        assertEquals(-1, snapshot.find(fingerprint(rows)));
+        assertTrue(snapshot.estimatedBytes() > rows * 12L);
+    }
+
+    @Test
+    void keepFirstRecordAndWarnings() {
+        SheetSnapshot snapshot = new SheetSnapshot(1L, table());
+        List<SheetSnapshot.RowWarning> warnings = List.of(new SheetSnapshot.RowWarning(UnmatchedReason.TEACHER, "王五", 3));
+        // 指纹 0 和 (1 << 32 | 1) 的高低 32 位异或后相同，落在散列表的同一位置
+        snapshot.record(0L, 0, 1, 1, warnings);
+        snapshot.record(1L << 32 | 1L, 1, 3, 2, List.of());
+        snapshot.record(0L, 3, 4, 0, List.of());
+
+        assertEquals(2, snapshot.size());
+        int first = snapshot.find(0L);
+        assertEquals(0, snapshot.getStart(first));
+        assertEquals(warnings, snapshot.getWarnings(first));
+        int second = snapshot.find(1L << 32 | 1L);
+        assertEquals(1, snapshot.getStart(second));
+        assertEquals(List.of(), snapshot.getWarnings(second));
+    }
+
+    private static long fingerprint(int row) {
+        return SheetSnapshot.fingerprint(new String[]{"课程" + row, "张三"});
+    }
+
+    private static AssignmentTable table() {
+        return new AssignmentTable("小学部", ReferenceDictionary.build(Map.of(), Map.of(), Map.of()));
+    }
+}
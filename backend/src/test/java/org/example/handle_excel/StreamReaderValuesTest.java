@@ -0,0 +1,149 @@
+package org.example.handle_excel;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.example.handle_excel.utils.ExcelStreamReader;
+import org.example.handle_excel.utils.ExcelUtils;
+import org.example.handle_excel.utils.HssfStreamReader;
+import org.example.handle_excel.utils.SheetStreamReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 验证 xlsx 和 xls 的流式读取与完整加载（ExcelUtils.getRowValues）得到相同的单元格字符串：
+ * 字符串、整数和小数、带数字格式的数值、日期、布尔值、公式结果、错误值，以及 1904 日期系统和内联字符串。
+ */
+class StreamReaderValuesTest {
+
+    @Test
+    void xlsxMatchesDom() throws Exception {
+        byte[] content = workbook(new XSSFWorkbook());
+        Map<Integer, List<String>> dom = readDom(content);
+        assertEquals(dom, readStreaming(content, false));
+        assertEquals(List.of("语文", "42", "1.5", "3", "true", "false", "3", "ab", "true", "", "", "", "末尾",
+                DateUtil.getJavaDate(45500).toString(), "0.25", "-1"), dom.get(0));
+    }
+
+    @Test
+    void xlsxWith1904DatesMatchesDom() throws Exception {
+        XSSFWorkbook workbook = new XSSFWorkbook();
+        workbook.getCTWorkbook().addNewWorkbookPr().setDate1904(true);
+        byte[] content = workbook(workbook);
+        assertEquals(readDom(content), readStreaming(content, false));
+    }
+
+    @Test
+    void inlineStringsMatchDom() throws Exception {
+        // SXSSF 以内联字符串写入单元格
+        byte[] content = workbook(new SXSSFWorkbook());
+        assertEquals(readDom(content), readStreaming(content, false));
+    }
+
+    @Test
+    void xlsMatchesDom() throws Exception {
+        byte[] content = workbook(new HSSFWorkbook());
+        assertEquals(readDom(content), readStreaming(content, true));
+    }
+
+    // 完整加载后按行读取，跳过空行，去掉末尾的空单元格
+    private static Map<Integer, List<String>> readDom(byte[] content) throws IOException {
+        Map<Integer, List<String>> rows = new LinkedHashMap<>();
+        try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(content))) {
+            for (Row row : workbook.getSheetAt(0)) {
+                put(rows, row.getRowNum(), ExcelUtils.getRowValues(row));
+            }
+        }
+        return rows;
+    }
+
+    private static Map<Integer, List<String>> readStreaming(byte[] content, boolean xls) throws Exception {
+        Map<Integer, List<String>> rows = new LinkedHashMap<>();
+        if (xls) {
+            SheetStreamReader reader = new HssfStreamReader(new ByteArrayInputStream(content));
+            reader.readSheet(0, (rowIndex, values) -> put(rows, rowIndex, values));
+            return rows;
+        }
+        try (OPCPackage inputPackage = OPCPackage.open(new ByteArrayInputStream(content))) {
+            SheetStreamReader reader = new ExcelStreamReader(inputPackage);
+            reader.readSheet(0, (rowIndex, values) -> put(rows, rowIndex, values));
+        }
+        return rows;
+    }
+
+    private static void put(Map<Integer, List<String>> rows, int rowIndex, String[] values) {
+        int length = values.length;
+        while (length > 0 && values[length - 1].isEmpty()) {
+            length--;
+        }
+        if (length > 0) {
+            rows.put(rowIndex, List.of(Arrays.copyOf(values, length)));
+        }
+    }
+
+    // 第一行包含各种类型的单元格，第二行缺失，第三行是普通的课表内容
+    private static byte[] workbook(Workbook workbook) throws IOException {
+        try (workbook; ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            CellStyle decimal = style(workbook, "0.00");
+            CellStyle date = style(workbook, "yyyy-mm-dd");
+            CellStyle percent = style(workbook, "0%");
+
+            Sheet sheet = workbook.createSheet("小学部");
+            Row row = sheet.createRow(0);
+            row.createCell(0).setCellValue("  语文 ");
+            row.createCell(1).setCellValue(42);
+            row.createCell(2).setCellValue(1.5);
+            row.createCell(3).setCellValue(3);
+            row.getCell(3).setCellStyle(decimal);
+            row.createCell(4).setCellValue(true);
+            row.createCell(5).setCellValue(false);
+            row.createCell(6).setCellFormula("1+2");
+            row.getCell(6).setCellStyle(date); // 公式的数值结果不按日期处理
+            row.createCell(7).setCellFormula("\"a\"&\"b\"");
+            row.createCell(8).setCellFormula("1=1");
+            row.createCell(9).setCellErrorValue(FormulaError.NA.getCode());
+            row.createCell(10).setCellFormula("1/0");
+            row.createCell(11).setCellStyle(percent); // 只有样式的空单元格
+            row.createCell(12).setCellValue(" 末尾 ");
+            row.createCell(13).setCellValue(45500);
+            row.getCell(13).setCellStyle(date);
+            row.createCell(14).setCellValue(0.25);
+            row.getCell(14).setCellStyle(percent);
+            row.createCell(15).setCellValue(-1);
+            row.getCell(15).setCellStyle(date); // 不是有效的日期，按数值处理
+            workbook.getCreationHelper().createFormulaEvaluator().evaluateAll();
+
+            Row lesson = sheet.createRow(2);
+            lesson.createCell(0).setCellValue("数学（一上）");
+            lesson.createCell(2).setCellValue("张三");
+            workbook.write(out);
+            if (workbook instanceof SXSSFWorkbook streaming) {
+                streaming.dispose();
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static CellStyle style(Workbook workbook, String format) {
+        CellStyle style = workbook.createCellStyle();
+        style.setDataFormat(workbook.createDataFormat().getFormat(format));
+        return style;
+    }
+}
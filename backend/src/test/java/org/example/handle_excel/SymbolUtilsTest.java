@@ -0,0 +1,101 @@
+package org.example.handle_excel;
+
+import org.example.handle_excel.model.Remark;
+import org.example.handle_excel.model.Term;
+import org.example.handle_excel.utils.SymbolUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 验证 SymbolUtils 的括号解析结果与原先基于正则表达式的实现一致。
+ * course-names.txt 为 test.sql 中 course 表的全部课程名称。
+ */
+class SymbolUtilsTest {
+
+    // 原先使用的正则表达式，匹配中英文括号内的内容
+    private static final Pattern BRACKET_CONTENT_PATTERN = Pattern.compile("[（(][^）)]*?[）)]");
+
+    // 括号内含空白、括号不成对等边界情况
+    private static final List<String> EDGE_CASES = List.of(
+            "", "语文", "()", "（）", "( )", "(  \t )", "( 七上)", "(七上 )", "(七上  社团\t活动)",
+            "a(b", "a)b(c)", "(x(y)z)", "（七上)", "(一上)(二下)", "英语（七下）（ 拓展 ）尾", "(上)", "(七中)");
+
+    @Test
+    void processMatchesRegex() throws IOException {
+        for (String name : loadNames()) {
+            List<ArrayList<String>> expected = legacyProcess(name);
+            List<Remark> actual = SymbolUtils.process(name);
+            assertEquals(expected.size(), actual.size(), name);
+            for (int i = 0; i < expected.size(); i++) {
+                List<String> tokens = expected.get(i).subList(1, expected.get(i).size() - 1);
+                assertEquals(tokens, actual.get(i).tokens(), name);
+            }
+        }
+    }
+
+    @Test
+    void removeSymbolMatchesRegex() throws IOException {
+        for (String name : loadNames()) {
+            assertEquals(BRACKET_CONTENT_PATTERN.matcher(name).replaceAll(""), SymbolUtils.removeSymbol(name), name);
+        }
+    }
+
+    @Test
+    void parsesGradeTermAndTags() {
+        Remark remark = SymbolUtils.process("体育三（兵乓球）（一上 社团）").get(1);
+        assertEquals("一", remark.grade());
+        assertEquals(Term.UPPER, remark.term());
+        assertEquals(List.of("社团"), remark.tags());
+
+        remark = SymbolUtils.process("美术（七下）").get(0);
+        assertEquals("七", remark.grade());
+        assertEquals(Term.LOWER, remark.term());
+        assertTrue(remark.tags().isEmpty());
+
+        remark = SymbolUtils.process("体育三（兵乓球）（一上）").get(0);
+        assertNull(remark.grade());
+        assertNull(remark.term());
+        assertEquals(List.of("兵乓球"), remark.tags());
+    }
+
+    private static List<String> loadNames() throws IOException {
+        List<String> names = new ArrayList<>(EDGE_CASES);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                Objects.requireNonNull(SymbolUtilsTest.class.getResourceAsStream("/course-names.txt")),
+                StandardCharsets.UTF_8))) {
+            reader.lines().forEach(names::add);
+        }
+        return names;
+    }
+
+    // 原先 SymbolUtils.process 的实现
+    private static List<ArrayList<String>> legacyProcess(String input) {
+        List<ArrayList<String>> resultList = new ArrayList<>();
+        if (input == null || input.isEmpty()) {
+            return resultList;
+        }
+        Matcher matcher = BRACKET_CONTENT_PATTERN.matcher(input);
+        while (matcher.find()) {
+            String content = matcher.group();
+            String innerContent = content.substring(1, content.length() - 1);
+            ArrayList<String> contentList = new ArrayList<>();
+            contentList.add("(");
+            Collections.addAll(contentList, innerContent.split("\\s+"));
+            contentList.add(")");
+            resultList.add(contentList);
+        }
+        return resultList;
+    }
+}
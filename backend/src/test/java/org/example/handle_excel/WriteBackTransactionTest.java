@@ -0,0 +1,118 @@
+package org.example.handle_excel;
+
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.example.handle_excel.mapper.ClassMapper;
+import org.example.handle_excel.mapper.CourseMapper;
+import org.example.handle_excel.mapper.TeacherMapper;
+import org.example.handle_excel.model.ConversionProgress;
+import org.example.handle_excel.service.ConversionService;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.mybatis.spring.SqlSessionUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 验证写回数据库时，基础数据缓存未加载的情况下基础数据在写回事务之外加载。
+ * 事务管理器模拟真实事务的同步回调；Mapper 被调用时像真实的 Mapper 一样通过 SqlSessionUtils 获取普通执行器的 SqlSession，
+ * 如果在事务中加载基础数据，该 SqlSession 会绑定到事务上，之后批量执行器的 SqlSession 将无法使用。
+ */
+@SpringBootTest(properties = {"handle.write-back.enabled=true", "handle.cache.enabled=false"})
+class WriteBackTransactionTest {
+
+    @MockBean
+    private CourseMapper courseMapper;
+
+    @MockBean
+    private ClassMapper classMapper;
+
+    @MockBean
+    private TeacherMapper teacherMapper;
+
+    @MockBean
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ConversionService conversionService;
+
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Test
+    void coldReferenceCacheLoadsOutsideTransaction() throws Exception {
+        List<Boolean> inTransaction = new ArrayList<>(); // 每次调用 Mapper 时是否处于事务中
+        doAnswer(mapperCall(inTransaction, null)).when(courseMapper).streamCourses(any(), any());
+        doAnswer(mapperCall(inTransaction, null)).when(classMapper).streamClasses(any(), any());
+        doAnswer(mapperCall(inTransaction, null)).when(teacherMapper).streamTeachers(any());
+        when(courseMapper.getVersion()).thenAnswer(mapperCall(inTransaction, "1"));
+        when(classMapper.getVersion()).thenAnswer(mapperCall(inTransaction, "1"));
+        when(teacherMapper.getVersion()).thenAnswer(mapperCall(inTransaction, "1"));
+
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> {
+            TransactionSynchronizationManager.initSynchronization();
+            return new SimpleTransactionStatus();
+        });
+        doAnswer(invocation -> completeTransaction(TransactionSynchronization.STATUS_COMMITTED))
+                .when(transactionManager).commit(any());
+        doAnswer(invocation -> completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK))
+                .when(transactionManager).rollback(any());
+
+        Workbook outputWorkbook = conversionService.convertAndWriteBack(
+                new ByteArrayResource(headerOnlyWorkbook()), null, null, new ConversionProgress());
+        conversionService.closeOutputWorkbook(outputWorkbook);
+
+        assertFalse(inTransaction.isEmpty());
+        assertFalse(inTransaction.contains(true));
+        verify(transactionManager).getTransaction(any());
+        verify(transactionManager).commit(any());
+        verify(transactionManager, never()).rollback(any());
+        assertFalse(TransactionSynchronizationManager.isSynchronizationActive());
+    }
+
+    // 记录调用时是否处于事务中，并像真实的 Mapper 一样获取和释放普通执行器的 SqlSession
+    private Answer<Object> mapperCall(List<Boolean> inTransaction, Object result) {
+        return invocation -> {
+            inTransaction.add(TransactionSynchronizationManager.isSynchronizationActive());
+            SqlSession session = SqlSessionUtils.getSqlSession(sqlSessionFactory);
+            SqlSessionUtils.closeSqlSession(session, sqlSessionFactory);
+            return result;
+        };
+    }
+
+    // 与真实的事务管理器一样，结束事务时执行同步回调，释放绑定到事务的 SqlSession
+    private Object completeTransaction(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationUtils.triggerBeforeCompletion();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, status);
+        return null;
+    }
+
+    // 只有表头的输入工作簿，不生成排课结果，写回时不需要连接数据库
+    private static byte[] headerOnlyWorkbook() throws IOException {
+        try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            workbook.createSheet("小学部").createRow(0).createCell(0).setCellValue("教师");
+            workbook.write(out);
+            return out.toByteArray();
+        }
+    }
+}
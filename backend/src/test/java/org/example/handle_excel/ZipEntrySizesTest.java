@@ -0,0 +1,132 @@
+package org.example.handle_excel;
+
+import org.example.handle_excel.utils.ZipEntrySizes;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 验证 ZipEntrySizes 从中央目录读取的解压后总大小：普通文件、带注释、中央目录不在末尾一段内，
+ * 以及 zip64、中央目录被截断、不是 zip 文件时返回 -1。
+ */
+class ZipEntrySizesTest {
+
+    @Test
+    void sumsUncompressedSizes() throws IOException {
+        byte[] zip = zip(null, new byte[1000], "课程".repeat(1500).getBytes(StandardCharsets.UTF_8));
+        assertEquals(1000 + 9000, size(zip));
+    }
+
+    @Test
+    void zipWithComment() throws IOException {
+        byte[] zip = zip("排课导出".repeat(100), new byte[1000], new byte[3000]);
+        assertEquals(4000, size(zip));
+    }
+
+    @Test
+    void directoryBeforeTail() throws IOException {
+        // 不压缩的随机内容使中央目录位于末尾读取的一段之前，需要从头重新打开输入
+        byte[] random = new byte[100_000];
+        new Random(1).nextBytes(random);
+        byte[] zip = zip(null, random, new byte[500]);
+        assertEquals(100_500, size(zip));
+    }
+
+    @Test
+    void zip64Unsupported() throws IOException {
+        byte[] zip = zip(null, new byte[1000]);
+        int end = endRecord(zip);
+
+        // 结束记录中的中央目录位置为 0xFFFFFFFF，实际位置在 zip64 结束记录中
+        byte[] zip64Directory = zip.clone();
+        Arrays.fill(zip64Directory, end + 16, end + 20, (byte) 0xFF);
+        assertEquals(-1, size(zip64Directory));
+
+        // 文件记录中的解压后大小为 0xFFFFFFFF，实际大小在 zip64 扩展字段中
+        byte[] zip64Entry = zip.clone();
+        int directoryOffset = readInt(zip, end + 16);
+        Arrays.fill(zip64Entry, directoryOffset + 24, directoryOffset + 28, (byte) 0xFF);
+        assertEquals(-1, size(zip64Entry));
+    }
+
+    @Test
+    void truncatedDirectory() throws IOException {
+        byte[] zip = zip(null, new byte[1000], new byte[2000]);
+        int end = endRecord(zip);
+        int directoryOffset = readInt(zip, end + 16);
+
+        // 去掉中央目录的后半段，结束记录中的中央目录大小超出实际范围
+        int cut = (end - directoryOffset) / 2;
+        byte[] truncated = new byte[zip.length - cut];
+        System.arraycopy(zip, 0, truncated, 0, end - cut);
+        System.arraycopy(zip, end, truncated, end - cut, zip.length - end);
+        assertEquals(-1, size(truncated));
+
+        // 中央目录中的文件记录签名损坏
+        byte[] corrupted = zip.clone();
+        corrupted[directoryOffset] = 0;
+        assertEquals(-1, size(corrupted));
+
+        // 整个结束记录缺失
+        assertEquals(-1, size(Arrays.copyOf(zip, end)));
+    }
+
+    @Test
+    void notZip() throws IOException {
+        assertEquals(-1, size("教师,课程\r\n张三,语文\r\n".repeat(10).getBytes(StandardCharsets.UTF_8)));
+        assertEquals(-1, size(new byte[21]));
+        assertEquals(-1, size(new byte[0]));
+    }
+
+    private static long size(byte[] content) throws IOException {
+        return ZipEntrySizes.totalUncompressedSize(new ByteArrayResource(content), content.length);
+    }
+
+    // 第一个文件不压缩，其余文件压缩
+    private static byte[] zip(String comment, byte[]... entries) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zipStream = new ZipOutputStream(out)) {
+            for (int i = 0; i < entries.length; i++) {
+                ZipEntry entry = new ZipEntry("xl/worksheets/sheet" + (i + 1) + ".xml");
+                if (i == 0) {
+                    CRC32 crc = new CRC32();
+                    crc.update(entries[i]);
+                    entry.setMethod(ZipEntry.STORED);
+                    entry.setSize(entries[i].length);
+                    entry.setCrc(crc.getValue());
+                }
+                zipStream.putNextEntry(entry);
+                zipStream.write(entries[i]);
+                zipStream.closeEntry();
+            }
+            if (comment != null) {
+                zipStream.setComment(comment);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static int endRecord(byte[] zip) {
+        for (int i = zip.length - 22; i >= 0; i--) {
+            if (readInt(zip, i) == 0x06054b50) {
+                return i;
+            }
+        }
+        throw new AssertionError("没有中央目录结束记录");
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8
+                | (bytes[offset + 2] & 0xFF) << 16 | (bytes[offset + 3] & 0xFF) << 24;
+    }
+}
@@ -0,0 +1,57 @@
+package org.example.handle_excel.benchmark;
+
+import org.example.handle_excel.config.HandleProperties;
+import org.example.handle_excel.mapper.ClassMapper;
+import org.example.handle_excel.mapper.CourseMapper;
+import org.example.handle_excel.mapper.TeacherMapper;
+import org.example.handle_excel.service.DataService;
+import org.example.handle_excel.service.MatchService;
+import org.example.handle_excel.service.ProcessService;
+import org.example.handle_excel.service.ReferenceDataService;
+import org.example.handle_excel.service.SheetService;
+import org.example.handle_excel.service.TemplateService;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 创建只包含转换流程所需服务的 Spring 容器，不启动 Web 服务器，也不连接数据库，
+ * Mapper 由 {@link InMemoryMappers} 代替。
+ */
+final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    /**
+     * 创建容器。
+     *
+     * @param properties   转换相关配置
+     * @param templateFile 模板文件
+     * @param columns      输入工作簿的班级列数，用于生成足够的班级
+     * @param teachers     教师人数
+     * @return 已启动的容器，使用完后需要关闭
+     */
+    static AnnotationConfigApplicationContext create(HandleProperties properties, Path templateFile,
+                                                     int columns, int teachers) {
+        properties.getTemplate().setLocation(templateFile.toUri().toString());
+
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.registerBean(HandleProperties.class, () -> properties);
+        context.registerBean(CourseMapper.class, InMemoryMappers.Courses::new);
+        context.registerBean(ClassMapper.class,
+                () -> new InMemoryMappers.Classes(SyntheticData.classes(SyntheticData.classesPerGrade(columns))));
+        context.registerBean(TeacherMapper.class, () -> new InMemoryMappers.Teachers(SyntheticData.teachers(teachers)));
+        context.registerBean("sheetExecutor", ExecutorService.class, () -> {
+            int poolSize = properties.getParallel().getPoolSize() > 0
+                    ? properties.getParallel().getPoolSize() : Runtime.getRuntime().availableProcessors();
+            return Executors.newFixedThreadPool(poolSize);
+        }, definition -> definition.setDestroyMethodName("shutdown"));
+        context.register(MatchService.class, ProcessService.class, SheetService.class, TemplateService.class,
+                DataService.class, ReferenceDataService.class);
+        context.refresh();
+        return context;
+    }
+}
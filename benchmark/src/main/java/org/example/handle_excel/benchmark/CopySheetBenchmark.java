@@ -0,0 +1,68 @@
+package org.example.handle_excel.benchmark;
+
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.example.handle_excel.config.HandleProperties;
+import org.example.handle_excel.model.TemplateModel;
+import org.example.handle_excel.service.TemplateService;
+import org.example.handle_excel.utils.ExcelUtils;
+import org.example.handle_excel.utils.StyleCache;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ExcelUtils.copySheet 的基准测试：把模板的所有 Sheet 复制到一个新的输出工作簿中，
+ * 包括创建和关闭输出工作簿的开销，与每个请求的实际情况一致。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CopySheetBenchmark {
+
+    @Param({"2"})
+    private int sheets; // 模板 Sheet 数
+
+    @Param({"XSSF", "SXSSF"})
+    private HandleProperties.OutputMode outputMode; // 输出工作簿类型
+
+    private AnnotationConfigApplicationContext context;
+
+    private TemplateModel template;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContext.create(new HandleProperties(), SyntheticData.templateFile(sheets), 9, 300);
+        template = context.getBean(TemplateService.class).getTemplate();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void copySheet(Blackhole blackhole) throws IOException {
+        Workbook outputWorkbook = outputMode == HandleProperties.OutputMode.SXSSF
+                ? new SXSSFWorkbook(null, 100, true) : new XSSFWorkbook();
+        try {
+            StyleCache styleCache = new StyleCache(outputWorkbook);
+            for (TemplateModel.TemplateSheet templateSheet : template.sheets().values()) {
+                ExcelUtils.copySheet(templateSheet, outputWorkbook.createSheet(templateSheet.name()), styleCache);
+            }
+            blackhole.consume(outputWorkbook);
+        } finally {
+            if (outputWorkbook instanceof SXSSFWorkbook sxssfWorkbook) {
+                sxssfWorkbook.dispose();
+            }
+            outputWorkbook.close();
+        }
+    }
+}
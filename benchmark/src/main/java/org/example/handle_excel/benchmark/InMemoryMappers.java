@@ -0,0 +1,111 @@
+package org.example.handle_excel.benchmark;
+
+import org.apache.ibatis.executor.result.DefaultResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.example.handle_excel.bean.Class;
+import org.example.handle_excel.bean.Course;
+import org.example.handle_excel.bean.Teacher;
+import org.example.handle_excel.mapper.ClassMapper;
+import org.example.handle_excel.mapper.CourseMapper;
+import org.example.handle_excel.mapper.TeacherMapper;
+import org.example.handle_excel.model.ReferenceFilter;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 基准测试中代替 MyBatis Mapper 的内存实现，不需要数据库。
+ * 合成数据没有校区和状态，过滤条件被忽略。
+ */
+final class InMemoryMappers {
+
+    private InMemoryMappers() {
+    }
+
+    /**
+     * 像流式结果集一样逐条把记录交给 handler。
+     */
+    private static <T> void stream(List<T> rows, ResultHandler<T> handler) {
+        DefaultResultContext<T> context = new DefaultResultContext<>();
+        for (T row : rows) {
+            context.nextResultObject(row);
+            handler.handleResult(context);
+        }
+    }
+
+    /**
+     * 返回主键大于 afterId 的前 limit 条记录，记录已按主键排序。
+     */
+    private static <T> List<T> page(List<T> rows, Function<T, Long> idGetter, Long afterId, int limit) {
+        return rows.stream()
+                .filter(row -> afterId == null || idGetter.apply(row) > afterId)
+                .limit(limit)
+                .toList();
+    }
+
+    static final class Courses implements CourseMapper {
+        @Override
+        public void streamCourses(ReferenceFilter filter, ResultHandler<Course> handler) {
+            // DataService 会修改课程的备注，每次返回新的对象
+            stream(SyntheticData.courses(), handler);
+        }
+
+        @Override
+        public List<Course> getCoursePage(ReferenceFilter filter, Long afterId, int limit) {
+            return page(SyntheticData.courses(), Course::getId, afterId, limit);
+        }
+
+        @Override
+        public String getVersion() {
+            return "synthetic";
+        }
+    }
+
+    static final class Classes implements ClassMapper {
+
+        private final List<Class> classes;
+
+        Classes(List<Class> classes) {
+            this.classes = classes;
+        }
+
+        @Override
+        public void streamClasses(ReferenceFilter filter, ResultHandler<Class> handler) {
+            stream(classes, handler);
+        }
+
+        @Override
+        public List<Class> getClassPage(ReferenceFilter filter, Long afterId, int limit) {
+            return page(classes, Class::getId, afterId, limit);
+        }
+
+        @Override
+        public String getVersion() {
+            return "synthetic";
+        }
+    }
+
+    static final class Teachers implements TeacherMapper {
+
+        private final List<Teacher> teachers;
+
+        Teachers(List<Teacher> teachers) {
+            this.teachers = teachers;
+        }
+
+        @Override
+        public void streamTeachers(ResultHandler<Teacher> handler) {
+            stream(teachers, handler);
+        }
+
+        @Override
+        public List<Teacher> getTeacherPage(Long afterId, int limit) {
+            return page(teachers, Teacher::getId, afterId, limit);
+        }
+
+        @Override
+        public String getVersion() {
+            return "synthetic";
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.handle_excel.benchmark;
+
+import org.example.handle_excel.config.HandleProperties;
+import org.example.handle_excel.model.ConversionContext;
+import org.example.handle_excel.model.CourseIndex;
+import org.example.handle_excel.model.ReferenceData;
+import org.example.handle_excel.model.Term;
+import org.example.handle_excel.service.MatchService;
+import org.example.handle_excel.service.ReferenceDataService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MatchService.MatchCourse 的基准测试：按科目、年级、学期在课程索引中查找课程，全部命中。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatchServiceBenchmark {
+
+    private static final int SIZE = 180; // 科目数 × 年级数 × 学期数
+
+    private AnnotationConfigApplicationContext context;
+
+    private MatchService matchService;
+
+    private CourseIndex.Variants[] variants; // 每次查找使用的同名课程
+
+    private String[] grades; // 每次查找使用的年级
+
+    private ConversionContext[] contexts; // 每次查找使用的转换上下文，提供学期
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContext.create(new HandleProperties(), SyntheticData.templateFile(1), 9, 300);
+        matchService = context.getBean(MatchService.class);
+        ReferenceData referenceData = context.getBean(ReferenceDataService.class).getReferenceData();
+
+        variants = new CourseIndex.Variants[SIZE];
+        grades = new String[SIZE];
+        contexts = new ConversionContext[SIZE];
+        int i = 0;
+        for (String subject : SyntheticData.SUBJECTS) {
+            for (String grade : SyntheticData.GRADES) {
+                for (Term term : Term.values()) {
+                    variants[i] = referenceData.courseIndex().get(subject);
+                    grades[i] = grade;
+                    contexts[i] = ConversionContext.of(null, referenceData, term, null);
+                    i++;
+                }
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public void matchCourse(Blackhole blackhole) {
+        for (int i = 0; i < SIZE; i++) {
+            blackhole.consume(matchService.MatchCourse(contexts[i], variants[i], grades[i], "", ""));
+        }
+    }
+}
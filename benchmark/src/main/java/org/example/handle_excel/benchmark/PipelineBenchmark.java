@@ -0,0 +1,109 @@
+package org.example.handle_excel.benchmark;
+
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.example.handle_excel.bean.Teacher;
+import org.example.handle_excel.config.HandleProperties;
+import org.example.handle_excel.model.ConversionContext;
+import org.example.handle_excel.model.ConversionProgress;
+import org.example.handle_excel.model.ReferenceData;
+import org.example.handle_excel.model.TemplateModel;
+import org.example.handle_excel.model.Term;
+import org.example.handle_excel.service.ReferenceDataService;
+import org.example.handle_excel.service.SheetService;
+import org.example.handle_excel.service.TemplateService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 完整转换流程的基准测试：读取合成的输入工作簿，调用 SheetService.ProcessSheet 匹配并生成输出，
+ * 最后把输出工作簿写出（写入空输出流）。输入规模由 sheets × rows × columns 参数控制，例如：
+ * java -jar target/benchmarks.jar PipelineBenchmark -p sheets=4 -p rows=1000 -p columns=60
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PipelineBenchmark {
+
+    @Param({"2"})
+    private int sheets; // Sheet 数
+
+    @Param({"200"})
+    private int rows; // 每个 Sheet 的数据行数
+
+    @Param({"40"})
+    private int columns; // 每个 Sheet 的班级列数
+
+    @Param({"300"})
+    private int teachers; // 教师人数
+
+    @Param({"STREAMING", "DOM"})
+    private HandleProperties.InputMode inputMode; // 输入读取方式
+
+    @Param({"false", "true"})
+    private boolean parallel; // 是否并行处理 Sheet
+
+    private AnnotationConfigApplicationContext context;
+
+    private SheetService sheetService;
+
+    private TemplateModel template;
+
+    private ReferenceData referenceData;
+
+    private byte[] input; // 输入工作簿的内容
+
+    @Setup
+    public void setup() {
+        HandleProperties properties = new HandleProperties();
+        properties.getParallel().setEnabled(parallel);
+        context = BenchmarkContext.create(properties, SyntheticData.templateFile(sheets), columns, teachers);
+        sheetService = context.getBean(SheetService.class);
+        template = context.getBean(TemplateService.class).getTemplate();
+        referenceData = context.getBean(ReferenceDataService.class).getReferenceData();
+
+        List<Teacher> teacherList = SyntheticData.teachers(teachers);
+        input = SyntheticData.inputWorkbook(sheets, rows, columns, teacherList);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void processSheet(Blackhole blackhole) throws IOException, InvalidFormatException {
+        SXSSFWorkbook outputWorkbook = new SXSSFWorkbook(null, 100, true);
+        try {
+            ConversionProgress progress = new ConversionProgress();
+            ConversionContext conversionContext = ConversionContext.of(template, referenceData, Term.UPPER, progress);
+            if (inputMode == HandleProperties.InputMode.STREAMING) {
+                try (OPCPackage inputPackage = OPCPackage.open(new ByteArrayInputStream(input))) {
+                    sheetService.ProcessSheet(inputPackage, outputWorkbook, conversionContext);
+                }
+            } else {
+                try (Workbook inputWorkbook = new XSSFWorkbook(new ByteArrayInputStream(input))) {
+                    sheetService.ProcessSheet(inputWorkbook, outputWorkbook, conversionContext);
+                }
+            }
+            outputWorkbook.write(OutputStream.nullOutputStream());
+            blackhole.consume(progress.getRowsProcessed());
+        } finally {
+            outputWorkbook.dispose();
+            outputWorkbook.close();
+        }
+    }
+}
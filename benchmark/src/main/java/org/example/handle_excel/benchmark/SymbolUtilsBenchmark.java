@@ -0,0 +1,93 @@
+package org.example.handle_excel.benchmark;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.example.handle_excel.bean.Course;
+import org.example.handle_excel.utils.SymbolUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SymbolUtils 的基准测试：解析课程名称中的括号、移除括号，以及读取单元格的字符串值。
+ * 每次调用处理全部合成课程名称（或单元格），结果按单个元素折算。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SymbolUtilsBenchmark {
+
+    private static final int SIZE = 200; // 课程名称和单元格的数量
+
+    private String[] courseNames; // 课程名称，包括带括号的完整名称和不带括号的基础名称
+
+    private XSSFWorkbook workbook; // 单元格所在的工作簿
+
+    private Cell[] cells; // 字符串、数值、日期、公式等不同类型的单元格
+
+    @Setup
+    public void setup() {
+        List<String> names = new ArrayList<>();
+        List<Course> courses = SyntheticData.courses();
+        for (int i = 0; names.size() < SIZE; i++) {
+            // 与实际使用一致：加载基础数据时解析完整名称，处理每一行时解析输入中的基础名称
+            names.add(i % 2 == 0 ? courses.get(i % courses.size()).getCourName()
+                    : SyntheticData.SUBJECTS[i % SyntheticData.SUBJECTS.length]);
+        }
+        courseNames = names.toArray(new String[0]);
+
+        workbook = new XSSFWorkbook();
+        Row row = workbook.createSheet().createRow(0);
+        cells = new Cell[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            Cell cell = row.createCell(i);
+            switch (i % 4) {
+                case 0 -> cell.setCellValue(" " + courseNames[i] + " ");
+                case 1 -> cell.setCellValue(2024000 + i);
+                case 2 -> cell.setCellValue(i + 0.5);
+                default -> {
+                    cell.setCellFormula("\"" + SyntheticData.SUBJECTS[i % SyntheticData.SUBJECTS.length] + "\"");
+                    cell.setCellValue(SyntheticData.SUBJECTS[i % SyntheticData.SUBJECTS.length]);
+                }
+            }
+            cells[i] = cell;
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        workbook.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public void process(Blackhole blackhole) {
+        for (String name : courseNames) {
+            blackhole.consume(SymbolUtils.process(name));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public void removeSymbol(Blackhole blackhole) {
+        for (String name : courseNames) {
+            blackhole.consume(SymbolUtils.removeSymbol(name));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public void getCellValueAsString(Blackhole blackhole) {
+        for (Cell cell : cells) {
+            blackhole.consume(SymbolUtils.getCellValueAsString(cell));
+        }
+    }
+}
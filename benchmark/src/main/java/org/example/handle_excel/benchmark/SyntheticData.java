@@ -0,0 +1,193 @@
+package org.example.handle_excel.benchmark;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.example.handle_excel.bean.Class;
+import org.example.handle_excel.bean.Course;
+import org.example.handle_excel.bean.Teacher;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基准测试使用的合成数据。
+ * 课程、班级、教师数据的形状与 test.sql 相近：课程名称为 "科目（年级学期）"，中英文括号混用，
+ * 另有带多个括号的课程和同名课程；班级名称为 "七年1班"；教师编号为 "2024001"，姓名分为姓和名。
+ * 输入工作簿按 Sheet 数 × 行数 × 班级列数生成，所有课程、班级和教师都能匹配上。
+ */
+public final class SyntheticData {
+
+    static final String[] SUBJECTS = {"语文", "数学", "英语", "科学", "道德与法治", "美术", "音乐", "体育", "信息科技", "劳动"};
+
+    static final String[] GRADES = {"一", "二", "三", "四", "五", "六", "七", "八", "九"};
+
+    private static final String[] SURNAMES = {"王", "李", "张", "刘", "陈", "杨", "黄", "赵", "吴", "周",
+            "徐", "孙", "马", "朱", "胡", "郭", "何", "高", "林", "欧阳"};
+
+    private static final String[] GIVEN_NAMES = {"敏", "静", "丽", "强", "磊", "军", "洋", "勇", "艳", "杰",
+            "娟", "涛", "明", "超", "秀英", "华", "慧", "建华", "晓桂", "心怡"};
+
+    private SyntheticData() {
+    }
+
+    /**
+     * 生成课程：每个科目、年级、学期一门课程，外加带多个括号、无括号和同名的课程。
+     *
+     * @return 课程列表，每次调用都返回新的对象（DataService 会修改课程的备注）
+     */
+    public static List<Course> courses() {
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < SUBJECTS.length; i++) {
+            for (int j = 0; j < GRADES.length; j++) {
+                for (int t = 0; t < 2; t++) {
+                    String term = t == 0 ? "上" : "下";
+                    // 与 test.sql 一样中英文括号混用
+                    String name = (i + j) % 3 == 0
+                            ? SUBJECTS[i] + "(" + GRADES[j] + term + ")"
+                            : SUBJECTS[i] + "（" + GRADES[j] + term + "）";
+                    courses.add(new Course(String.format("c%02d%d%02d", i, t + 1, j + 1), name,
+                            null, "2024-08-29 20:45:53", null, courses.size() + 1L));
+                }
+            }
+        }
+        courses.add(new Course("jpe301", "体育三（兵乓球）（一上）", null, null, null, courses.size() + 1L));
+        courses.add(new Course("jpe302", "体育三（兵乓球）（二上）", null, null, null, courses.size() + 1L));
+        courses.add(new Course("jch901", "保留", null, null, null, courses.size() + 1L));
+        courses.add(new Course("jch902", "保留", null, null, null, courses.size() + 1L));
+        courses.add(new Course("jar501", "CPBL-玩美*创艺", null, null, null, courses.size() + 1L));
+        return courses;
+    }
+
+    /**
+     * 生成班级：每个年级 classesPerGrade 个班。
+     *
+     * @param classesPerGrade 每个年级的班级数
+     * @return 班级列表
+     */
+    public static List<Class> classes(int classesPerGrade) {
+        List<Class> classes = new ArrayList<>();
+        for (int j = 0; j < GRADES.length; j++) {
+            for (int n = 1; n <= classesPerGrade; n++) {
+                classes.add(new Class(String.format("20%02d%03d", j + 16, n), className(j, n), null,
+                        classes.size() + 1L));
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * 生成教师，超过 400 人时出现同名教师。
+     *
+     * @param count 教师人数
+     * @return 教师列表
+     */
+    public static List<Teacher> teachers(int count) {
+        List<Teacher> teachers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            teachers.add(new Teacher(String.format("2024%03d", i + 1),
+                    SURNAMES[i % SURNAMES.length], GIVEN_NAMES[(i / SURNAMES.length) % GIVEN_NAMES.length],
+                    i + 1L));
+        }
+        return teachers;
+    }
+
+    /**
+     * 覆盖 columns 个班级列所需的每个年级的班级数。
+     *
+     * @param columns 班级列数
+     * @return 每个年级的班级数
+     */
+    public static int classesPerGrade(int columns) {
+        return Math.max(1, (columns + GRADES.length - 1) / GRADES.length);
+    }
+
+    /**
+     * 生成 Sheet 名称。
+     *
+     * @param sheets Sheet 数
+     * @return Sheet 名称列表
+     */
+    public static List<String> sheetNames(int sheets) {
+        List<String> names = new ArrayList<>();
+        for (int s = 1; s <= sheets; s++) {
+            names.add("课表" + s);
+        }
+        return names;
+    }
+
+    /**
+     * 生成输入工作簿：第一行为 "科目" 加班级名称，之后每行第一列为科目，其余列为任课教师姓名。
+     *
+     * @param sheets   Sheet 数
+     * @param rows     每个 Sheet 的数据行数
+     * @param columns  每个 Sheet 的班级列数
+     * @param teachers 教师列表
+     * @return xlsx 文件内容
+     */
+    public static byte[] inputWorkbook(int sheets, int rows, int columns, List<Teacher> teachers) {
+        int classesPerGrade = classesPerGrade(columns);
+        try (XSSFWorkbook workbook = new XSSFWorkbook();
+             ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            for (String sheetName : sheetNames(sheets)) {
+                Sheet sheet = workbook.createSheet(sheetName);
+                Row header = sheet.createRow(0);
+                header.createCell(0).setCellValue("科目");
+                for (int c = 1; c <= columns; c++) {
+                    int index = c - 1;
+                    header.createCell(c).setCellValue(className(index / classesPerGrade % GRADES.length,
+                            index % classesPerGrade + 1));
+                }
+                for (int r = 1; r <= rows; r++) {
+                    Row row = sheet.createRow(r);
+                    row.createCell(0).setCellValue(SUBJECTS[(r - 1) % SUBJECTS.length]);
+                    for (int c = 1; c <= columns; c++) {
+                        Teacher teacher = teachers.get(((r - 1) * columns + c - 1) % teachers.size());
+                        row.createCell(c).setCellValue(teacher.getTrFirstName() + teacher.getTrName());
+                    }
+                }
+            }
+            workbook.write(outputStream);
+            return outputStream.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 以 backend 的模板为基础生成模板文件：把模板的第一个 Sheet 复制为与输入工作簿同名的各个 Sheet。
+     *
+     * @param sheets Sheet 数
+     * @return 模板文件路径，JVM 退出时删除
+     */
+    public static Path templateFile(int sheets) {
+        try (InputStream inputStream = SyntheticData.class.getResourceAsStream("/templates/template.xlsx");
+             XSSFWorkbook workbook = new XSSFWorkbook(inputStream)) {
+            int original = workbook.getNumberOfSheets();
+            for (String sheetName : sheetNames(sheets)) {
+                workbook.cloneSheet(0, sheetName);
+            }
+            for (int i = 0; i < original; i++) {
+                workbook.removeSheetAt(0);
+            }
+            Path file = Files.createTempFile("benchmark-template", ".xlsx");
+            file.toFile().deleteOnExit();
+            try (var outputStream = Files.newOutputStream(file)) {
+                workbook.write(outputStream);
+            }
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String className(int gradeIndex, int number) {
+        return GRADES[gradeIndex] + "年" + number + "班";
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ 排课记录表：保存 /handle?writeBack=true 写回的排课结果，内容与输出课表中的一行相同。
+ 同一教师、课程、班级只保留一条记录，重复写回时更新其余字段。
+
+ Target Server Type    : MySQL
+ Target Server Version : 80022
+ File Encoding         : 65001
+*/
+
+SET NAMES utf8mb4;
+
+-- ----------------------------
+-- Table structure for teaching_assignment
+-- ----------------------------
+CREATE TABLE IF NOT EXISTS `teaching_assignment`  (
+  `id` bigint(0) NOT NULL AUTO_INCREMENT,
+  `TrNum` varchar(20) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NOT NULL COMMENT '教师编号',
+  `TrName` varchar(10) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL DEFAULT NULL COMMENT '教师姓名',
+  `CourNum` varchar(20) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NOT NULL COMMENT '课程编号',
+  `CourName` varchar(50) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL DEFAULT NULL COMMENT '课程名称',
+  `ClassNum` varchar(20) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NOT NULL COMMENT '班级编号',
+  `ClassName` varchar(30) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL DEFAULT NULL COMMENT '班级名称',
+  `uppeo` int(0) NULL DEFAULT NULL COMMENT '人数上限',
+  `lwpeo` int(0) NULL DEFAULT NULL COMMENT '人数下限',
+  `StartDate` varchar(30) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL DEFAULT NULL COMMENT '开始日期',
+  `EndDate` varchar(30) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL DEFAULT NULL COMMENT '结束日期',
+  `btime` datetime(0) NULL DEFAULT NULL COMMENT '创建时间',
+  `utime` datetime(0) NULL DEFAULT NULL COMMENT '更新时间',
+  PRIMARY KEY (`id`) USING BTREE,
+  UNIQUE INDEX `uk_assignment`(`TrNum`, `CourNum`, `ClassNum`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_general_ci ROW_FORMAT = Dynamic;